@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+/**
+ * Snapshot and restore of a background model, so detectors resume with a warm
+ * model after a restart. The model Mat (8 bit or 32 bit float) and the frame
+ * position are written every saveFrames frames to a temporary file, synced and
+ * atomically renamed over the state file, so a crash never leaves a partial
+ * state. Pixels are copied on the detection thread with one JNI call and
+ * written on a background thread. A save is skipped if the last one is still
+ * being written.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class BackgroundState {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = Logger.getLogger(BackgroundState.class.getName());
+    /**
+     * File signature and version.
+     */
+    private static final int MAGIC = 0x42475331;
+    /**
+     * Header bytes: magic, rows, cols, type and frame position.
+     */
+    private static final int HEADER_SIZE = 4 * 4 + 8;
+    /**
+     * State file.
+     */
+    private final Path path;
+    /**
+     * Temporary file renamed over state file.
+     */
+    private final Path tempPath;
+    /**
+     * Save every saveFrames frames.
+     */
+    private final long saveFrames;
+    /**
+     * Writes state files.
+     */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    /**
+     * A save is being written.
+     */
+    private final AtomicBoolean writing = new AtomicBoolean();
+    /**
+     * Reused header and pixel buffer.
+     */
+    private ByteBuffer buffer;
+    /**
+     * Reused pixels for 8 bit models.
+     */
+    private byte[] bytes;
+    /**
+     * Reused pixels for float models.
+     */
+    private float[] floats;
+    /**
+     * Frame position of restored state.
+     */
+    private long frame;
+    /**
+     * States saved.
+     */
+    private long saved;
+    /**
+     * Saves skipped because a write was in progress.
+     */
+    private long skipped;
+
+    /**
+     * Create state.
+     *
+     * @param fileName
+     *            State file such as "../output/motion-detect-java.state".
+     * @param saveFrames
+     *            Save every saveFrames frames.
+     */
+    BackgroundState(final String fileName, final long saveFrames) {
+        this.path = Paths.get(fileName);
+        this.tempPath = Paths.get(fileName + ".tmp");
+        this.saveFrames = saveFrames;
+    }
+
+    /**
+     * Frame position of restored state.
+     *
+     * @return Frame to resume at or 0.
+     */
+    public long getFrame() {
+        return frame;
+    }
+
+    /**
+     * Load state if it exists and matches the model size and type.
+     *
+     * @param rows
+     *            Model rows.
+     * @param cols
+     *            Model columns.
+     * @param type
+     *            Model type such as CvType.CV_32FC3.
+     * @return Model or null if there is no usable state. Caller must release.
+     */
+    public Mat load(final int rows, final int cols, final int type) {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        Mat model = null;
+        try (final var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final var header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.nativeOrder());
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Read whole header
+            }
+            header.flip();
+            if (header.remaining() == HEADER_SIZE && header.getInt() == MAGIC && header.getInt() == rows
+                    && header.getInt() == cols && header.getInt() == type) {
+                final var position = header.getLong();
+                final var data = allocate(rows, cols, type);
+                while (data.hasRemaining() && channel.read(data) >= 0) {
+                    // Read all pixels
+                }
+                if (!data.hasRemaining()) {
+                    data.flip();
+                    model = new Mat(rows, cols, type);
+                    if (CvType.depth(type) == CvType.CV_32F) {
+                        data.asFloatBuffer().get(floats);
+                        model.put(0, 0, floats);
+                    } else {
+                        data.get(bytes);
+                        model.put(0, 0, bytes);
+                    }
+                    frame = position;
+                    logger.log(Level.INFO, String.format("Restored %s at frame %d", path, frame));
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, String.format("Unable to read %s: %s", path, e.getMessage()));
+        }
+        if (model == null) {
+            logger.log(Level.WARNING, String.format("%s does not match model, starting cold", path));
+        }
+        return model;
+    }
+
+    /**
+     * Size pixel buffer and arrays for model.
+     *
+     * @param rows
+     *            Model rows.
+     * @param cols
+     *            Model columns.
+     * @param type
+     *            Model type.
+     * @return Pixel buffer.
+     */
+    private ByteBuffer allocate(final int rows, final int cols, final int type) {
+        final var depth = CvType.depth(type);
+        if (depth != CvType.CV_8U && depth != CvType.CV_32F) {
+            throw new IllegalArgumentException(String.format("Unsupported model type %s", CvType.typeToString(type)));
+        }
+        final var elements = rows * cols * CvType.channels(type);
+        final var dataSize = depth == CvType.CV_32F ? elements * 4 : elements;
+        if (buffer == null || buffer.capacity() != HEADER_SIZE + dataSize) {
+            buffer = ByteBuffer.allocateDirect(HEADER_SIZE + dataSize).order(ByteOrder.nativeOrder());
+        }
+        if (depth == CvType.CV_32F && (floats == null || floats.length != elements)) {
+            floats = new float[elements];
+        } else if (depth == CvType.CV_8U && (bytes == null || bytes.length != elements)) {
+            bytes = new byte[elements];
+        }
+        buffer.clear();
+        buffer.position(HEADER_SIZE);
+        return buffer.slice().order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Frame is on a save boundary. Use to avoid building a model that will not
+     * be saved.
+     *
+     * @param position
+     *            Next frame to process.
+     * @return True if save would write.
+     */
+    public boolean isDue(final long position) {
+        return position % saveFrames == 0;
+    }
+
+    /**
+     * Save model if frame is on a save boundary.
+     *
+     * @param model
+     *            Continuous 8 bit or float model.
+     * @param position
+     *            Next frame to process.
+     */
+    public void save(final Mat model, final long position) {
+        if (isDue(position)) {
+            if (writing.compareAndSet(false, true)) {
+                copy(model, position);
+                executor.execute(this::write);
+            } else {
+                skipped++;
+            }
+        }
+    }
+
+    /**
+     * Copy model and header into buffer.
+     *
+     * @param model
+     *            Continuous 8 bit or float model.
+     * @param position
+     *            Next frame to process.
+     */
+    private void copy(final Mat model, final long position) {
+        final var data = allocate(model.rows(), model.cols(), model.type());
+        if (model.depth() == CvType.CV_32F) {
+            model.get(0, 0, floats);
+            data.asFloatBuffer().put(floats);
+        } else {
+            model.get(0, 0, bytes);
+            data.put(bytes);
+        }
+        buffer.clear();
+        buffer.putInt(MAGIC).putInt(model.rows()).putInt(model.cols()).putInt(model.type()).putLong(position);
+        buffer.clear();
+    }
+
+    /**
+     * Write buffer to temporary file, sync and rename over state file. Runs on
+     * writer thread.
+     */
+    private void write() {
+        try {
+            try (final var channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            saved++;
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, String.format("Unable to write %s: %s", path, e.getMessage()));
+        } finally {
+            writing.set(false);
+        }
+    }
+
+    /**
+     * Save final state and wait for writes to finish.
+     *
+     * @param model
+     *            Continuous 8 bit or float model or null if no frames were
+     *            processed.
+     * @param position
+     *            Next frame to process. Use 0 when the source ended, so the
+     *            next run starts over with a warm model.
+     */
+    public void close(final Mat model, final long position) {
+        if (model != null) {
+            // Wait for pending write, so the final state is not skipped
+            while (!writing.compareAndSet(false, true)) {
+                Thread.onSpinWait();
+            }
+            copy(model, position);
+            executor.execute(this::write);
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.log(Level.INFO, String.format("%d states saved to %s, %d skipped", saved, path, skipped));
+    }
+}
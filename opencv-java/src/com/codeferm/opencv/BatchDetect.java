@@ -0,0 +1,461 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.Videoio;
+
+/**
+ * Run a detector over every clip in a directory tree. Clips are scheduled
+ * largest first on a work stealing pool, so long files do not start last and
+ * hold up the end of the batch. Each clip writes JSON lines like
+ * HeadlessDetect to the same relative path in the output directory.
+ *
+ * Progress is recorded in a journal. "POSITION frame offset path" is written
+ * every few seconds of video after the output is flushed and "DONE frames
+ * path" when a clip finishes. Running the batch again skips finished clips and
+ * resumes partly finished clips at their last position, truncating output
+ * written after it. A clip that cannot seek is started over. Background
+ * models are not saved, so a resumed clip learns its background again.
+ *
+ * args[0] = input directory or will default to "../resources" if no args
+ * passed.
+ *
+ * args[1] = detector or will default to "motion" if no args passed.
+ *
+ * args[2] = output directory or will default to "../output/batch" if no args
+ * passed.
+ *
+ * args[3] = threads or will default to the number of processors if no args
+ * passed.
+ *
+ * args[4] = file extensions separated by "," or will default to
+ * "mp4,avi,mkv,mov" if no args passed.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class BatchDetect {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = Logger.getLogger(BatchDetect.class.getName());
+    /* Load the OpenCV system library */
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    /**
+     * Frames between checkpoints.
+     */
+    private static final int CHECKPOINT_FRAMES = 300;
+    /**
+     * Journal file name in output directory.
+     */
+    private static final String JOURNAL = "batch.journal";
+
+    /**
+     * Where a clip left off.
+     */
+    static final class Checkpoint {
+        /**
+         * Next frame.
+         */
+        private final long frame;
+        /**
+         * Output size at frame.
+         */
+        private final long offset;
+        /**
+         * Clip finished.
+         */
+        private final boolean done;
+
+        /**
+         * Create checkpoint.
+         *
+         * @param frame
+         *            Next frame.
+         * @param offset
+         *            Output size at frame.
+         * @param done
+         *            Clip finished.
+         */
+        Checkpoint(final long frame, final long offset, final boolean done) {
+            this.frame = frame;
+            this.offset = offset;
+            this.done = done;
+        }
+    }
+
+    /**
+     * One clip. Leaf of the work stealing pool.
+     */
+    final class ClipTask extends RecursiveAction {
+        /**
+         * Serial version.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * Clip.
+         */
+        private final Path clip;
+
+        /**
+         * Create task.
+         *
+         * @param clip
+         *            Clip.
+         */
+        ClipTask(final Path clip) {
+            this.clip = clip;
+        }
+
+        /**
+         * Detect clip. A failed clip is logged and left without DONE, so the
+         * other clips keep running and the next run retries it.
+         */
+        @Override
+        protected void compute() {
+            try {
+                detect(clip);
+            } catch (IOException | RuntimeException e) {
+                logger.log(Level.SEVERE, String.format("%s failed: %s", clip, e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Input directory.
+     */
+    private final Path inputDir;
+    /**
+     * Output directory.
+     */
+    private final Path outputDir;
+    /**
+     * Detector name.
+     */
+    private final String detectorName;
+    /**
+     * Checkpoints by clip from previous runs.
+     */
+    private final Map<String, Checkpoint> checkpoints;
+    /**
+     * Journal.
+     */
+    private final BufferedWriter journal;
+    /**
+     * Frames processed by this run.
+     */
+    private final AtomicInteger frames = new AtomicInteger();
+
+    /**
+     * Open journal and load checkpoints.
+     *
+     * @param inputDir
+     *            Input directory.
+     * @param outputDir
+     *            Output directory.
+     * @param detectorName
+     *            Detector name.
+     * @throws IOException
+     *             Possible exception.
+     */
+    BatchDetect(final Path inputDir, final Path outputDir, final String detectorName) throws IOException {
+        this.inputDir = inputDir;
+        this.outputDir = outputDir;
+        this.detectorName = detectorName;
+        Files.createDirectories(outputDir);
+        final var journalFile = outputDir.resolve(JOURNAL);
+        checkpoints = loadJournal(journalFile);
+        journal = Files.newBufferedWriter(journalFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Load last checkpoint of each clip. A torn last line from an interrupted
+     * run is ignored.
+     *
+     * @param journalFile
+     *            Journal.
+     * @return Checkpoints by clip.
+     * @throws IOException
+     *             Possible exception.
+     */
+    public static Map<String, Checkpoint> loadJournal(final Path journalFile) throws IOException {
+        final var checkpoints = new HashMap<String, Checkpoint>();
+        if (!Files.exists(journalFile)) {
+            return checkpoints;
+        }
+        for (final var line : Files.readAllLines(journalFile, StandardCharsets.UTF_8)) {
+            final var fields = line.split(" ", 4);
+            try {
+                if ("POSITION".equals(fields[0]) && fields.length == 4) {
+                    checkpoints.put(fields[3],
+                            new Checkpoint(Long.parseLong(fields[1]), Long.parseLong(fields[2]), false));
+                } else if ("DONE".equals(fields[0]) && fields.length == 3) {
+                    checkpoints.put(fields[2], new Checkpoint(Long.parseLong(fields[1]), 0, true));
+                }
+            } catch (NumberFormatException e) {
+                logger.log(Level.WARNING, String.format("Skipping journal line: %s", line));
+            }
+        }
+        return checkpoints;
+    }
+
+    /**
+     * Append journal line. Called from pool threads.
+     *
+     * @param line
+     *            Journal line.
+     * @throws IOException
+     *             Possible exception.
+     */
+    private synchronized void record(final String line) throws IOException {
+        journal.write(line);
+        journal.newLine();
+        journal.flush();
+    }
+
+    /**
+     * Clips under input directory, largest first.
+     *
+     * @param extensions
+     *            File extensions.
+     * @return Clips.
+     * @throws IOException
+     *             Possible exception.
+     */
+    public List<Path> scan(final List<String> extensions) throws IOException {
+        try (final var paths = Files.walk(inputDir)) {
+            return paths.filter(Files::isRegularFile).filter(path -> {
+                final var name = path.getFileName().toString();
+                final var dot = name.lastIndexOf('.');
+                return dot > 0 && extensions.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+            }).sorted(Comparator.comparingLong((Path path) -> {
+                try {
+                    return Files.size(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).reversed()).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Detect one clip starting at its checkpoint.
+     *
+     * @param clip
+     *            Clip.
+     * @throws IOException
+     *             Possible exception.
+     */
+    private void detect(final Path clip) throws IOException {
+        final var relative = inputDir.relativize(clip).toString();
+        final var checkpoint = checkpoints.get(relative);
+        if (checkpoint != null && checkpoint.done) {
+            return;
+        }
+        final var videoCapture = new VideoCapture();
+        videoCapture.open(clip.toString());
+        // Unreadable clip must not be journaled as done or lose its output
+        if (!videoCapture.isOpened()) {
+            videoCapture.release();
+            logger.log(Level.SEVERE, String.format("Unable to open %s", relative));
+            return;
+        }
+        final var frameSize = new Size((int) videoCapture.get(Videoio.CAP_PROP_FRAME_WIDTH),
+                (int) videoCapture.get(Videoio.CAP_PROP_FRAME_HEIGHT));
+        var frame = 0L;
+        var offset = 0L;
+        if (checkpoint != null) {
+            // Some backends cannot seek, so start over instead of misnumbering frames
+            if (videoCapture.set(Videoio.CAP_PROP_POS_FRAMES, checkpoint.frame)
+                    && (long) videoCapture.get(Videoio.CAP_PROP_POS_FRAMES) == checkpoint.frame) {
+                frame = checkpoint.frame;
+                offset = checkpoint.offset;
+                logger.log(Level.INFO, String.format("Resuming %s at frame %d", relative, frame));
+            } else {
+                videoCapture.set(Videoio.CAP_PROP_POS_FRAMES, 0);
+                logger.log(Level.WARNING, String.format("Unable to seek %s to frame %d, starting over", relative,
+                        checkpoint.frame));
+            }
+        }
+        final var outputFile = outputDir.resolve(relative + ".jsonl");
+        try {
+            Files.createDirectories(outputFile.getParent());
+            try (final var channel = FileChannel.open(outputFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE)) {
+                // Drop output written after the checkpoint
+                channel.truncate(offset);
+            }
+        } catch (IOException e) {
+            videoCapture.release();
+            throw e;
+        }
+        Detector detector = null;
+        final var mat = new Mat();
+        try (final var out = Files.newBufferedWriter(outputFile, StandardCharsets.UTF_8, StandardOpenOption.APPEND)) {
+            detector = Detector.create(detectorName, frameSize);
+            while (videoCapture.read(mat)) {
+                out.write(detector.detect(mat).toJson(frame));
+                out.newLine();
+                frame++;
+                frames.incrementAndGet();
+                if (frame % CHECKPOINT_FRAMES == 0) {
+                    // Output must reach the file before the journal points past it
+                    out.flush();
+                    record(String.format("POSITION %d %d %s", frame, Files.size(outputFile), relative));
+                }
+            }
+        } finally {
+            // Free native memory
+            videoCapture.release();
+            if (detector != null) {
+                detector.release();
+            }
+            mat.release();
+        }
+        record(String.format("DONE %d %s", frame, relative));
+        logger.log(Level.INFO, String.format("Finished %s, %d frames", relative, frame));
+    }
+
+    /**
+     * Run clips on pool. Async mode makes every worker take and steal tasks in
+     * the order they were forked, so the largest clips start first.
+     *
+     * @param clips
+     *            Clips, largest first.
+     * @param threads
+     *            Pool threads.
+     * @return Frames processed.
+     * @throws IOException
+     *             Possible exception.
+     */
+    public int run(final List<Path> clips, final int threads) throws IOException {
+        final var pool = new ForkJoinPool(threads, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+        try {
+            pool.invoke(new RecursiveAction() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected void compute() {
+                    // invokeAll forks in reverse, so fork in order here
+                    final var tasks = new ArrayList<ClipTask>();
+                    for (final var clip : clips) {
+                        final var task = new ClipTask(clip);
+                        task.fork();
+                        tasks.add(task);
+                    }
+                    for (final var task : tasks) {
+                        task.join();
+                    }
+                }
+            });
+        } finally {
+            pool.shutdown();
+            journal.close();
+        }
+        return frames.get();
+    }
+
+    /**
+     * Detect every clip and write JSON lines.
+     *
+     * args[0] = input directory or will default to "../resources" if no args
+     * passed.
+     *
+     * args[1] = detector or will default to "motion" if no args passed.
+     *
+     * args[2] = output directory or will default to "../output/batch" if no
+     * args passed.
+     *
+     * args[3] = threads or will default to the number of processors if no args
+     * passed.
+     *
+     * args[4] = file extensions separated by "," or will default to
+     * "mp4,avi,mkv,mov" if no args passed.
+     *
+     * @param args
+     *            String array of arguments.
+     */
+    public static void main(final String... args) {
+        var inputDir = "../resources";
+        var name = "motion";
+        var outputDir = "../output/batch";
+        var threads = Runtime.getRuntime().availableProcessors();
+        var extensions = "mp4,avi,mkv,mov";
+        if (args.length > 0) {
+            inputDir = args[0];
+        }
+        if (args.length > 1) {
+            name = args[1];
+        }
+        if (args.length > 2) {
+            outputDir = args[2];
+        }
+        if (args.length > 3) {
+            threads = Integer.parseInt(args[3]);
+        }
+        if (args.length > 4) {
+            extensions = args[4];
+        }
+        // Custom logging properties via class loader
+        try {
+            LogManager.getLogManager()
+                    .readConfiguration(BatchDetect.class.getClassLoader().getResourceAsStream("logging.properties"));
+        } catch (SecurityException | IOException e) {
+            e.printStackTrace();
+        }
+        logger.log(Level.INFO, String.format("OpenCV %s", Core.VERSION));
+        logger.log(Level.INFO, String.format("Input: %s, detector: %s, output: %s, threads: %d", inputDir, name,
+                outputDir, threads));
+        final var startTime = System.currentTimeMillis();
+        var frames = 0;
+        try {
+            final var batchDetect = new BatchDetect(Paths.get(inputDir), Paths.get(outputDir), name);
+            final var clips = batchDetect.scan(List.of(extensions.toLowerCase(Locale.ROOT).split(",")));
+            logger.log(Level.INFO, String.format("%d clips, %d finished by previous runs", clips.size(),
+                    batchDetect.checkpoints.values().stream().filter(checkpoint -> checkpoint.done).count()));
+            frames = batchDetect.run(clips, threads);
+        } catch (IOException | UncheckedIOException e) {
+            logger.log(Level.SEVERE, String.format("Batch failed: %s", e.getMessage()));
+        }
+        final var estimatedTime = System.currentTimeMillis() - startTime;
+        final var seconds = (double) estimatedTime / 1000;
+        logger.log(Level.INFO, String.format("%d frames", frames));
+        logger.log(Level.INFO, String.format("%4.1f FPS, elapsed time: %4.2f seconds", frames / seconds, seconds));
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.Videoio;
+
+/**
+ * Decode a video once into a FrameCache and benchmark detectors on the mapped
+ * frames, so detector FPS no longer includes H.264 decode. The cache is built
+ * only if it is missing or older than the video. Decode FPS is logged while
+ * building and raw read throughput is logged for the cache, so the cost of
+ * decode can be compared directly.
+ *
+ * args[0] = video file or will default to "../resources/traffic.mp4" if no
+ * args passed.
+ *
+ * args[1] = cache file or will default to "../output/traffic.frames" if no
+ * args passed. Use /dev/shm to keep it in memory.
+ *
+ * args[2] = detectors separated by "," or will default to
+ * "motion,resize,mog2,knn,people" if no args passed.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class CacheBenchmark {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = Logger.getLogger(CacheBenchmark.class.getName());
+    /* Load the OpenCV system library */
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    /**
+     * Suppress default constructor for noninstantiability.
+     */
+    private CacheBenchmark() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Decode video into cache. The cache file is deleted if the video cannot
+     * be read, so a bad cache is never left behind.
+     *
+     * @param url
+     *            Video file.
+     * @param cacheFile
+     *            Cache file.
+     * @throws IOException
+     *             Possible exception.
+     */
+    public static void build(final String url, final String cacheFile) throws IOException {
+        final var videoCapture = new VideoCapture();
+        if (!videoCapture.open(url)) {
+            throw new IOException(String.format("Unable to open %s", url));
+        }
+        final var frameSize = new Size((int) videoCapture.get(Videoio.CAP_PROP_FRAME_WIDTH),
+                (int) videoCapture.get(Videoio.CAP_PROP_FRAME_HEIGHT));
+        final var mat = new Mat();
+        var frames = 0;
+        final var startTime = System.currentTimeMillis();
+        try (final var cache = FrameCache.create(cacheFile, frameSize, CvType.CV_8UC3,
+                videoCapture.get(Videoio.CAP_PROP_FPS))) {
+            while (videoCapture.read(mat)) {
+                cache.write(mat);
+                frames++;
+            }
+            if (frames == 0) {
+                throw new IOException(String.format("No frames read from %s", url));
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(Paths.get(cacheFile));
+            videoCapture.release();
+            mat.release();
+            throw e;
+        }
+        final var estimatedTime = System.currentTimeMillis() - startTime;
+        final var seconds = (double) estimatedTime / 1000;
+        logger.log(Level.INFO, String.format("Cached %d frames of %s, decode and write %4.1f FPS", frames, frameSize,
+                frames / seconds));
+        // Free native memory
+        videoCapture.release();
+        mat.release();
+    }
+
+    /**
+     * Read every byte of every frame.
+     *
+     * @param cache
+     *            Frame cache.
+     */
+    public static void readAll(final FrameCache cache) {
+        final var frames = cache.getFrameCount();
+        final var startTime = System.nanoTime();
+        for (int i = 0; i < frames; i++) {
+            Core.sumElems(cache.getFrame(i));
+        }
+        final var seconds = (System.nanoTime() - startTime) / 1000000000.0;
+        logger.log(Level.INFO, String.format("Cache read %6.1f FPS, %6.2f GB/s", frames / seconds,
+                (double) frames * cache.getFrameBytes() / seconds / 1000000000.0));
+    }
+
+    /**
+     * Run detector over cached frames.
+     *
+     * @param name
+     *            Detector name.
+     * @param cache
+     *            Frame cache.
+     */
+    public static void run(final String name, final FrameCache cache) {
+        final var detector = Detector.create(name, cache.getFrameSize());
+        final var frames = cache.getFrameCount();
+        var framesDetected = 0;
+        final var startTime = System.nanoTime();
+        for (int i = 0; i < frames; i++) {
+            if (detector.detect(cache.getFrame(i)).isDetected()) {
+                framesDetected++;
+            }
+        }
+        final var seconds = (System.nanoTime() - startTime) / 1000000000.0;
+        logger.log(Level.INFO, String.format("%-6s %d frames with detections, %6.1f FPS, %6.2f ms mean", name,
+                framesDetected, frames / seconds, seconds * 1000.0 / Math.max(1, frames)));
+        // Free native memory
+        detector.release();
+    }
+
+    /**
+     * Build cache if needed and run each detector on it.
+     *
+     * args[0] = video file or will default to "../resources/traffic.mp4" if
+     * no args passed.
+     *
+     * args[1] = cache file or will default to "../output/traffic.frames" if no
+     * args passed.
+     *
+     * args[2] = detectors separated by "," or will default to
+     * "motion,resize,mog2,knn,people" if no args passed.
+     *
+     * @param args
+     *            String array of arguments.
+     */
+    public static void main(final String... args) {
+        var url = "../resources/traffic.mp4";
+        var cacheFile = "../output/traffic.frames";
+        var names = "motion,resize,mog2,knn,people";
+        if (args.length > 0) {
+            url = args[0];
+        }
+        if (args.length > 1) {
+            cacheFile = args[1];
+        }
+        if (args.length > 2) {
+            names = args[2];
+        }
+        // Custom logging properties via class loader
+        try {
+            LogManager.getLogManager().readConfiguration(
+                    CacheBenchmark.class.getClassLoader().getResourceAsStream("logging.properties"));
+        } catch (SecurityException | IOException e) {
+            e.printStackTrace();
+        }
+        logger.log(Level.INFO, String.format("OpenCV %s", Core.VERSION));
+        logger.log(Level.INFO, String.format("Input file: %s, cache file: %s", url, cacheFile));
+        try {
+            final var video = Paths.get(url);
+            final var cachePath = Paths.get(cacheFile);
+            if (!Files.exists(cachePath)
+                    || Files.getLastModifiedTime(cachePath).compareTo(Files.getLastModifiedTime(video)) < 0) {
+                build(url, cacheFile);
+            }
+            try (final var cache = FrameCache.open(cacheFile)) {
+                logger.log(Level.INFO, String.format("Cache: %d frames, %s, %4.1f FPS source", cache.getFrameCount(),
+                        cache.getFrameSize(), cache.getFps()));
+                cache.load();
+                readAll(cache);
+                for (final var name : names.split(",")) {
+                    run(name, cache);
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, String.format("Frame cache failed: %s", e.getMessage()));
+        }
+    }
+}
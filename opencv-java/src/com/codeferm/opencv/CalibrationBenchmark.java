@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+import org.opencv.core.Core;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.Point;
+import org.opencv.core.Size;
+import org.opencv.imgcodecs.Imgcodecs;
+
+/**
+ * Time chess board corner search at full resolution against the reduced
+ * search of CameraCalibration.getCornersReduced on each image set. Logs boards
+ * found, corner search time including decode, the reduction actually used and
+ * the largest distance between refined corners and the full resolution
+ * corners.
+ *
+ * args[0] = image sets as mask:cols,rows separated by ";" or will default to
+ * "../resources/left*.jpg:9,6;../resources/2015*.jpg:7,5" if no args passed.
+ *
+ * args[1] = reductions separated by "," or will default to "2,4" if no args
+ * passed.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class CalibrationBenchmark {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = Logger.getLogger(CalibrationBenchmark.class.getName());
+    /* Load the OpenCV system library */
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    /**
+     * Suppress default constructor for noninstantiability.
+     */
+    private CalibrationBenchmark() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Files matching mask.
+     *
+     * @param inMask
+     *            Mask such as "../resources/left*.jpg".
+     * @return File names sorted.
+     * @throws IOException
+     *             Possible exception.
+     */
+    public static List<String> files(final String inMask) throws IOException {
+        final var file = new File(inMask);
+        final var dir = Paths.get(new File(file.getParent()).getCanonicalPath());
+        final var fileNames = new ArrayList<String>();
+        try (final var stream = Files.newDirectoryStream(dir, file.getName())) {
+            for (final var entry : stream) {
+                fileNames.add(String.format("%s/%s", dir, entry.getFileName()));
+            }
+        }
+        fileNames.sort(null);
+        return fileNames;
+    }
+
+    /**
+     * Search every file at one reduction.
+     *
+     * @param cameraCalibration
+     *            Calibration.
+     * @param fileNames
+     *            Files.
+     * @param patternSize
+     *            Chess board pattern size.
+     * @param reduction
+     *            1 for full resolution or 2, 4 or 8.
+     * @param fullCorners
+     *            Full resolution corners by file. Filled when reduction is 1.
+     */
+    public static void search(final CameraCalibration cameraCalibration, final List<String> fileNames,
+            final Size patternSize, final int reduction, final HashMap<String, Point[]> fullCorners) {
+        final var winSize = new Size(5, 5);
+        final var zoneSize = new Size(-1, -1);
+        var found = 0;
+        var maxError = 0.0;
+        var totalTime = 0L;
+        var used = reduction;
+        for (final var fileName : fileNames) {
+            final var corners = new MatOfPoint2f();
+            final var startTime = System.nanoTime();
+            final boolean passed;
+            // Both paths decode once at full resolution
+            final var gray = Imgcodecs.imread(fileName, Imgcodecs.IMREAD_GRAYSCALE);
+            if (reduction > 1) {
+                used = CameraCalibration.maxReduction(gray.cols(), patternSize, reduction);
+                passed = cameraCalibration.getCornersReduced(gray, reduction, patternSize, winSize, zoneSize,
+                        corners);
+            } else {
+                passed = cameraCalibration.getCorners(gray, patternSize, winSize, zoneSize, corners);
+            }
+            gray.release();
+            totalTime += System.nanoTime() - startTime;
+            if (passed) {
+                found++;
+                final var points = corners.toArray();
+                if (reduction == 1) {
+                    fullCorners.put(fileName, points);
+                } else if (fullCorners.containsKey(fileName)) {
+                    final var full = fullCorners.get(fileName);
+                    for (int i = 0; i < Math.min(full.length, points.length); i++) {
+                        maxError = Math.max(maxError, Math.hypot(points[i].x - full[i].x, points[i].y - full[i].y));
+                    }
+                }
+            }
+            corners.release();
+        }
+        logger.log(Level.INFO, String.format("Reduction %d (used %d): %2d of %2d boards, %7.1f ms, %6.1f ms per "
+                + "image, max corner difference %5.3f px", reduction, used, found, fileNames.size(),
+                totalTime / 1000000.0, totalTime / 1000000.0 / Math.max(1, fileNames.size()), maxError));
+    }
+
+    /**
+     * Compare corner search for each image set.
+     *
+     * args[0] = image sets as mask:cols,rows separated by ";" or will default
+     * to "../resources/left*.jpg:9,6;../resources/2015*.jpg:7,5" if no args
+     * passed.
+     *
+     * args[1] = reductions separated by "," or will default to "2,4" if no
+     * args passed.
+     *
+     * @param args
+     *            String array of arguments.
+     */
+    public static void main(final String... args) {
+        var sets = "../resources/left*.jpg:9,6;../resources/2015*.jpg:7,5";
+        var reductions = "2,4";
+        if (args.length > 0) {
+            sets = args[0];
+        }
+        if (args.length > 1) {
+            reductions = args[1];
+        }
+        // Custom logging properties via class loader
+        try {
+            LogManager.getLogManager().readConfiguration(
+                    CalibrationBenchmark.class.getClassLoader().getResourceAsStream("logging.properties"));
+        } catch (SecurityException | IOException e) {
+            e.printStackTrace();
+        }
+        logger.log(Level.INFO, String.format("OpenCV %s", Core.VERSION));
+        final var cameraCalibration = new CameraCalibration();
+        for (final var set : sets.split(";")) {
+            final var separator = set.lastIndexOf(':');
+            final var inMask = set.substring(0, separator);
+            final var parts = set.substring(separator + 1).split(",");
+            final var patternSize = new Size(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+            final List<String> fileNames;
+            try {
+                fileNames = files(inMask);
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, String.format("Unable to list %s: %s", inMask, e.getMessage()));
+                continue;
+            }
+            logger.log(Level.INFO, String.format("Input mask: %s, pattern: %s", inMask, patternSize));
+            final var fullCorners = new HashMap<String, Point[]>();
+            search(cameraCalibration, fileNames, patternSize, 1, fullCorners);
+            for (final var reduction : reductions.split(",")) {
+                search(cameraCalibration, fileNames, patternSize, Integer.parseInt(reduction), fullCorners);
+            }
+        }
+    }
+}
@@ -29,6 +29,7 @@ import org.opencv.core.MatOfDouble;
 import org.opencv.core.MatOfPoint2f;
 import org.opencv.core.MatOfPoint3f;
 import org.opencv.core.Point3;
+import org.opencv.core.Scalar;
 import org.opencv.core.Size;
 import org.opencv.core.TermCriteria;
 import org.opencv.imgcodecs.Imgcodecs;
@@ -52,6 +53,14 @@ import org.opencv.imgproc.Imgproc;
  * args[2] = cols,rows of chess board or will default to "7,5" if no args
  * passed.
  *
+ * args[3] = corner search reduction "1", "2", "4" or "8" or will default to
+ * "1" if no args passed. Above 1 each image is decoded once, boards are found
+ * on a downscaled copy with a fast check and only cornerSubPix runs at full
+ * resolution. Reduction is lowered when squares would be too small to find
+ * and images that fail the reduced search are searched at full resolution.
+ * This only pays off for large images. On the bundled 640x480 sets it was
+ * slower than "1", so run CalibrationBenchmark before using it.
+ *
  * @author sgoldsmith
  * @version 1.0.0
  * @since 1.0.0
@@ -65,6 +74,11 @@ final class CameraCalibration {
 	 * Set the criteria for the cornerSubPix algorithm.
 	 */
 	private static final TermCriteria CRITERIA = new TermCriteria(TermCriteria.EPS + TermCriteria.COUNT, 30, 0.1);
+	/**
+	 * Minimum square size in pixels for a reduced search, assuming the board
+	 * spans the image width.
+	 */
+	private static final int MIN_SQUARE_PIXELS = 32;
 	/* Load the OpenCV system library */
 	static {
 		System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
@@ -95,6 +109,71 @@ final class CameraCalibration {
 		return found;
 	}
 
+	/**
+	 * Largest reduction that keeps at least MIN_SQUARE_PIXELS per square,
+	 * assuming the board spans the image width.
+	 *
+	 * @param width
+	 *            Full resolution image width.
+	 * @param patternSize
+	 *            Chess board pattern size.
+	 * @param reduction
+	 *            Requested reduction 1, 2, 4 or 8.
+	 * @return Reduction to use.
+	 */
+	public static int maxReduction(final int width, final Size patternSize, final int reduction) {
+		var scale = reduction >= 8 ? 8 : reduction >= 4 ? 4 : reduction >= 2 ? 2 : 1;
+		while (scale > 1 && width / scale / (patternSize.width + 1) < MIN_SQUARE_PIXELS) {
+			scale /= 2;
+		}
+		return scale;
+	}
+
+	/**
+	 * Find chess board corners on a downscaled copy of the image with a fast
+	 * check and refine them at full resolution. The image is decoded once by
+	 * the caller. Reduction is lowered by maxReduction. If the reduced search
+	 * fails the board is searched at full resolution, so reduction never loses
+	 * boards the full search finds.
+	 *
+	 * @param gray
+	 *            Full resolution gray image.
+	 * @param reduction
+	 *            2, 4 or 8.
+	 * @param patternSize
+	 *            Chess board pattern size.
+	 * @param winSize
+	 *            Window size.
+	 * @param zoneSize
+	 *            Zone size.
+	 * @param corners
+	 *            This value is modified by JNI code.
+	 * @return True if a board was found.
+	 */
+	public boolean getCornersReduced(final Mat gray, final int reduction, final Size patternSize,
+			final Size winSize, final Size zoneSize, final MatOfPoint2f corners) {
+		final var scale = maxReduction(gray.cols(), patternSize, reduction);
+		var found = false;
+		if (scale > 1) {
+			// Area interpolation averages whole pixel blocks like a reduced decode
+			final var reduced = new Mat();
+			Imgproc.resize(gray, reduced, new Size(gray.cols() / scale, gray.rows() / scale), 0, 0,
+					Imgproc.INTER_AREA);
+			found = Calib3d.findChessboardCorners(reduced, patternSize, corners, Calib3d.CALIB_CB_ADAPTIVE_THRESH
+					+ Calib3d.CALIB_CB_NORMALIZE_IMAGE + Calib3d.CALIB_CB_FAST_CHECK);
+			reduced.release();
+		}
+		if (!found) {
+			// Reduced search failed or squares were too small, so search at full resolution
+			return getCorners(gray, patternSize, winSize, zoneSize, corners);
+		}
+		// Map reduced pixel centers to full resolution pixel centers
+		Core.multiply(corners, new Scalar(scale, scale), corners);
+		Core.add(corners, new Scalar((scale - 1) / 2.0, (scale - 1) / 2.0), corners);
+		Imgproc.cornerSubPix(gray, corners, winSize, zoneSize, CRITERIA);
+		return true;
+	}
+
 	/**
 	 * MatOfPoint3f corners.
 	 *
@@ -340,10 +419,34 @@ final class CameraCalibration {
 	 *            Output dir.
 	 * @param patternSize
 	 *            Checkerboard pattern cols,rows.
+	 * @return True if the camera was calibrated.
 	 * @throws IOException
 	 *             Possible exception.
 	 */
-	public void getPoints(final String inMask, final String outDir, final Size patternSize) throws IOException {
+	public boolean getPoints(final String inMask, final String outDir, final Size patternSize) throws IOException {
+		return getPoints(inMask, outDir, patternSize, 1);
+	}
+
+	/**
+	 * Process all images matching inMask and output debug images to outDir. All
+	 * Mats are deleted at the end, thus freeing native memory right away.
+	 *
+	 * @param inMask
+	 *            Mask used for input files.
+	 * @param outDir
+	 *            Output dir.
+	 * @param patternSize
+	 *            Checkerboard pattern cols,rows.
+	 * @param reduction
+	 *            1 to search at full resolution or 2, 4 or 8 to use
+	 *            getCornersReduced.
+	 * @return True if the camera was calibrated.
+	 * @throws IOException
+	 *             Possible exception.
+	 */
+	public boolean getPoints(final String inMask, final String outDir, final Size patternSize, final int reduction)
+			throws IOException {
+		var calibrated = false;
 		final var images = new ArrayList<Mat>();
 		final var objectPoints = new ArrayList<Mat>();
 		final var imagePoints = new ArrayList<Mat>();
@@ -357,13 +460,31 @@ final class CameraCalibration {
 		final var zoneSize = new Size(-1, -1);
 		try (final var stream = Files.newDirectoryStream(dir, file.getName())) {
 			int passed = 0;
+			var cornerTime = 0L;
+			var usedReduction = reduction;
 			for (final var entry : stream) {
 				final var fileName = String.format("%s/%s", dir, entry.getFileName());
+				final var corners = new MatOfPoint2f();
+				final var cornerStart = System.nanoTime();
 				// Read in image as gray scale
 				final var mat = Imgcodecs.imread(fileName, Imgcodecs.IMREAD_GRAYSCALE);
-				final var corners = new MatOfPoint2f();
+				boolean found;
+				if (mat.empty()) {
+					found = false;
+				} else if (reduction > 1) {
+					final var scale = maxReduction(mat.cols(), patternSize, reduction);
+					if (scale != usedReduction) {
+						usedReduction = scale;
+						logger.log(Level.INFO, String.format("Corner search reduction %d for %d pixel wide images",
+								scale, mat.cols()));
+					}
+					found = getCornersReduced(mat, reduction, patternSize, winSize, zoneSize, corners);
+				} else {
+					found = getCorners(mat, patternSize, winSize, zoneSize, corners);
+				}
+				cornerTime += System.nanoTime() - cornerStart;
 				// Process only images that pass getCorners
-				if (getCorners(mat, patternSize, winSize, zoneSize, corners)) {
+				if (found) {
 					logger.log(Level.FINE, String.format("Chessboard found in: %s", fileName));
 					final var vis = new Mat();
 					// Convert to color for drawing
@@ -387,9 +508,19 @@ final class CameraCalibration {
 					passed++;
 				} else {
 					logger.log(Level.WARNING, String.format("Chessboard not found in: %s", fileName));
+					mat.release();
+					corners.release();
 				}
 			}
 			logger.log(Level.INFO, String.format("Images passed cv2.findChessboardCorners: %d", passed));
+			logger.log(Level.INFO, String.format("Corner search reduction %d: %4.2f seconds", reduction,
+					cornerTime / 1000000000.0));
+			// calibrateCamera needs at least one board
+			if (passed == 0) {
+				logger.log(Level.SEVERE, "No chessboards found, camera not calibrated");
+				corners3f.release();
+				return false;
+			}
 			// Calibrate camera
 			final var params = calibrate(objectPoints, imagePoints, images);
 			logger.log(Level.INFO, "Saving calibration parameters to file");
@@ -409,9 +540,11 @@ final class CameraCalibration {
 			for (final var image : images) {
 				image.release();
 			}
+			calibrated = true;
 		} catch (IOException e) {
 			logger.log(Level.SEVERE, String.format("IO error: %s", e.getMessage()));
 		}
+		return calibrated;
 	}
 
 	/**
@@ -427,12 +560,13 @@ final class CameraCalibration {
 		String inMask = null;
 		String outDir = null;
 		Size patternSize = null;
+		var reduction = 1;
 		// Check how many arguments were passed in
-		if (args.length == 3) {
+		if (args.length >= 3) {
 			inMask = args[0];
 			outDir = args[1];
 			// Split into cols and rows "cols,rows"
-			final var parts = args[3].split(",");
+			final var parts = args[2].split(",");
 			patternSize = new Size(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
 			// Go with defaults
 		} else {
@@ -440,6 +574,9 @@ final class CameraCalibration {
 			outDir = "../output/";
 			patternSize = new Size(7, 5);
 		}
+		if (args.length > 3) {
+			reduction = Integer.parseInt(args[3]);
+		}
 		// Custom logging properties via class loader
 		try {
 			LogManager.getLogManager().readConfiguration(
@@ -453,7 +590,9 @@ final class CameraCalibration {
 		final var cameraCalibration = new CameraCalibration();
 		logger.log(Level.INFO, "Calibrate camera from files");
 		final var startTime = System.currentTimeMillis();
-		cameraCalibration.getPoints(inMask, outDir, patternSize);
+		if (!cameraCalibration.getPoints(inMask, outDir, patternSize, reduction)) {
+			return;
+		}
 		logger.log(Level.INFO, "Restoring calibration parameters from file");
 		final var calibrateArr = cameraCalibration.loadCalibrate(String.format("%scamera-matrix.bin", outDir),
 				String.format("%sdist-coefs.bin", outDir));
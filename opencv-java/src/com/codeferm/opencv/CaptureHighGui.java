@@ -45,18 +45,23 @@ final class CaptureHighGui {
 	}
 
 	/**
-	 * Convert from Mat to BufferedImage.
+	 * Convert from Mat to BufferedImage. The image is reused if it is the right
+	 * size, so pass the last image back in to avoid allocating every frame. Mat
+	 * data is read directly into the image raster.
 	 *
-	 * @param mat Mat array.
+	 * @param mat   8 bit BGR Mat array.
+	 * @param image Image to reuse or null to allocate one.
+	 * @return Image containing mat.
 	 */
-	public static BufferedImage convert(final Mat mat) {
-		final var sourcePixels = new byte[mat.width() * mat.height() * mat.channels()];
-		mat.get(0, 0, sourcePixels);
-		// Create new image and get reference to backing data
-		var bufferedImage = new BufferedImage(mat.width(), mat.height(), BufferedImage.TYPE_3BYTE_BGR);
+	public static BufferedImage convert(final Mat mat, final BufferedImage image) {
+		var bufferedImage = image;
+		if (bufferedImage == null || bufferedImage.getWidth() != mat.width()
+				|| bufferedImage.getHeight() != mat.height()) {
+			bufferedImage = new BufferedImage(mat.width(), mat.height(), BufferedImage.TYPE_3BYTE_BGR);
+		}
+		// Get reference to backing data and copy once
 		final var targetPixels = ((DataBufferByte) bufferedImage.getRaster().getDataBuffer()).getData();
-		// Fast copy
-		System.arraycopy(sourcePixels, 0, targetPixels, 0, sourcePixels.length);
+		mat.get(0, 0, targetPixels);
 		return bufferedImage;
 	}
 
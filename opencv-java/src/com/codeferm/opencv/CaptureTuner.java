@@ -0,0 +1,380 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfInt;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.Videoio;
+
+/**
+ * Benchmark capture throughput and read latency of a file, URL or device
+ * across VideoCapture backends and capture properties. This is the Java
+ * version of camerafpscv.py with a sweep added. The fastest configuration that
+ * still returns 8 bit BGR frames is saved per source, so open() can reuse it
+ * later.
+ *
+ * args[0] = camera index, url or will default to "../resources/traffic.mp4"
+ * if no args passed.
+ *
+ * args[1] = frames to capture per trial or will default to "200" if no args
+ * passed.
+ *
+ * args[2] = tuning file or will default to
+ * "../output/capture-tuning.properties" if no args passed.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class CaptureTuner {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = Logger.getLogger(CaptureTuner.class.getName());
+    /* Load the OpenCV system library */
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    /**
+     * Backends to try. Backends that are not built in or cannot open the
+     * source are skipped.
+     */
+    private static final int[] BACKENDS = { Videoio.CAP_ANY, Videoio.CAP_FFMPEG, Videoio.CAP_GSTREAMER,
+            Videoio.CAP_V4L2, Videoio.CAP_OPENCV_MJPEG };
+    /**
+     * Backend names in the same order as BACKENDS.
+     */
+    private static final String[] BACKEND_NAMES = { "ANY", "FFMPEG", "GSTREAMER", "V4L2", "OPENCV_MJPEG" };
+    /**
+     * Buffer sizes to try. 0 leaves the backend default.
+     */
+    private static final int[] BUFFER_SIZES = { 0, 1, 4 };
+    /**
+     * Convert RGB values to try.
+     */
+    private static final int[] CONVERT_RGB = { 1, 0 };
+
+    /**
+     * Result of one capture trial.
+     */
+    static final class Trial {
+        /**
+         * Backend API preference.
+         */
+        private final int backend;
+        /**
+         * Decoder threads, 0 is backend default.
+         */
+        private final int threads;
+        /**
+         * Buffer size, 0 is backend default.
+         */
+        private final int bufferSize;
+        /**
+         * Convert to BGR, 1 = true, 0 = false.
+         */
+        private final int convertRgb;
+        /**
+         * Frames read.
+         */
+        private int frames;
+        /**
+         * Frames per second.
+         */
+        private double fps;
+        /**
+         * Mean read latency in milliseconds.
+         */
+        private double meanLatency;
+        /**
+         * Max read latency in milliseconds.
+         */
+        private double maxLatency;
+        /**
+         * Frames were 8 bit BGR.
+         */
+        private boolean bgr;
+
+        /**
+         * Trial configuration.
+         *
+         * @param backend
+         *            Backend API preference.
+         * @param threads
+         *            Decoder threads.
+         * @param bufferSize
+         *            Buffer size.
+         * @param convertRgb
+         *            Convert to BGR.
+         */
+        Trial(final int backend, final int threads, final int bufferSize, final int convertRgb) {
+            this.backend = backend;
+            this.threads = threads;
+            this.bufferSize = bufferSize;
+            this.convertRgb = convertRgb;
+        }
+
+        /**
+         * @see java.lang.Object#toString()
+         */
+        @Override
+        public String toString() {
+            return String.format("%s threads=%d buffersize=%d convertrgb=%d: %d frames, %4.1f FPS, "
+                    + "latency %4.2f ms mean, %4.2f ms max%s", backendName(backend), threads, bufferSize, convertRgb,
+                    frames, fps, meanLatency, maxLatency, bgr ? "" : " (not BGR)");
+        }
+    }
+
+    /**
+     * Suppress default constructor for noninstantiability.
+     */
+    private CaptureTuner() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Backend name.
+     *
+     * @param backend
+     *            Backend API preference.
+     * @return Name.
+     */
+    public static String backendName(final int backend) {
+        for (int i = 0; i < BACKENDS.length; i++) {
+            if (BACKENDS[i] == backend) {
+                return BACKEND_NAMES[i];
+            }
+        }
+        return String.format("%d", backend);
+    }
+
+    /**
+     * Open source with backend and properties.
+     *
+     * @param url
+     *            Camera index or URL.
+     * @param backend
+     *            Backend API preference.
+     * @param threads
+     *            Decoder threads, 0 for backend default.
+     * @param bufferSize
+     *            Buffer size, 0 for backend default.
+     * @param convertRgb
+     *            Convert to BGR, 1 = true, 0 = false.
+     * @return VideoCapture that may not be opened. Caller must release.
+     */
+    public static VideoCapture open(final String url, final int backend, final int threads, final int bufferSize,
+            final int convertRgb) {
+        final var videoCapture = new VideoCapture();
+        // Decoder threads have to be set at open
+        final var params = new MatOfInt();
+        if (threads > 0) {
+            params.fromArray(Videoio.CAP_PROP_N_THREADS, threads);
+        }
+        // See if URL is an integer: -? = negative sign, could have none or one,
+        // \\d+ = one or more digits
+        if (url.matches("-?\\d+")) {
+            videoCapture.open(Integer.parseInt(url), backend, params);
+        } else {
+            videoCapture.open(url, backend, params);
+        }
+        params.release();
+        if (videoCapture.isOpened()) {
+            if (bufferSize > 0) {
+                videoCapture.set(Videoio.CAP_PROP_BUFFERSIZE, bufferSize);
+            }
+            videoCapture.set(Videoio.CAP_PROP_CONVERT_RGB, convertRgb);
+        }
+        return videoCapture;
+    }
+
+    /**
+     * Load tuning file.
+     *
+     * @param tuningFile
+     *            Tuning file written by main.
+     * @return Saved configurations or empty if file does not exist.
+     */
+    private static Properties loadTuning(final String tuningFile) {
+        final var properties = new Properties();
+        if (Files.exists(Paths.get(tuningFile))) {
+            try (final var in = new FileInputStream(tuningFile)) {
+                properties.load(in);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, String.format("Unable to read %s: %s", tuningFile, e.getMessage()));
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Open source with the saved configuration or the default backend if the
+     * source was never tuned.
+     *
+     * @param url
+     *            Camera index or URL.
+     * @param tuningFile
+     *            Tuning file written by main.
+     * @return VideoCapture. Caller must release.
+     */
+    public static VideoCapture open(final String url, final String tuningFile) {
+        final var properties = loadTuning(tuningFile);
+        final var backend = properties.getProperty(String.format("%s.backend", url));
+        if (backend == null) {
+            return open(url, Videoio.CAP_ANY, 0, 0, 1);
+        }
+        return open(url, Integer.parseInt(backend),
+                Integer.parseInt(properties.getProperty(String.format("%s.threads", url), "0")),
+                Integer.parseInt(properties.getProperty(String.format("%s.buffersize", url), "0")),
+                Integer.parseInt(properties.getProperty(String.format("%s.convertrgb", url), "1")));
+    }
+
+    /**
+     * Run one trial.
+     *
+     * @param url
+     *            Camera index or URL.
+     * @param trial
+     *            Trial configuration. Results are set here.
+     * @param maxFrames
+     *            Frames to capture.
+     * @return True if source opened.
+     */
+    public static boolean run(final String url, final Trial trial, final int maxFrames) {
+        final var videoCapture = open(url, trial.backend, trial.threads, trial.bufferSize, trial.convertRgb);
+        // Deal with VideoCapture always returning True otherwise it will hang
+        // on VideoCapture.read()
+        if (!videoCapture.isOpened() || videoCapture.get(Videoio.CAP_PROP_FRAME_WIDTH) <= 0) {
+            videoCapture.release();
+            return false;
+        }
+        final var mat = new Mat();
+        var totalLatency = 0L;
+        var maxLatency = 0L;
+        final var startTime = System.nanoTime();
+        while (trial.frames < maxFrames) {
+            final var readTime = System.nanoTime();
+            if (!videoCapture.read(mat)) {
+                break;
+            }
+            final var latency = System.nanoTime() - readTime;
+            totalLatency += latency;
+            maxLatency = Math.max(maxLatency, latency);
+            trial.frames++;
+        }
+        final var elapsed = System.nanoTime() - startTime;
+        if (trial.frames > 0) {
+            trial.fps = trial.frames / (elapsed / 1000000000.0);
+            trial.meanLatency = totalLatency / 1000000.0 / trial.frames;
+            trial.maxLatency = maxLatency / 1000000.0;
+            trial.bgr = mat.type() == CvType.CV_8UC3;
+        }
+        mat.release();
+        videoCapture.release();
+        return trial.frames > 0;
+    }
+
+    /**
+     * Sweep backends and capture properties, log results and save the fastest
+     * BGR configuration.
+     *
+     * args[0] = camera index, url or will default to "../resources/traffic.mp4"
+     * if no args passed.
+     *
+     * args[1] = frames to capture per trial or will default to "200" if no
+     * args passed.
+     *
+     * args[2] = tuning file or will default to
+     * "../output/capture-tuning.properties" if no args passed.
+     *
+     * @param args
+     *            String array of arguments.
+     */
+    public static void main(final String... args) {
+        var url = "../resources/traffic.mp4";
+        var maxFrames = 200;
+        var tuningFile = "../output/capture-tuning.properties";
+        if (args.length > 0) {
+            url = args[0];
+        }
+        if (args.length > 1) {
+            maxFrames = Integer.parseInt(args[1]);
+        }
+        if (args.length > 2) {
+            tuningFile = args[2];
+        }
+        // Custom logging properties via class loader
+        try {
+            LogManager.getLogManager()
+                    .readConfiguration(CaptureTuner.class.getClassLoader().getResourceAsStream("logging.properties"));
+        } catch (SecurityException | IOException e) {
+            e.printStackTrace();
+        }
+        logger.log(Level.INFO, String.format("OpenCV %s", Core.VERSION));
+        logger.log(Level.INFO, String.format("URL: %s, frames per trial: %d", url, maxFrames));
+        final var cpus = Runtime.getRuntime().availableProcessors();
+        final int[] threadCounts = { 0, 1, 2, cpus };
+        final var trials = new ArrayList<Trial>();
+        Trial best = null;
+        for (final var backend : BACKENDS) {
+            // Make sure backend can open source before sweeping
+            final var probe = new Trial(backend, 0, 0, 1);
+            if (!run(url, probe, 1)) {
+                logger.log(Level.INFO, String.format("%s not available for source", backendName(backend)));
+                continue;
+            }
+            for (final var threads : threadCounts) {
+                for (final var bufferSize : BUFFER_SIZES) {
+                    for (final var convertRgb : CONVERT_RGB) {
+                        final var trial = new Trial(backend, threads, bufferSize, convertRgb);
+                        if (run(url, trial, maxFrames)) {
+                            logger.log(Level.INFO, trial.toString());
+                            trials.add(trial);
+                            // Only BGR frames can be used by the detectors
+                            if (trial.bgr && (best == null || trial.fps > best.fps)) {
+                                best = trial;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        if (best == null) {
+            logger.log(Level.SEVERE, "Unable to read frames with any backend");
+            return;
+        }
+        logger.log(Level.INFO, String.format("%d trials, recommended: %s", trials.size(), best));
+        // Merge with configurations for other sources
+        final var properties = loadTuning(tuningFile);
+        properties.setProperty(String.format("%s.backend", url), String.format("%d", best.backend));
+        properties.setProperty(String.format("%s.threads", url), String.format("%d", best.threads));
+        properties.setProperty(String.format("%s.buffersize", url), String.format("%d", best.bufferSize));
+        properties.setProperty(String.format("%s.convertrgb", url), String.format("%d", best.convertRgb));
+        properties.setProperty(String.format("%s.fps", url), String.format("%.1f", best.fps));
+        try (final var out = new FileOutputStream(tuningFile)) {
+            properties.store(out, "CaptureTuner results");
+            logger.log(Level.INFO, String.format("Saved to %s", tuningFile));
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, String.format("Unable to write %s: %s", tuningFile, e.getMessage()));
+        }
+    }
+}
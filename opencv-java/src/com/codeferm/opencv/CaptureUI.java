@@ -6,27 +6,37 @@
  */
 package com.codeferm.opencv;
 
-import java.applet.Applet;
-import java.awt.Graphics;
+import java.awt.Canvas;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferByte;
 import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
 
 import org.opencv.core.Core;
+import org.opencv.core.CvType;
 import org.opencv.core.Mat;
 import org.opencv.core.Size;
 import org.opencv.videoio.VideoCapture;
 import org.opencv.videoio.Videoio;
 
 /**
- * A simple video capture applet. The Java bindings did not have an imshow
- * equivalent (highgui wrapper) when this was created. Also Applet has been
- * deprecated, but I'm keeping this around any ways.
+ * A simple video capture canvas. The Java bindings did not have an imshow
+ * equivalent (highgui wrapper) when this was created. This used to be an
+ * Applet, but Applet has been removed from the JDK.
+ *
+ * Three BufferedImages are reused. The capture thread reads each Mat straight
+ * into a free image's raster and publishes it as the latest frame. The render
+ * thread draws the latest frame with a BufferStrategy (active rendering). If
+ * rendering falls behind the stale frame is dropped instead of queueing
+ * repaints.
  *
  * args[0] = camera index, url or will default to "-1" if no args passed.
  *
@@ -34,7 +44,7 @@ import org.opencv.videoio.Videoio;
  * @version 1.0.0
  * @since 1.0.0
  */
-final class CaptureUI extends Applet implements Runnable {
+final class CaptureUI extends Canvas implements Runnable {
     /**
      * Serializable class version number.
      */
@@ -43,6 +53,10 @@ final class CaptureUI extends Applet implements Runnable {
      * Logger.
      */
     private static final Logger logger = Logger.getLogger(CaptureUI.class.getName());
+    /**
+     * One image being filled, one waiting to render and one being rendered.
+     */
+    private static final int IMAGES = 3;
     /**
      * Mat for image capture.
      */
@@ -56,13 +70,33 @@ final class CaptureUI extends Applet implements Runnable {
      */
     private final transient Size frameSize;
     /**
-     * Applet drawing canvas.
+     * Images ready to be filled.
      */
-    private transient BufferedImage bufferedImage;
+    private transient BlockingQueue<BufferedImage> freeImages;
+    /**
+     * Latest filled image waiting to render.
+     */
+    private final transient AtomicReference<BufferedImage> latestImage = new AtomicReference<>();
     /**
      * Processing thread.
      */
     private transient Thread captureThread;
+    /**
+     * Rendering thread.
+     */
+    private transient Thread renderThread;
+    /**
+     * Capture is running.
+     */
+    private transient volatile boolean running;
+    /**
+     * Frames captured.
+     */
+    private transient long frames;
+    /**
+     * Frames dropped because rendering fell behind.
+     */
+    private transient long droppedFrames;
 
     /* Load the OpenCV system library */
     static {
@@ -98,6 +132,8 @@ final class CaptureUI extends Applet implements Runnable {
         logger.log(Level.INFO, String.format("OpenCV %s", Core.VERSION));
         logger.log(Level.INFO, "Press [Esc] to exit");
         logger.log(Level.INFO, String.format("URL: %s", url));
+        // Active rendering, so ignore paint events from AWT
+        setIgnoreRepaint(true);
         init();
     }
 
@@ -129,38 +165,52 @@ final class CaptureUI extends Applet implements Runnable {
     }
 
     /**
-     * Displays diagnostic information.
+     * Displays diagnostic information and allocates reusable images.
      */
-    @Override
     public void init() {
         logger.log(Level.INFO, String.format("Resolution: %s", frameSize));
         captureMat = new Mat();
+        freeImages = new ArrayBlockingQueue<>(IMAGES);
+        if (frameSize.width > 0 && frameSize.height > 0) {
+            for (int i = 0; i < IMAGES; i++) {
+                freeImages.add(new BufferedImage((int) frameSize.width, (int) frameSize.height,
+                        BufferedImage.TYPE_3BYTE_BGR));
+            }
+        }
     }
 
     /**
-     * Create frame acquisition thread and start.
+     * Create buffer strategy and start capture and render threads. Canvas must
+     * be displayable.
      */
-    @Override
     public void start() {
         if (captureThread == null) {
-            captureThread = new Thread(this);
+            createBufferStrategy(2);
+            running = true;
+            renderThread = new Thread(this::render, "render");
+            renderThread.start();
+            captureThread = new Thread(this, "capture");
             captureThread.start();
         }
     }
 
     /**
-     * Stop frame acquisition thread.
+     * Stop frame acquisition and render threads.
      */
-    @Override
     public void stop() {
+        running = false;
         if (captureThread != null) {
             try {
                 captureThread.join();
+                LockSupport.unpark(renderThread);
+                renderThread.join();
             } catch (InterruptedException e) {
                 e.printStackTrace();
             }
             captureThread = null;
+            renderThread = null;
         }
+        logger.log(Level.INFO, String.format("%d frames, %d dropped", frames, droppedFrames));
         // Release native memory
         videoCapture.release();
         if (captureMat != null) {
@@ -169,48 +219,79 @@ final class CaptureUI extends Applet implements Runnable {
     }
 
     /**
-     * Read frame, convert from Mat to byte array, repaint canvas with new
-     * frame.
+     * Read frame into a free image and publish it as the latest frame. An
+     * older frame that was never rendered is dropped.
      */
     @Override
     public void run() {
-        while (true) {
-            if (videoCapture.read(captureMat)) {
-                /*
-                 * Add image processing code here.
-                 */
-                convert(captureMat);
-                repaint();
-            } else {
-                break;
+        while (running && videoCapture.read(captureMat)) {
+            /*
+             * Add image processing code here.
+             */
+            // There is always a free image since render and latest only hold
+            // one each
+            final var image = freeImages.poll();
+            if (image == null) {
+                continue;
+            }
+            if (!convert(captureMat, image)) {
+                // Keep the pool full or rendering stops for good
+                freeImages.offer(image);
+                continue;
+            }
+            frames++;
+            final var stale = latestImage.getAndSet(image);
+            if (stale != null) {
+                freeImages.offer(stale);
+                droppedFrames++;
             }
+            LockSupport.unpark(renderThread);
         }
+        running = false;
+        LockSupport.unpark(renderThread);
     }
 
     /**
-     * Convert from Mat to BufferedImage.
-     *
-     * @param mat
-     *            Mat array.
+     * Render latest frame until capture stops.
      */
-    public void convert(final Mat mat) {
-        final var sourcePixels = new byte[mat.width() * mat.height() * mat.channels()];
-        mat.get(0, 0, sourcePixels);
-        // Create new image and get reference to backing data
-        bufferedImage = new BufferedImage(mat.width(), mat.height(), BufferedImage.TYPE_3BYTE_BGR);
-        final var targetPixels = ((DataBufferByte) bufferedImage.getRaster().getDataBuffer()).getData();
-        // Fast copy
-        System.arraycopy(sourcePixels, 0, targetPixels, 0, sourcePixels.length);
+    public void render() {
+        final var bufferStrategy = getBufferStrategy();
+        while (running || latestImage.get() != null) {
+            final var image = latestImage.getAndSet(null);
+            if (image == null) {
+                LockSupport.park(this);
+                continue;
+            }
+            // Contents can be lost or restored when the window changes
+            do {
+                do {
+                    final var graphics = bufferStrategy.getDrawGraphics();
+                    graphics.drawImage(image, 0, 0, null);
+                    graphics.dispose();
+                } while (bufferStrategy.contentsRestored());
+                bufferStrategy.show();
+            } while (bufferStrategy.contentsLost());
+            freeImages.offer(image);
+        }
     }
 
     /**
-     * Update image.
+     * Copy Mat directly into BufferedImage raster with one JNI call.
      *
-     * @see java.awt.Container#update(java.awt.Graphics)
+     * @param mat
+     *            8 bit BGR Mat.
+     * @param image
+     *            TYPE_3BYTE_BGR image the same size as mat. This value is
+     *            modified by JNI code.
+     * @return True if copied.
      */
-    @Override
-    public synchronized void update(final Graphics graphics) {
-        graphics.drawImage(bufferedImage, 0, 0, this);
+    public static boolean convert(final Mat mat, final BufferedImage image) {
+        if (mat.type() != CvType.CV_8UC3 || mat.width() != image.getWidth() || mat.height() != image.getHeight()) {
+            return false;
+        }
+        final var targetPixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        mat.get(0, 0, targetPixels);
+        return true;
     }
 
     /**
@@ -244,6 +325,7 @@ final class CaptureUI extends Applet implements Runnable {
                     System.exit(0);
                 }
             });
+            frame.setIgnoreRepaint(true);
             frame.add(window);
             // Set frame size based on image size
             frame.setSize((int) window.getFrameSize().width, (int) window.getFrameSize().height);
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Submit a job to DetectDaemon and print progress and results until it is
+ * done. Does not load OpenCV, so it starts quickly. Pass "STATUS" or
+ * "SHUTDOWN" as the only argument to send that command instead. Local files
+ * are sent as absolute paths, since the daemon has its own working directory.
+ *
+ * args[0] = detector, "canny" or "calibrate" or will default to "motion" if no
+ * args passed.
+ *
+ * args[1] = source (input file mask for calibrate) or will default to
+ * "../resources/traffic.mp4" if no args passed.
+ *
+ * args[2] = output file or "-" for results on stdout (video file for canny,
+ * output dir for calibrate) or will default to "-" if no args passed.
+ *
+ * args[3] = socket file or will default to "/tmp/opencv-detect.sock" if no
+ * args passed.
+ *
+ * args[4] = cols,rows of chess board for calibrate or will default to "7,5" if
+ * no args passed.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class DaemonClient {
+
+    /**
+     * Suppress default constructor for noninstantiability.
+     */
+    private DaemonClient() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Absolute form of a local path.
+     *
+     * @param fileName
+     *            File or dir.
+     * @return Absolute path.
+     */
+    private static String absolute(final String fileName) {
+        return Paths.get(fileName).toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * Absolute form of a local source file. Cameras, URLs and pipelines are
+     * sent as is.
+     *
+     * @param url
+     *            Source.
+     * @return Source for daemon.
+     */
+    private static String source(final String url) {
+        if (!url.contains("://") && Files.exists(Paths.get(url))) {
+            return absolute(url);
+        }
+        return url;
+    }
+
+    /**
+     * Send command and print replies.
+     *
+     * args[0] = detector, "canny" or "calibrate" or will default to "motion"
+     * if no args passed.
+     *
+     * args[1] = source (input file mask for calibrate) or will default to
+     * "../resources/traffic.mp4" if no args passed.
+     *
+     * args[2] = output file or "-" for results on stdout (video file for
+     * canny, output dir for calibrate) or will default to "-" if no args
+     * passed.
+     *
+     * args[3] = socket file or will default to "/tmp/opencv-detect.sock" if no
+     * args passed.
+     *
+     * args[4] = cols,rows of chess board for calibrate or will default to
+     * "7,5" if no args passed.
+     *
+     * @param args
+     *            String array of arguments.
+     * @throws IOException
+     *             Possible exception.
+     */
+    public static void main(final String... args) throws IOException {
+        var name = "motion";
+        var url = "../resources/traffic.mp4";
+        var outputFile = "-";
+        var socketFile = "/tmp/opencv-detect.sock";
+        var pattern = "7,5";
+        if (args.length > 0) {
+            name = args[0];
+            // Same defaults as CameraCalibration
+            if ("calibrate".equals(name)) {
+                url = "../resources/2015*.jpg";
+                outputFile = "../output/";
+            } else if ("canny".equals(name)) {
+                outputFile = "../output/canny-daemon-java.avi";
+            }
+        }
+        if (args.length > 1) {
+            url = args[1];
+        }
+        if (args.length > 2) {
+            outputFile = args[2];
+        }
+        if (args.length > 3) {
+            socketFile = args[3];
+        }
+        if (args.length > 4) {
+            pattern = args[4];
+        }
+        final String command;
+        if ("STATUS".equals(name) || "SHUTDOWN".equals(name)) {
+            command = name;
+        } else if ("canny".equals(name)) {
+            command = String.format("CANNY %s %s", absolute(outputFile), source(url));
+        } else if ("calibrate".equals(name)) {
+            command = String.format("CALIBRATE %s %s %s", absolute(outputFile), pattern, absolute(url));
+        } else {
+            command = String.format("DETECT %s %s %s", name, "-".equals(outputFile) ? outputFile
+                    : absolute(outputFile), source(url));
+        }
+        try (final var channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socketFile));
+            final var out = new PrintWriter(
+                    new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8));
+            out.println(command);
+            out.flush();
+            if ("SHUTDOWN".equals(command)) {
+                return;
+            }
+            final var in = new BufferedReader(
+                    new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            String line;
+            while ((line = in.readLine()) != null) {
+                System.out.println(line);
+                if (line.startsWith("DONE") || line.startsWith("ERROR") || line.startsWith("STATUS")) {
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,545 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.VideoWriter;
+import org.opencv.videoio.Videoio;
+
+/**
+ * Long lived detection daemon. The native library, logging and JIT are warmed
+ * up once (every detector is run over synthetic frames at startup), so short
+ * clips do not pay JVM and OpenCV startup for every run. Jobs are accepted
+ * over a Unix domain socket, one line per job. Each connection runs its jobs
+ * in order and at most max jobs run at once across connections. Use
+ * DaemonClient or any tool that can write to a Unix socket. SHUTDOWN stops
+ * accepting jobs and the daemon exits once running jobs finish.
+ *
+ * Client to daemon: "DETECT detector output source" where output is a JSON
+ * lines file or "-" to send results back, "CANNY output source" where output
+ * is a video file, "CALIBRATE outDir cols,rows mask" for CameraCalibration,
+ * "STATUS" and "SHUTDOWN". Output files and dirs must be absolute, since the
+ * daemon does not share the client's working directory. Daemon to client:
+ * "ACCEPTED job", "PROGRESS job frames total fps", "RESULT job json", "DONE job
+ * frames detected seconds" (CALIBRATE reports 0 frames), "STATUS active
+ * completed" and "ERROR message".
+ *
+ * args[0] = socket file or will default to "/tmp/opencv-detect.sock" if no
+ * args passed.
+ *
+ * args[1] = max concurrent jobs or will default to the number of processors if
+ * no args passed.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class DetectDaemon {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = Logger.getLogger(DetectDaemon.class.getName());
+    /* Load the OpenCV system library */
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    /**
+     * One job run on a job slot.
+     */
+    @FunctionalInterface
+    interface Job {
+        /**
+         * Run job and report to client.
+         *
+         * @param id
+         *            Job id.
+         * @throws IOException
+         *             Possible exception.
+         */
+        void run(int id) throws IOException;
+    }
+
+    /**
+     * Warm up frames per detector.
+     */
+    private static final int WARM_UP_FRAMES = 60;
+    /**
+     * Socket file.
+     */
+    private final Path socketFile;
+    /**
+     * Server channel.
+     */
+    private final ServerSocketChannel server;
+    /**
+     * Max concurrent jobs.
+     */
+    private final int maxJobs;
+    /**
+     * Limits concurrent jobs.
+     */
+    private final Semaphore jobSlots;
+    /**
+     * SHUTDOWN received, so no new jobs start.
+     */
+    private volatile boolean shuttingDown;
+    /**
+     * Job ids.
+     */
+    private final AtomicInteger jobIds = new AtomicInteger();
+    /**
+     * Jobs running.
+     */
+    private final AtomicInteger active = new AtomicInteger();
+    /**
+     * Jobs completed.
+     */
+    private final AtomicInteger completed = new AtomicInteger();
+
+    /**
+     * Bind socket. A stale socket file is replaced.
+     *
+     * @param socketFile
+     *            Socket file.
+     * @param maxJobs
+     *            Max concurrent jobs.
+     * @throws IOException
+     *             Possible exception.
+     */
+    DetectDaemon(final String socketFile, final int maxJobs) throws IOException {
+        this.socketFile = Paths.get(socketFile);
+        this.maxJobs = maxJobs;
+        this.jobSlots = new Semaphore(maxJobs);
+        Files.deleteIfExists(this.socketFile);
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(this.socketFile));
+    }
+
+    /**
+     * Run every detector over synthetic frames with a moving rectangle. This
+     * loads native code paths and OpenCV thread pools and gets the Java side
+     * compiled before the first job. Jobs still create their own detectors,
+     * since detectors hold per stream state. A detector that fails is logged
+     * and skipped, so it cannot keep the daemon from starting.
+     *
+     * @param frameSize
+     *            Frame size.
+     */
+    public static void warmUp(final Size frameSize) {
+        final var background = SyntheticVideo.background(new Random(1), (int) frameSize.width,
+                (int) frameSize.height);
+        final var mat = new Mat();
+        final var color = new Scalar(255, 255, 255);
+        for (final var name : Detector.NAMES) {
+            final var startTime = System.currentTimeMillis();
+            Detector detector = null;
+            try {
+                detector = Detector.create(name, frameSize);
+                for (int i = 0; i < WARM_UP_FRAMES; i++) {
+                    background.copyTo(mat);
+                    final var x = i * frameSize.width / (2 * WARM_UP_FRAMES);
+                    Imgproc.rectangle(mat, new Point(x, frameSize.height / 4),
+                            new Point(x + frameSize.width / 8, frameSize.height / 2), color, Core.FILLED);
+                    detector.detect(mat);
+                }
+                logger.log(Level.INFO, String.format("Warmed up %s in %d ms", name,
+                        System.currentTimeMillis() - startTime));
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, String.format("Warm up of %s failed: %s", name, e.getMessage()));
+            } finally {
+                if (detector != null) {
+                    detector.release();
+                }
+            }
+        }
+        // Free native memory
+        background.release();
+        mat.release();
+    }
+
+    /**
+     * Run one job and report progress once a second of source video.
+     *
+     * @param id
+     *            Job id.
+     * @param name
+     *            Detector name.
+     * @param outputFile
+     *            JSON lines file or "-" to send results to client.
+     * @param url
+     *            Source.
+     * @param client
+     *            Client connection.
+     * @throws IOException
+     *             Possible exception.
+     */
+    private void detect(final int id, final String name, final String outputFile, final String url,
+            final PrintWriter client) throws IOException {
+        final var videoCapture = new VideoCapture();
+        if (!videoCapture.open(url)) {
+            client.printf("ERROR job %d unable to open %s%n", id, url);
+            client.flush();
+            return;
+        }
+        final var frameSize = new Size((int) videoCapture.get(Videoio.CAP_PROP_FRAME_WIDTH),
+                (int) videoCapture.get(Videoio.CAP_PROP_FRAME_HEIGHT));
+        final var total = (long) videoCapture.get(Videoio.CAP_PROP_FRAME_COUNT);
+        final var progressFrames = Math.max(1, (int) videoCapture.get(Videoio.CAP_PROP_FPS));
+        final var toClient = "-".equals(outputFile);
+        final var detector = Detector.create(name, frameSize);
+        final var mat = new Mat();
+        var frames = 0;
+        var framesDetected = 0;
+        final var startTime = System.currentTimeMillis();
+        try (final var out = toClient ? null : new BufferedWriter(new FileWriter(outputFile))) {
+            while (videoCapture.read(mat)) {
+                final var detection = detector.detect(mat);
+                if (detection.isDetected()) {
+                    framesDetected++;
+                }
+                if (toClient) {
+                    if (detection.isDetected()) {
+                        client.printf("RESULT %d %s%n", id, detection.toJson(frames));
+                    }
+                } else {
+                    out.write(detection.toJson(frames));
+                    out.newLine();
+                }
+                frames++;
+                if (frames % progressFrames == 0) {
+                    client.printf(Locale.ROOT, "PROGRESS %d %d %d %.1f%n", id, frames, total,
+                            frames * 1000.0 / Math.max(1, System.currentTimeMillis() - startTime));
+                    client.flush();
+                }
+            }
+        } finally {
+            // Free native memory
+            videoCapture.release();
+            detector.release();
+            mat.release();
+        }
+        final var seconds = (System.currentTimeMillis() - startTime) / 1000.0;
+        client.printf(Locale.ROOT, "DONE %d %d %d %.2f%n", id, frames, framesDetected, seconds);
+        client.flush();
+        logger.log(Level.INFO, String.format("Job %d %s %s: %d frames, %4.1f FPS", id, name, url, frames,
+                frames / Math.max(0.001, seconds)));
+    }
+
+    /**
+     * Run Canny edge detection on every frame and write the edges video. Same
+     * pipeline as Canny.
+     *
+     * @param id
+     *            Job id.
+     * @param outputFile
+     *            Video file.
+     * @param url
+     *            Source.
+     * @param client
+     *            Client connection.
+     */
+    private void canny(final int id, final String outputFile, final String url, final PrintWriter client) {
+        final var videoCapture = new VideoCapture();
+        if (!videoCapture.open(url)) {
+            client.printf("ERROR job %d unable to open %s%n", id, url);
+            client.flush();
+            return;
+        }
+        final var frameSize = new Size((int) videoCapture.get(Videoio.CAP_PROP_FRAME_WIDTH),
+                (int) videoCapture.get(Videoio.CAP_PROP_FRAME_HEIGHT));
+        final var total = (long) videoCapture.get(Videoio.CAP_PROP_FRAME_COUNT);
+        final var fps = videoCapture.get(Videoio.CAP_PROP_FPS);
+        final var progressFrames = Math.max(1, (int) fps);
+        final var videoWriter = new VideoWriter(outputFile, new FourCC("X264").toInt(), fps, frameSize, true);
+        final var mat = new Mat();
+        final var gray = new Mat();
+        final var blur = new Mat();
+        final var edges = new Mat();
+        final var dst = new Mat();
+        final var kSize = new Size(3, 3);
+        final var black = new Scalar(0, 0, 0);
+        var frames = 0;
+        final var startTime = System.currentTimeMillis();
+        try {
+            while (videoCapture.read(mat)) {
+                Imgproc.cvtColor(mat, gray, Imgproc.COLOR_BGR2GRAY);
+                Imgproc.GaussianBlur(gray, blur, kSize, 0);
+                Imgproc.Canny(blur, edges, 100, 200, 3, false);
+                // Clear last frame's edges instead of allocating dst each time
+                dst.create(mat.size(), mat.type());
+                dst.setTo(black);
+                Core.bitwise_and(mat, mat, dst, edges);
+                videoWriter.write(dst);
+                frames++;
+                if (frames % progressFrames == 0) {
+                    client.printf(Locale.ROOT, "PROGRESS %d %d %d %.1f%n", id, frames, total,
+                            frames * 1000.0 / Math.max(1, System.currentTimeMillis() - startTime));
+                    client.flush();
+                }
+            }
+        } finally {
+            // Free native memory
+            videoCapture.release();
+            videoWriter.release();
+            mat.release();
+            gray.release();
+            blur.release();
+            edges.release();
+            dst.release();
+        }
+        final var seconds = (System.currentTimeMillis() - startTime) / 1000.0;
+        client.printf(Locale.ROOT, "DONE %d %d 0 %.2f%n", id, frames, seconds);
+        client.flush();
+        logger.log(Level.INFO, String.format("Job %d canny %s: %d frames, %4.1f FPS", id, url, frames,
+                frames / Math.max(0.001, seconds)));
+    }
+
+    /**
+     * Calibrate camera from chess board images with CameraCalibration.
+     *
+     * @param id
+     *            Job id.
+     * @param outDir
+     *            Output dir for debug images and calibration files.
+     * @param pattern
+     *            Chess board "cols,rows".
+     * @param inMask
+     *            Input file mask.
+     * @param client
+     *            Client connection.
+     * @throws IOException
+     *             Possible exception.
+     */
+    private void calibrate(final int id, final String outDir, final String pattern, final String inMask,
+            final PrintWriter client) throws IOException {
+        final var parts = pattern.split(",");
+        final var patternSize = new Size(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+        final var startTime = System.currentTimeMillis();
+        // getPoints appends file names to the dir
+        final var dir = outDir.endsWith("/") ? outDir : outDir + "/";
+        if (!new CameraCalibration().getPoints(inMask, dir, patternSize)) {
+            client.printf("ERROR job %d no chessboards found in %s%n", id, inMask);
+            client.flush();
+            return;
+        }
+        final var seconds = (System.currentTimeMillis() - startTime) / 1000.0;
+        client.printf(Locale.ROOT, "DONE %d 0 0 %.2f%n", id, seconds);
+        client.flush();
+        logger.log(Level.INFO, String.format("Job %d calibrate %s: %4.2f seconds", id, inMask, seconds));
+    }
+
+    /**
+     * Run job on a job slot. Jobs are refused once SHUTDOWN was received.
+     *
+     * @param client
+     *            Client connection.
+     * @param job
+     *            Job.
+     */
+    private void submit(final PrintWriter client, final Job job) {
+        if (shuttingDown) {
+            client.printf("ERROR daemon is shutting down%n");
+            client.flush();
+            return;
+        }
+        final var id = jobIds.incrementAndGet();
+        client.printf("ACCEPTED %d%n", id);
+        client.flush();
+        jobSlots.acquireUninterruptibly();
+        try {
+            // Shutdown may have started while waiting for a slot
+            if (shuttingDown) {
+                client.printf("ERROR job %d daemon is shutting down%n", id);
+                client.flush();
+                return;
+            }
+            active.incrementAndGet();
+            try {
+                job.run(id);
+            } catch (RuntimeException | IOException e) {
+                // OpenCV errors are runtime exceptions and only fail this job
+                client.printf("ERROR job %d %s%n", id, e.getMessage());
+                client.flush();
+            } finally {
+                active.decrementAndGet();
+                completed.incrementAndGet();
+            }
+        } finally {
+            jobSlots.release();
+        }
+    }
+
+    /**
+     * Check that a file name sent by a client is absolute.
+     *
+     * @param client
+     *            Client connection.
+     * @param fileName
+     *            File or dir.
+     * @return True if absolute.
+     */
+    private boolean isAbsolute(final PrintWriter client, final String fileName) {
+        if (Paths.get(fileName).isAbsolute()) {
+            return true;
+        }
+        client.printf("ERROR %s is not an absolute path%n", fileName);
+        client.flush();
+        return false;
+    }
+
+    /**
+     * Process commands from one client until it disconnects.
+     *
+     * @param channel
+     *            Client connection.
+     */
+    private void serve(final SocketChannel channel) {
+        try (channel;
+                final var in = new BufferedReader(
+                        new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+                final var client = new PrintWriter(
+                        new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                final var fields = line.split(" ", 4);
+                if ("DETECT".equals(fields[0]) && fields.length == 4) {
+                    if ("-".equals(fields[2]) || isAbsolute(client, fields[2])) {
+                        submit(client, id -> detect(id, fields[1], fields[2], fields[3], client));
+                    }
+                } else if ("CANNY".equals(fields[0]) && fields.length == 3) {
+                    final var cannyFields = line.split(" ", 3);
+                    if (isAbsolute(client, cannyFields[1])) {
+                        submit(client, id -> canny(id, cannyFields[1], cannyFields[2], client));
+                    }
+                } else if ("CALIBRATE".equals(fields[0]) && fields.length == 4) {
+                    if (isAbsolute(client, fields[1]) && isAbsolute(client, fields[3])) {
+                        submit(client, id -> calibrate(id, fields[1], fields[2], fields[3], client));
+                    }
+                } else if ("STATUS".equals(fields[0])) {
+                    client.printf("STATUS %d %d%n", active.get(), completed.get());
+                    client.flush();
+                } else if ("SHUTDOWN".equals(fields[0])) {
+                    logger.log(Level.INFO, String.format("Shutdown requested, %d jobs running", active.get()));
+                    shuttingDown = true;
+                    server.close();
+                    break;
+                } else {
+                    client.printf("ERROR unknown command: %s%n", line);
+                    client.flush();
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, String.format("Client connection failed: %s", e.getMessage()));
+        }
+    }
+
+    /**
+     * Accept clients until shut down. Each client gets its own thread. Client
+     * threads are daemons, so running jobs are drained before returning.
+     *
+     * @throws IOException
+     *             Possible exception.
+     */
+    public void run() throws IOException {
+        try {
+            while (server.isOpen()) {
+                final SocketChannel channel;
+                try {
+                    channel = server.accept();
+                } catch (IOException e) {
+                    // Closed by SHUTDOWN
+                    if (!server.isOpen()) {
+                        break;
+                    }
+                    throw e;
+                }
+                final var thread = new Thread(() -> serve(channel), "client");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        } finally {
+            shuttingDown = true;
+            server.close();
+            Files.deleteIfExists(socketFile);
+            // Every slot is free once running jobs finish
+            jobSlots.acquireUninterruptibly(maxJobs);
+            logger.log(Level.INFO, String.format("%d jobs completed", completed.get()));
+        }
+    }
+
+    /**
+     * Warm up and serve jobs.
+     *
+     * args[0] = socket file or will default to "/tmp/opencv-detect.sock" if no
+     * args passed.
+     *
+     * args[1] = max concurrent jobs or will default to the number of
+     * processors if no args passed.
+     *
+     * @param args
+     *            String array of arguments.
+     */
+    public static void main(final String... args) {
+        var socketFile = "/tmp/opencv-detect.sock";
+        var maxJobs = Runtime.getRuntime().availableProcessors();
+        if (args.length > 0) {
+            socketFile = args[0];
+        }
+        if (args.length > 1) {
+            maxJobs = Integer.parseInt(args[1]);
+        }
+        // Custom logging properties via class loader
+        try {
+            LogManager.getLogManager()
+                    .readConfiguration(DetectDaemon.class.getClassLoader().getResourceAsStream("logging.properties"));
+        } catch (SecurityException | IOException e) {
+            e.printStackTrace();
+        }
+        logger.log(Level.INFO, String.format("OpenCV %s", Core.VERSION));
+        logger.log(Level.INFO, String.format("Socket: %s, max jobs: %d", socketFile, maxJobs));
+        final var startTime = System.currentTimeMillis();
+        warmUp(new Size(640, 480));
+        logger.log(Level.INFO, String.format("Warm up elapsed time: %4.2f seconds",
+                (System.currentTimeMillis() - startTime) / 1000.0));
+        try {
+            new DetectDaemon(socketFile, maxJobs).run();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, String.format("Daemon failed: %s", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.util.List;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Static detection mask. Non-zero (white) pixels are detected and zero (black)
+ * pixels are ignored. Only the bounding rectangle of the non-zero pixels needs
+ * to be processed, so detectors should crop to getRoi() before blur,
+ * accumulation and morphology.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class DetectMask {
+    /**
+     * Bounding rectangle of detected pixels.
+     */
+    private final Rect roi;
+    /**
+     * Mask cropped to roi or null if every pixel is detected.
+     */
+    private final Mat roiMask;
+    /**
+     * Number of detected pixels.
+     */
+    private final double pixels;
+
+    /**
+     * Detect every pixel in frame.
+     *
+     * @param frameSize
+     *            Frame size.
+     */
+    DetectMask(final Size frameSize) {
+        roi = new Rect(0, 0, (int) frameSize.width, (int) frameSize.height);
+        roiMask = null;
+        pixels = frameSize.area();
+    }
+
+    /**
+     * Load mask from image file. Mask is resized to frame size if needed.
+     *
+     * @param fileName
+     *            Mask image file.
+     * @param frameSize
+     *            Frame size.
+     */
+    DetectMask(final String fileName, final Size frameSize) {
+        final var mask = Imgcodecs.imread(fileName, Imgcodecs.IMREAD_GRAYSCALE);
+        if (mask.empty()) {
+            throw new IllegalArgumentException(String.format("Unable to read mask: %s", fileName));
+        }
+        if (mask.width() != (int) frameSize.width || mask.height() != (int) frameSize.height) {
+            Imgproc.resize(mask, mask, frameSize, 0, 0, Imgproc.INTER_NEAREST);
+        }
+        // Anything not black is detected
+        Imgproc.threshold(mask, mask, 0, 255, Imgproc.THRESH_BINARY);
+        pixels = Core.countNonZero(mask);
+        if (pixels == 0) {
+            mask.release();
+            throw new IllegalArgumentException(String.format("Mask has no detected pixels: %s", fileName));
+        }
+        roi = Imgproc.boundingRect(mask);
+        roiMask = mask.submat(roi).clone();
+        mask.release();
+    }
+
+    /**
+     * Bounding rectangle of detected pixels.
+     *
+     * @return Rectangle in frame coordinates.
+     */
+    public Rect getRoi() {
+        return roi;
+    }
+
+    /**
+     * Mask cropped to roi.
+     *
+     * @return Mask or null if every pixel is detected.
+     */
+    public Mat getRoiMask() {
+        return roiMask;
+    }
+
+    /**
+     * Number of detected pixels. Use this instead of frame area for motion
+     * percent.
+     *
+     * @return Detected pixels.
+     */
+    public double getPixels() {
+        return pixels;
+    }
+
+    /**
+     * Clear ignored pixels in a binary image cropped to roi.
+     *
+     * @param binary
+     *            Binary image cropped to roi. This value is modified by JNI
+     *            code.
+     */
+    public void apply(final Mat binary) {
+        if (roiMask != null) {
+            Core.bitwise_and(binary, roiMask, binary);
+        }
+    }
+
+    /**
+     * Move rectangles from roi to frame coordinates.
+     *
+     * @param rectList
+     *            Rectangles relative to roi. These are modified in place.
+     * @return Rectangles relative to frame.
+     */
+    public List<Rect> toFrame(final List<Rect> rectList) {
+        for (final var rect : rectList) {
+            rect.x += roi.x;
+            rect.y += roi.y;
+        }
+        return rectList;
+    }
+
+    /**
+     * Free native memory.
+     */
+    public void release() {
+        if (roiMask != null) {
+            roiMask.release();
+        }
+    }
+}
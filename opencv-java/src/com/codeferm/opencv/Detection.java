@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Result of running a Detector on one frame.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class Detection {
+    /**
+     * Rectangle color.
+     */
+    private static final Scalar RECT_COLOR = new Scalar(0, 255, 0);
+    /**
+     * Font color.
+     */
+    private static final Scalar FONT_COLOR = new Scalar(255, 255, 255);
+    /**
+     * Detected rectangles in frame coordinates.
+     */
+    private final List<Rect> rects;
+    /**
+     * Weight of each rectangle or empty if detector has no weights.
+     */
+    private final List<Double> weights;
+    /**
+     * Percent of pixels that changed or 0 if detector does not measure it.
+     */
+    private final double motionPercent;
+    /**
+     * Detector triggered on this frame.
+     */
+    private final boolean detected;
+    /**
+     * Centroid of each rectangle or empty if not computed.
+     */
+    private final List<Point> centroids;
+
+    /**
+     * Create result.
+     *
+     * @param rects
+     *            Detected rectangles in frame coordinates.
+     * @param weights
+     *            Weight of each rectangle or empty list.
+     * @param motionPercent
+     *            Percent of pixels that changed or 0.
+     * @param detected
+     *            Detector triggered on this frame.
+     */
+    Detection(final List<Rect> rects, final List<Double> weights, final double motionPercent,
+            final boolean detected) {
+        this(rects, weights, motionPercent, detected, List.of());
+    }
+
+    /**
+     * Create result with centroids.
+     *
+     * @param rects
+     *            Detected rectangles in frame coordinates.
+     * @param weights
+     *            Weight of each rectangle or empty list.
+     * @param motionPercent
+     *            Percent of pixels that changed or 0.
+     * @param detected
+     *            Detector triggered on this frame.
+     * @param centroids
+     *            Centroid of each rectangle or empty list.
+     */
+    Detection(final List<Rect> rects, final List<Double> weights, final double motionPercent,
+            final boolean detected, final List<Point> centroids) {
+        this.rects = rects;
+        this.weights = weights;
+        this.motionPercent = motionPercent;
+        this.detected = detected;
+        this.centroids = centroids;
+    }
+
+    /**
+     * Detected rectangles.
+     *
+     * @return Rectangles in frame coordinates.
+     */
+    public List<Rect> getRects() {
+        return rects;
+    }
+
+    /**
+     * Rectangle weights.
+     *
+     * @return Weight of each rectangle or empty list.
+     */
+    public List<Double> getWeights() {
+        return weights;
+    }
+
+    /**
+     * Rectangle centroids.
+     *
+     * @return Centroid of each rectangle or empty list.
+     */
+    public List<Point> getCentroids() {
+        return centroids;
+    }
+
+    /**
+     * Motion percent.
+     *
+     * @return Percent of pixels that changed or 0.
+     */
+    public double getMotionPercent() {
+        return motionPercent;
+    }
+
+    /**
+     * Detector triggered.
+     *
+     * @return True if detector triggered on this frame.
+     */
+    public boolean isDetected() {
+        return detected;
+    }
+
+    /**
+     * Frame score. Highest weight if detector has weights, otherwise largest
+     * rectangle area. 0 if nothing was detected.
+     *
+     * @return Score.
+     */
+    public double score() {
+        var score = 0.0;
+        if (detected) {
+            if (weights.isEmpty()) {
+                for (final var rect : rects) {
+                    score = Math.max(score, rect.area());
+                }
+            } else {
+                for (final var weight : weights) {
+                    score = Math.max(score, weight);
+                }
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Draw rectangles and weights on frame.
+     *
+     * @param frame
+     *            Frame to draw on.
+     */
+    public void annotate(final Mat frame) {
+        annotate(frame, null);
+    }
+
+    /**
+     * Draw rectangles and weights on frame.
+     *
+     * @param frame
+     *            Frame to draw on.
+     * @param labelAtlas
+     *            Pre-rendered weight labels or null to use putText.
+     */
+    public void annotate(final Mat frame, final LabelAtlas labelAtlas) {
+        if (!detected) {
+            return;
+        }
+        final var rectPoint1 = new Point();
+        final var rectPoint2 = new Point();
+        for (int i = 0; i < rects.size(); i++) {
+            final var rect = rects.get(i);
+            rectPoint1.x = rect.x;
+            rectPoint1.y = rect.y;
+            rectPoint2.x = rect.x + rect.width;
+            rectPoint2.y = rect.y + rect.height;
+            // Draw rectangle around found object
+            Imgproc.rectangle(frame, rectPoint1, rectPoint2, RECT_COLOR, 2);
+            if (labelAtlas != null && !weights.isEmpty()) {
+                labelAtlas.drawNumber(frame, weights.get(i), rect.x, rect.y - 4);
+            } else if (!weights.isEmpty()) {
+                rectPoint1.y = rect.y - 4;
+                Imgproc.putText(frame, String.format("%1.2f", weights.get(i)), rectPoint1,
+                        Imgproc.FONT_HERSHEY_PLAIN, 1.5, FONT_COLOR, 2, Imgproc.LINE_AA, false);
+            }
+        }
+    }
+
+    /**
+     * JSON object for one frame. Used for headless output.
+     *
+     * @param frame
+     *            Frame number.
+     * @return JSON on one line.
+     */
+    public String toJson(final long frame) {
+        final var json = new StringBuilder(64 + rects.size() * 48);
+        json.append("{\"frame\":").append(frame).append(",\"detected\":").append(detected);
+        json.append(",\"motionPercent\":").append(String.format(Locale.ROOT, "%.3f", motionPercent));
+        json.append(",\"rects\":[");
+        for (int i = 0; i < rects.size(); i++) {
+            final var rect = rects.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"x\":").append(rect.x).append(",\"y\":").append(rect.y).append(",\"w\":")
+                    .append(rect.width).append(",\"h\":").append(rect.height);
+            if (!weights.isEmpty()) {
+                json.append(",\"weight\":").append(String.format(Locale.ROOT, "%.3f", weights.get(i)));
+            }
+            if (!centroids.isEmpty()) {
+                json.append(String.format(Locale.ROOT, ",\"cx\":%.2f,\"cy\":%.2f", centroids.get(i).x,
+                        centroids.get(i).y));
+            }
+            json.append('}');
+        }
+        return json.append("]}").toString();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.video.Video;
+
+/**
+ * Frame detector with no drawing or encoding. Detectors keep state between
+ * frames (background models), so use one instance per stream.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+interface Detector {
+    /**
+     * Detector names accepted by create.
+     */
+    String[] NAMES = { "motion", "resize", "mog2", "knn", "people" };
+
+    /**
+     * Detect objects in frame. Frame is not modified.
+     *
+     * @param frame
+     *            BGR frame.
+     * @return Detection result.
+     */
+    Detection detect(Mat frame);
+
+    /**
+     * Free native memory.
+     */
+    void release();
+
+    /**
+     * Create detector by name.
+     *
+     * @param name
+     *            "motion", "resize", "mog2", "knn" or "people".
+     * @param frameSize
+     *            Frame size.
+     * @return Detector.
+     */
+    static Detector create(final String name, final Size frameSize) {
+        switch (name) {
+        case "motion":
+            return new MotionDetector(new DetectMask(frameSize));
+        case "resize":
+            final var scaledSize = ScaledDetector.scaledSize(frameSize);
+            return new ScaledDetector(new MotionDetector(new DetectMask(scaledSize)), frameSize, scaledSize);
+        case "mog2":
+            return new Mog2Detector(new DetectMask(frameSize));
+        case "knn":
+            return new Mog2Detector(new DetectMask(frameSize), Video.createBackgroundSubtractorKNN(500, 400, true));
+        case "people":
+            return new PeopleDetector();
+        default:
+            throw new IllegalArgumentException(String.format("Unknown detector: %s", name));
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.Videoio;
+
+/**
+ * Score detectors against ground truth from SyntheticVideo. A detected
+ * rectangle matches a true box if their intersection over union is at least
+ * the threshold. Each true box matches at most one rectangle. Precision,
+ * recall and F1 are reported with detect only FPS and per frame latency, so
+ * accuracy can be weighed against cost. Decode time is not counted.
+ *
+ * args[0] = video file or will default to "../output/synthetic-java.avi" if no
+ * args passed.
+ *
+ * args[1] = ground truth file or will default to "../output/synthetic-java.csv"
+ * if no args passed.
+ *
+ * args[2] = detectors separated by "," or will default to
+ * "motion,resize,mog2,knn" if no args passed.
+ *
+ * args[3] = intersection over union threshold or will default to "0.3" if no
+ * args passed.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class DetectorAccuracy {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = Logger.getLogger(DetectorAccuracy.class.getName());
+    /* Load the OpenCV system library */
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    /**
+     * Suppress default constructor for noninstantiability.
+     */
+    private DetectorAccuracy() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Load ground truth.
+     *
+     * @param truthFile
+     *            CSV with frame,x,y,width,height lines.
+     * @return True boxes indexed by frame.
+     * @throws IOException
+     *             Possible exception.
+     */
+    public static List<List<Rect>> loadTruth(final String truthFile) throws IOException {
+        final var truth = new ArrayList<List<Rect>>();
+        for (final var line : Files.readAllLines(Paths.get(truthFile))) {
+            // Skip header
+            if (line.isEmpty() || !Character.isDigit(line.charAt(0))) {
+                continue;
+            }
+            final var fields = line.split(",");
+            final var frame = Integer.parseInt(fields[0]);
+            while (truth.size() <= frame) {
+                truth.add(new ArrayList<>());
+            }
+            truth.get(frame).add(new Rect(Integer.parseInt(fields[1]), Integer.parseInt(fields[2]),
+                    Integer.parseInt(fields[3]), Integer.parseInt(fields[4])));
+        }
+        return truth;
+    }
+
+    /**
+     * Intersection over union.
+     *
+     * @param a
+     *            First rectangle.
+     * @param b
+     *            Second rectangle.
+     * @return 0 to 1.
+     */
+    public static double iou(final Rect a, final Rect b) {
+        final var width = Math.min(a.x + a.width, b.x + b.width) - Math.max(a.x, b.x);
+        final var height = Math.min(a.y + a.height, b.y + b.height) - Math.max(a.y, b.y);
+        if (width <= 0 || height <= 0) {
+            return 0.0;
+        }
+        final var intersection = (double) width * height;
+        return intersection / (a.area() + b.area() - intersection);
+    }
+
+    /**
+     * Run detector over video and log accuracy and cost.
+     *
+     * @param name
+     *            Detector name.
+     * @param url
+     *            Video file.
+     * @param truth
+     *            True boxes indexed by frame.
+     * @param threshold
+     *            Intersection over union threshold.
+     */
+    public static void score(final String name, final String url, final List<List<Rect>> truth,
+            final double threshold) {
+        final var videoCapture = new VideoCapture();
+        videoCapture.open(url);
+        final var frameSize = new Size((int) videoCapture.get(Videoio.CAP_PROP_FRAME_WIDTH),
+                (int) videoCapture.get(Videoio.CAP_PROP_FRAME_HEIGHT));
+        final var detector = Detector.create(name, frameSize);
+        final var mat = new Mat();
+        var latencies = new long[Math.max(1, (int) videoCapture.get(Videoio.CAP_PROP_FRAME_COUNT))];
+        var frames = 0;
+        var truePositives = 0L;
+        var falsePositives = 0L;
+        var falseNegatives = 0L;
+        var totalTime = 0L;
+        while (videoCapture.read(mat)) {
+            final var detectTime = System.nanoTime();
+            final var detection = detector.detect(mat);
+            final var latency = System.nanoTime() - detectTime;
+            totalTime += latency;
+            if (frames == latencies.length) {
+                latencies = Arrays.copyOf(latencies, frames * 2);
+            }
+            latencies[frames] = latency;
+            final List<Rect> rects = detection.isDetected() ? detection.getRects() : List.of();
+            final List<Rect> boxes = frames < truth.size() ? truth.get(frames) : List.of();
+            final var matched = new boolean[rects.size()];
+            // Greedy match each true box to its best unmatched rectangle
+            for (final var box : boxes) {
+                var best = -1;
+                var bestIou = threshold;
+                for (int i = 0; i < rects.size(); i++) {
+                    if (!matched[i]) {
+                        final var iou = iou(box, rects.get(i));
+                        if (iou >= bestIou) {
+                            best = i;
+                            bestIou = iou;
+                        }
+                    }
+                }
+                if (best >= 0) {
+                    matched[best] = true;
+                    truePositives++;
+                } else {
+                    falseNegatives++;
+                }
+            }
+            for (final var match : matched) {
+                if (!match) {
+                    falsePositives++;
+                }
+            }
+            frames++;
+        }
+        Arrays.sort(latencies, 0, frames);
+        final var precision = truePositives + falsePositives == 0 ? 0.0
+                : (double) truePositives / (truePositives + falsePositives);
+        final var recall = truePositives + falseNegatives == 0 ? 0.0
+                : (double) truePositives / (truePositives + falseNegatives);
+        final var f1 = precision + recall == 0.0 ? 0.0 : 2.0 * precision * recall / (precision + recall);
+        if (frames > 0) {
+            logger.log(Level.INFO, String.format(
+                    "%-6s precision %5.3f, recall %5.3f, F1 %5.3f, %6.1f FPS, latency ms mean %6.2f, p50 %6.2f, "
+                            + "p95 %6.2f, max %6.2f",
+                    name, precision, recall, f1, frames / (totalTime / 1000000000.0), totalTime / 1000000.0 / frames,
+                    latencies[frames / 2] / 1000000.0, latencies[(int) (frames * 0.95)] / 1000000.0,
+                    latencies[frames - 1] / 1000000.0));
+        }
+        // Free native memory
+        videoCapture.release();
+        detector.release();
+        mat.release();
+    }
+
+    /**
+     * Score each detector.
+     *
+     * args[0] = video file or will default to "../output/synthetic-java.avi"
+     * if no args passed.
+     *
+     * args[1] = ground truth file or will default to
+     * "../output/synthetic-java.csv" if no args passed.
+     *
+     * args[2] = detectors separated by "," or will default to
+     * "motion,resize,mog2,knn" if no args passed.
+     *
+     * args[3] = intersection over union threshold or will default to "0.3" if
+     * no args passed.
+     *
+     * @param args
+     *            String array of arguments.
+     */
+    public static void main(final String... args) {
+        var url = "../output/synthetic-java.avi";
+        var truthFile = "../output/synthetic-java.csv";
+        var names = "motion,resize,mog2,knn";
+        var threshold = 0.3;
+        if (args.length > 0) {
+            url = args[0];
+        }
+        if (args.length > 1) {
+            truthFile = args[1];
+        }
+        if (args.length > 2) {
+            names = args[2];
+        }
+        if (args.length > 3) {
+            threshold = Double.parseDouble(args[3]);
+        }
+        // Custom logging properties via class loader
+        try {
+            LogManager.getLogManager().readConfiguration(
+                    DetectorAccuracy.class.getClassLoader().getResourceAsStream("logging.properties"));
+        } catch (SecurityException | IOException e) {
+            e.printStackTrace();
+        }
+        logger.log(Level.INFO, String.format("OpenCV %s", Core.VERSION));
+        logger.log(Level.INFO, String.format("Input file: %s, ground truth: %s, IoU threshold: %4.2f", url,
+                truthFile, threshold));
+        final List<List<Rect>> truth;
+        try {
+            truth = loadTruth(truthFile);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, String.format("Unable to read %s: %s", truthFile, e.getMessage()));
+            return;
+        }
+        for (final var name : names.split(",")) {
+            score(name, url, truth, threshold);
+        }
+    }
+}
@@ -0,0 +1,463 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.VideoWriter;
+import org.opencv.videoio.Videoio;
+
+/**
+ * Detect on a camera's low resolution substream and record the main stream.
+ * Each stream is read on its own thread into a bounded buffer of reused Mats.
+ * Every substream frame goes through the detector, and each main stream frame
+ * is paired with the latest substream frame at or before it if that frame is
+ * no older than the max skew. Detection rectangles are scaled to main stream coordinates,
+ * drawn on the main frame and the best main frames of each event are saved as
+ * snapshots.
+ *
+ * Files use their presentation timestamps. Live streams use arrival time since
+ * their clocks are not related. Live readers drop the oldest buffered frame
+ * instead of blocking, so a slow detector cannot stall the camera.
+ *
+ * To test locally pass two files of the same scene at different resolutions.
+ * With no args the main stream is "../resources/traffic.mp4" and a half
+ * resolution substream is generated from it.
+ *
+ * args[0] = main stream or will default to "../resources/traffic.mp4" if no
+ * args passed.
+ *
+ * args[1] = substream or will default to "../output/traffic-sub-java.avi"
+ * (generated if missing) if no args passed.
+ *
+ * args[2] = detector or will default to "motion" if no args passed.
+ *
+ * args[3] = output file or will default to "../output/dual-stream-java.avi" if
+ * no args passed.
+ *
+ * args[4] = max skew in milliseconds or will default to "100" if no args
+ * passed.
+ *
+ * args[5] = buffer frames per stream or will default to "30" if no args
+ * passed.
+ *
+ * args[6] = snapshots per event or will default to "3" if no args passed. 0
+ * disables snapshots.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class DualStreamDetect {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = Logger.getLogger(DualStreamDetect.class.getName());
+    /* Load the OpenCV system library */
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    /**
+     * Reusable frame with timestamp.
+     */
+    static final class Frame {
+        /**
+         * Pixels.
+         */
+        private final Mat mat = new Mat();
+        /**
+         * Timestamp in milliseconds.
+         */
+        private double timestamp;
+    }
+
+    /**
+     * Reads one stream into a bounded buffer.
+     */
+    static final class StreamReader implements Runnable {
+        /**
+         * Capture.
+         */
+        private final VideoCapture videoCapture;
+        /**
+         * Live stream drops oldest frame when buffer is full.
+         */
+        private final boolean live;
+        /**
+         * Start of arrival time for live streams.
+         */
+        private final long startNanos;
+        /**
+         * Frames to fill.
+         */
+        private final ArrayBlockingQueue<Frame> free;
+        /**
+         * Frames in timestamp order.
+         */
+        private final ArrayBlockingQueue<Frame> filled;
+        /**
+         * Reader should keep reading.
+         */
+        private volatile boolean running = true;
+        /**
+         * Source ended.
+         */
+        private volatile boolean ended;
+        /**
+         * Frames dropped because buffer was full.
+         */
+        private volatile long dropped;
+
+        /**
+         * Create reader.
+         *
+         * @param videoCapture
+         *            Opened capture.
+         * @param frames
+         *            Buffer frames.
+         * @param startNanos
+         *            Start of arrival time shared by both streams.
+         */
+        StreamReader(final VideoCapture videoCapture, final int frames, final long startNanos) {
+            this.videoCapture = videoCapture;
+            this.live = videoCapture.get(Videoio.CAP_PROP_FRAME_COUNT) <= 0;
+            this.startNanos = startNanos;
+            free = new ArrayBlockingQueue<>(frames);
+            filled = new ArrayBlockingQueue<>(frames);
+            for (int i = 0; i < frames; i++) {
+                free.add(new Frame());
+            }
+        }
+
+        /**
+         * Read until source ends.
+         */
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    var frame = live ? free.poll() : free.take();
+                    if (frame == null) {
+                        // Live buffer is full, so reuse the oldest frame
+                        frame = filled.poll();
+                        if (frame == null) {
+                            frame = free.take();
+                        } else {
+                            dropped++;
+                        }
+                    }
+                    if (!videoCapture.read(frame.mat)) {
+                        free.add(frame);
+                        break;
+                    }
+                    frame.timestamp = live ? (System.nanoTime() - startNanos) / 1000000.0
+                            : videoCapture.get(Videoio.CAP_PROP_POS_MSEC);
+                    filled.put(frame);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                ended = true;
+            }
+        }
+
+        /**
+         * Next frame in timestamp order.
+         *
+         * @param timeout
+         *            Milliseconds to wait.
+         * @return Frame or null if source ended or timed out.
+         * @throws InterruptedException
+         *             Possible exception.
+         */
+        Frame next(final long timeout) throws InterruptedException {
+            final var deadline = System.currentTimeMillis() + timeout;
+            while (true) {
+                final var frame = filled.poll(10, TimeUnit.MILLISECONDS);
+                if (frame != null) {
+                    return frame;
+                }
+                if ((ended && filled.isEmpty()) || System.currentTimeMillis() >= deadline) {
+                    return null;
+                }
+            }
+        }
+
+        /**
+         * Return frame to buffer.
+         *
+         * @param frame
+         *            Frame from next.
+         */
+        void recycle(final Frame frame) {
+            free.add(frame);
+        }
+
+        /**
+         * Source ended and every frame was taken.
+         *
+         * @return True if done.
+         */
+        boolean isDone() {
+            return ended && filled.isEmpty();
+        }
+
+        /**
+         * Stop reading after the current frame.
+         */
+        void stop() {
+            running = false;
+        }
+
+        /**
+         * Free native memory. Call after reader thread ends.
+         */
+        void release() {
+            for (final var frame : free) {
+                frame.mat.release();
+            }
+            for (final var frame : filled) {
+                frame.mat.release();
+            }
+            videoCapture.release();
+        }
+    }
+
+    /**
+     * Suppress default constructor for noninstantiability.
+     */
+    private DualStreamDetect() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Write a reduced resolution copy of a file to stand in for a substream.
+     *
+     * @param url
+     *            Main stream file.
+     * @param subFile
+     *            Substream file.
+     * @param divisor
+     *            Width and height divisor.
+     */
+    public static void writeSubstream(final String url, final String subFile, final int divisor) {
+        final var videoCapture = new VideoCapture();
+        videoCapture.open(url);
+        final var subSize = new Size((int) videoCapture.get(Videoio.CAP_PROP_FRAME_WIDTH) / divisor,
+                (int) videoCapture.get(Videoio.CAP_PROP_FRAME_HEIGHT) / divisor);
+        final var videoWriter = new VideoWriter(subFile, new FourCC("MJPG").toInt(),
+                videoCapture.get(Videoio.CAP_PROP_FPS), subSize, true);
+        final var mat = new Mat();
+        final var subImg = new Mat();
+        while (videoCapture.read(mat)) {
+            Imgproc.resize(mat, subImg, subSize, 0, 0, Imgproc.INTER_AREA);
+            videoWriter.write(subImg);
+        }
+        logger.log(Level.INFO, String.format("Generated %s substream %s", subFile, subSize));
+        // Free native memory
+        videoCapture.release();
+        videoWriter.release();
+        mat.release();
+        subImg.release();
+    }
+
+    /**
+     * Detect on substream and record main stream.
+     *
+     * args[0] = main stream or will default to "../resources/traffic.mp4" if
+     * no args passed.
+     *
+     * args[1] = substream or will default to "../output/traffic-sub-java.avi"
+     * (generated if missing) if no args passed.
+     *
+     * args[2] = detector or will default to "motion" if no args passed.
+     *
+     * args[3] = output file or will default to
+     * "../output/dual-stream-java.avi" if no args passed.
+     *
+     * args[4] = max skew in milliseconds or will default to "100" if no args
+     * passed.
+     *
+     * args[5] = buffer frames per stream or will default to "30" if no args
+     * passed.
+     *
+     * args[6] = snapshots per event or will default to "3" if no args passed.
+     *
+     * @param args
+     *            String array of arguments.
+     * @throws InterruptedException
+     *             Possible exception.
+     */
+    public static void main(final String... args) throws InterruptedException {
+        var mainUrl = "../resources/traffic.mp4";
+        var subUrl = "../output/traffic-sub-java.avi";
+        var name = "motion";
+        var outputFile = "../output/dual-stream-java.avi";
+        var maxSkew = 100L;
+        var bufferFrames = 30;
+        var snapshotsPerEvent = 3;
+        if (args.length > 0) {
+            mainUrl = args[0];
+        }
+        if (args.length > 1) {
+            subUrl = args[1];
+        }
+        if (args.length > 2) {
+            name = args[2];
+        }
+        if (args.length > 3) {
+            outputFile = args[3];
+        }
+        if (args.length > 4) {
+            maxSkew = Long.parseLong(args[4]);
+        }
+        if (args.length > 5) {
+            bufferFrames = Integer.parseInt(args[5]);
+        }
+        if (args.length > 6) {
+            snapshotsPerEvent = Integer.parseInt(args[6]);
+        }
+        // Custom logging properties via class loader
+        try {
+            LogManager.getLogManager().readConfiguration(
+                    DualStreamDetect.class.getClassLoader().getResourceAsStream("logging.properties"));
+        } catch (SecurityException | IOException e) {
+            e.printStackTrace();
+        }
+        logger.log(Level.INFO, String.format("OpenCV %s", Core.VERSION));
+        logger.log(Level.INFO, String.format("Main stream: %s, substream: %s, detector: %s", mainUrl, subUrl, name));
+        logger.log(Level.INFO, String.format("Output file: %s, max skew: %d ms, buffer: %d frames", outputFile,
+                maxSkew, bufferFrames));
+        if (args.length < 2 && !Files.exists(Paths.get(subUrl))) {
+            writeSubstream(mainUrl, subUrl, 2);
+        }
+        final var mainCapture = new VideoCapture();
+        final var subCapture = new VideoCapture();
+        // See if URL is an integer: -? = negative sign, could have none or one,
+        // \\d+ = one or more digits
+        if (mainUrl.matches("-?\\d+")) {
+            mainCapture.open(Integer.parseInt(mainUrl));
+        } else {
+            mainCapture.open(mainUrl);
+        }
+        if (subUrl.matches("-?\\d+")) {
+            subCapture.open(Integer.parseInt(subUrl));
+        } else {
+            subCapture.open(subUrl);
+        }
+        final var mainSize = new Size((int) mainCapture.get(Videoio.CAP_PROP_FRAME_WIDTH),
+                (int) mainCapture.get(Videoio.CAP_PROP_FRAME_HEIGHT));
+        final var subSize = new Size((int) subCapture.get(Videoio.CAP_PROP_FRAME_WIDTH),
+                (int) subCapture.get(Videoio.CAP_PROP_FRAME_HEIGHT));
+        logger.log(Level.INFO, String.format("Main resolution: %s, substream resolution: %s", mainSize, subSize));
+        final var scaleX = mainSize.width / subSize.width;
+        final var scaleY = mainSize.height / subSize.height;
+        final var fps = Math.max(1.0, mainCapture.get(Videoio.CAP_PROP_FPS));
+        final var videoWriter = new VideoWriter(outputFile, new FourCC("X264").toInt(), fps, mainSize, true);
+        final var eventSnapshots = snapshotsPerEvent > 0
+                ? new EventSnapshots("../output/dual-stream-java", snapshotsPerEvent, (int) fps, (int) fps, 2, 90)
+                : null;
+        final var detector = Detector.create(name, subSize);
+        final var startNanos = System.nanoTime();
+        final var mainReader = new StreamReader(mainCapture, bufferFrames, startNanos);
+        final var subReader = new StreamReader(subCapture, bufferFrames, startNanos);
+        final var mainThread = new Thread(mainReader, "main-stream");
+        final var subThread = new Thread(subReader, "substream");
+        mainThread.start();
+        subThread.start();
+        // Files decode as fast as they can, so only live streams use the skew
+        final var wait = mainReader.live ? maxSkew : 1000L;
+        Detection detection = null;
+        var detectionTime = 0.0;
+        Frame pendingSub = null;
+        var frames = 0;
+        var subFrames = 0;
+        var paired = 0;
+        var framesDetected = 0;
+        final var startTime = System.currentTimeMillis();
+        while (!mainReader.isDone()) {
+            final var mainFrame = mainReader.next(wait);
+            if (mainFrame == null) {
+                continue;
+            }
+            // Detect every substream frame up to the main frame's time, later frames wait for the next main frame
+            while (pendingSub != null || !subReader.isDone()) {
+                if (pendingSub == null) {
+                    pendingSub = subReader.next(wait);
+                    if (pendingSub == null) {
+                        break;
+                    }
+                }
+                if (pendingSub.timestamp > mainFrame.timestamp) {
+                    break;
+                }
+                detection = detector.detect(pendingSub.mat);
+                detectionTime = pendingSub.timestamp;
+                subFrames++;
+                subReader.recycle(pendingSub);
+                pendingSub = null;
+            }
+            // Skew only decides if the last detection is recent enough to draw
+            if (detection != null && mainFrame.timestamp - detectionTime <= maxSkew) {
+                paired++;
+                final var mapped = ScaledDetector.scale(detection, scaleX, scaleY);
+                if (mapped.isDetected()) {
+                    framesDetected++;
+                }
+                if (eventSnapshots != null) {
+                    eventSnapshots.offer(mainFrame.mat, mapped.score());
+                }
+                mapped.annotate(mainFrame.mat);
+            } else if (eventSnapshots != null) {
+                eventSnapshots.offer(mainFrame.mat, 0.0);
+            }
+            videoWriter.write(mainFrame.mat);
+            mainReader.recycle(mainFrame);
+            frames++;
+        }
+        final var estimatedTime = System.currentTimeMillis() - startTime;
+        final var seconds = (double) estimatedTime / 1000;
+        // Let substream reader finish if it is blocked on a full buffer
+        subReader.stop();
+        if (pendingSub != null) {
+            subReader.recycle(pendingSub);
+        }
+        while (subThread.isAlive()) {
+            final var frame = subReader.next(10);
+            if (frame != null) {
+                subReader.recycle(frame);
+            }
+        }
+        mainThread.join();
+        logger.log(Level.INFO, String.format("%d main frames, %d substream frames, %d paired, %d with detections",
+                frames, subFrames, paired, framesDetected));
+        logger.log(Level.INFO, String.format("Dropped %d main frames, %d substream frames", mainReader.dropped,
+                subReader.dropped));
+        logger.log(Level.INFO, String.format("%4.1f FPS, elapsed time: %4.2f seconds", frames / seconds, seconds));
+        // Release native memory
+        if (eventSnapshots != null) {
+            eventSnapshots.close();
+        }
+        videoWriter.release();
+        detector.release();
+        mainReader.release();
+        subReader.release();
+    }
+}
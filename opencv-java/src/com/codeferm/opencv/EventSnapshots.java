@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.MatOfInt;
+import org.opencv.imgcodecs.Imgcodecs;
+
+/**
+ * Save the best frames of each detection event as JPEGs. An event is a run of
+ * frames with detections. The event is split into slices of frames and the
+ * highest scoring frame of each slice becomes a candidate. A bounded min-heap
+ * keeps the best candidates across the whole event, so long events are not
+ * limited to their first slices and at most one frame per slice is kept. When
+ * the event ends the kept frames are handed to a small bounded pool that does
+ * imencode and file I/O. If the pool is full the snapshot is dropped, so the
+ * detection loop never blocks.
+ *
+ * At most perEvent + 1 Mats are held per event. The Mat of a candidate that
+ * does not make the heap, or of one pushed out, is reused for the next slice.
+ * Mats handed to the pool are released by the pool.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class EventSnapshots {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = Logger.getLogger(EventSnapshots.class.getName());
+    /**
+     * Output file prefix. Event and snapshot numbers are appended.
+     */
+    private final String filePrefix;
+    /**
+     * Snapshots to save per event.
+     */
+    private final int perEvent;
+    /**
+     * Frames in each slice of an event.
+     */
+    private final int sliceFrames;
+    /**
+     * Frames with no detections that end an event.
+     */
+    private final int endFrames;
+    /**
+     * JPEG encode parameters.
+     */
+    private final MatOfInt params;
+    /**
+     * Encode and write pool.
+     */
+    private final ThreadPoolExecutor executor;
+    /**
+     * Best candidates of current event, lowest score first.
+     */
+    private final PriorityQueue<Snapshot> best;
+    /**
+     * Best frame of current slice or a spare Mat to reuse.
+     */
+    private Mat candidate;
+    /**
+     * Score of candidate. 0 if the slice has no candidate.
+     */
+    private double candidateScore;
+    /**
+     * Event frame of candidate.
+     */
+    private long candidateFrame;
+    /**
+     * Current event number.
+     */
+    private int event;
+    /**
+     * Frames in current event.
+     */
+    private long eventFrame;
+    /**
+     * Frames in current slice.
+     */
+    private int slice;
+    /**
+     * Frames since last detection.
+     */
+    private int quietFrames;
+    /**
+     * In an event.
+     */
+    private boolean active;
+    /**
+     * Snapshots written.
+     */
+    private final AtomicLong written = new AtomicLong();
+    /**
+     * Snapshots dropped because the pool was busy.
+     */
+    private long dropped;
+
+    /**
+     * Kept frame of an event.
+     */
+    private static final class Snapshot {
+        /**
+         * Frame.
+         */
+        private final Mat image;
+        /**
+         * Frame score.
+         */
+        private final double score;
+        /**
+         * Event frame, so snapshots are numbered in time order.
+         */
+        private final long frame;
+
+        /**
+         * Create snapshot.
+         *
+         * @param image
+         *            Frame.
+         * @param score
+         *            Frame score.
+         * @param frame
+         *            Event frame.
+         */
+        Snapshot(final Mat image, final double score, final long frame) {
+            this.image = image;
+            this.score = score;
+            this.frame = frame;
+        }
+    }
+
+    /**
+     * Create snapshot pool.
+     *
+     * @param filePrefix
+     *            Output file prefix such as "../output/motion-detect-java".
+     * @param perEvent
+     *            Snapshots to save per event.
+     * @param sliceFrames
+     *            Frames per slice. At most one frame of each slice is saved,
+     *            so snapshots are spread over the event.
+     * @param endFrames
+     *            Frames with no detections that end an event.
+     * @param threads
+     *            Encode threads.
+     * @param quality
+     *            JPEG quality 0 - 100.
+     */
+    EventSnapshots(final String filePrefix, final int perEvent, final int sliceFrames, final int endFrames,
+            final int threads, final int quality) {
+        this.filePrefix = filePrefix;
+        this.perEvent = perEvent;
+        this.sliceFrames = sliceFrames;
+        this.endFrames = endFrames;
+        this.params = new MatOfInt(Imgcodecs.IMWRITE_JPEG_QUALITY, quality);
+        this.best = new PriorityQueue<>(Math.max(1, perEvent), Comparator.comparingDouble(s -> s.score));
+        // Small queue bounds memory held by pending snapshots, one event always fits
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(threads * 2, perEvent)), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Offer frame to snapshots. Call once per frame after detection and before
+     * anything else draws on the frame you want saved.
+     *
+     * @param frame
+     *            Frame to save if it scores best. Copied only when it becomes the
+     *            candidate.
+     * @param score
+     *            Frame score such as largest detected area or highest HOG
+     *            weight. 0 or less means no detection.
+     */
+    public void offer(final Mat frame, final double score) {
+        offer(frame::copyTo, score);
+    }
+
+    /**
+     * Offer frame that is only produced if it becomes the candidate, such as a
+     * full resolution decode of a frame analyzed at reduced resolution.
+     *
+     * @param frame
+     *            Fills the candidate Mat with the frame to save.
+     * @param score
+     *            Frame score. 0 or less means no detection.
+     */
+    public void offer(final Consumer<Mat> frame, final double score) {
+        if (score > 0.0) {
+            if (!active) {
+                active = true;
+                event++;
+                eventFrame = 0;
+                slice = 0;
+            }
+            quietFrames = 0;
+            if (score > candidateScore) {
+                if (candidate == null) {
+                    candidate = new Mat();
+                }
+                frame.accept(candidate);
+                candidateScore = score;
+                candidateFrame = eventFrame;
+            }
+        } else if (active) {
+            quietFrames++;
+            if (quietFrames >= endFrames) {
+                active = false;
+                endSlice();
+                flush();
+            }
+        }
+        if (active) {
+            eventFrame++;
+            slice++;
+            if (slice >= sliceFrames) {
+                endSlice();
+                slice = 0;
+            }
+        }
+    }
+
+    /**
+     * Keep slice candidate if it is one of the best of the event.
+     */
+    private void endSlice() {
+        if (candidateScore <= 0.0) {
+            return;
+        }
+        if (best.size() < perEvent) {
+            best.add(new Snapshot(candidate, candidateScore, candidateFrame));
+            candidate = null;
+        } else if (!best.isEmpty() && candidateScore > best.peek().score) {
+            final var lowest = best.poll();
+            best.add(new Snapshot(candidate, candidateScore, candidateFrame));
+            // Reuse pushed out frame for the next slice
+            candidate = lowest.image;
+        }
+        candidateScore = 0.0;
+    }
+
+    /**
+     * Hand kept frames of the event to the pool in time order.
+     */
+    private void flush() {
+        final var snapshots = new ArrayList<>(best);
+        best.clear();
+        snapshots.sort(Comparator.comparingLong(s -> s.frame));
+        var taken = 0;
+        for (final var snapshot : snapshots) {
+            final var fileName = String.format("%s-%04d-%02d.jpg", filePrefix, event, taken++);
+            // Pool owns the Mat now
+            try {
+                executor.execute(() -> write(snapshot.image, fileName, snapshot.score));
+            } catch (RejectedExecutionException e) {
+                snapshot.image.release();
+                dropped++;
+            }
+        }
+    }
+
+    /**
+     * Encode and write JPEG. Runs on pool thread.
+     *
+     * @param image
+     *            Image to write. Released when done.
+     * @param fileName
+     *            File name.
+     * @param score
+     *            Frame score.
+     */
+    private void write(final Mat image, final String fileName, final double score) {
+        final var buffer = new MatOfByte();
+        try (final var out = new FileOutputStream(fileName)) {
+            if (Imgcodecs.imencode(".jpg", image, buffer, params)) {
+                out.write(buffer.toArray());
+                written.incrementAndGet();
+                logger.log(Level.FINE, String.format("Snapshot %s, score %4.2f", fileName, score));
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, String.format("Unable to write %s: %s", fileName, e.getMessage()));
+        } finally {
+            buffer.release();
+            image.release();
+        }
+    }
+
+    /**
+     * Flush the last candidate, wait for pending snapshots and free native
+     * memory.
+     */
+    public void close() {
+        if (active) {
+            endSlice();
+            flush();
+        }
+        if (candidate != null) {
+            candidate.release();
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        params.release();
+        logger.log(Level.INFO, String.format("%d events, %d snapshots written, %d dropped", event, written.get(),
+                dropped));
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+
+/**
+ * Raw decoded frames in a file, so a video is decoded once and repeated runs
+ * skip decode entirely. Readers memory map the file and every frame is a Mat
+ * over the mapping, so frames are never copied and come from the page cache
+ * at memory speed after the first run. The mapping is private (copy on
+ * write), so a detector that draws on a frame does not change the file.
+ *
+ * Layout: 64 byte header (magic, width, height, type, frame stride, frames and
+ * fps) followed by frames. Each frame is padded to 64 bytes. Frames are mapped
+ * in chunks under 2 GB, so caches of any length work. Frames is -1 until the
+ * writer closes the cache, so an interrupted build is never read.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class FrameCache implements AutoCloseable {
+    /**
+     * File signature and version.
+     */
+    private static final long MAGIC = 0x5241574652414d31L;
+    /**
+     * Header size.
+     */
+    private static final int HEADER_SIZE = 64;
+    /**
+     * File.
+     */
+    private final FileChannel channel;
+    /**
+     * Frame width.
+     */
+    private final int width;
+    /**
+     * Frame height.
+     */
+    private final int height;
+    /**
+     * Frame type.
+     */
+    private final int type;
+    /**
+     * Frame bytes without padding.
+     */
+    private final int dataSize;
+    /**
+     * Frame bytes with padding.
+     */
+    private final int stride;
+    /**
+     * Frames per second of source.
+     */
+    private final double fps;
+    /**
+     * Frames in cache.
+     */
+    private long frames;
+    /**
+     * Frames per mapped chunk.
+     */
+    private int chunkFrames;
+    /**
+     * Mapped chunks or null if writing.
+     */
+    private MappedByteBuffer[] chunks;
+    /**
+     * Frames wrapped as Mats, created on first use.
+     */
+    private Mat[] frameMats;
+    /**
+     * Direct buffer frames are copied to before writing or null if reading.
+     */
+    private ByteBuffer writeBuffer;
+    /**
+     * Mat over writeBuffer.
+     */
+    private Mat writeMat;
+
+    /**
+     * Create cache.
+     *
+     * @param channel
+     *            File.
+     * @param width
+     *            Frame width.
+     * @param height
+     *            Frame height.
+     * @param type
+     *            Frame type.
+     * @param fps
+     *            Frames per second of source.
+     */
+    private FrameCache(final FileChannel channel, final int width, final int height, final int type,
+            final double fps) {
+        this.channel = channel;
+        this.width = width;
+        this.height = height;
+        this.type = type;
+        this.fps = fps;
+        this.dataSize = width * height * CvType.ELEM_SIZE(type);
+        // Round up so every frame stays 64 byte aligned
+        this.stride = (dataSize + 63) / 64 * 64;
+    }
+
+    /**
+     * Create cache file for writing. An existing cache is replaced.
+     *
+     * @param fileName
+     *            Cache file.
+     * @param frameSize
+     *            Frame size, must not be empty.
+     * @param type
+     *            Frame type such as CvType.CV_8UC3.
+     * @param fps
+     *            Frames per second of source.
+     * @return Cache.
+     * @throws IOException
+     *             Possible exception.
+     */
+    public static FrameCache create(final String fileName, final Size frameSize, final int type, final double fps)
+            throws IOException {
+        // A capture that failed to open reports 0x0
+        if (frameSize.width <= 0 || frameSize.height <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid frame size %s", frameSize));
+        }
+        final var channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        final var cache = new FrameCache(channel, (int) frameSize.width, (int) frameSize.height, type, fps);
+        cache.writeBuffer = ByteBuffer.allocateDirect(cache.stride);
+        cache.writeMat = new Mat(cache.height, cache.width, type, cache.writeBuffer);
+        // Frame count is filled in by close
+        cache.writeHeader(-1);
+        // Positional header write leaves the channel at 0
+        channel.position(HEADER_SIZE);
+        return cache;
+    }
+
+    /**
+     * Open and map cache file for reading.
+     *
+     * @param fileName
+     *            Cache file.
+     * @return Cache.
+     * @throws IOException
+     *             Possible exception.
+     */
+    public static FrameCache open(final String fileName) throws IOException {
+        // Private mappings need a writable channel, the file itself is never written
+        final var channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        final var header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header) >= 0) {
+            // Read whole header
+        }
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getLong() != MAGIC) {
+            channel.close();
+            throw new IOException(String.format("%s is not a frame cache", fileName));
+        }
+        final var width = header.getInt();
+        final var height = header.getInt();
+        final var type = header.getInt();
+        final var stride = header.getInt();
+        final var frames = header.getLong();
+        if (width <= 0 || height <= 0 || stride <= 0) {
+            channel.close();
+            throw new IOException(String.format("%s has invalid frame size %dx%d stride %d", fileName, width, height,
+                    stride));
+        }
+        final var cache = new FrameCache(channel, width, height, type, header.getDouble());
+        if (frames < 0 || cache.stride != stride || HEADER_SIZE + frames * stride > channel.size()) {
+            channel.close();
+            throw new IOException(String.format("%s is truncated or was not closed", fileName));
+        }
+        cache.frames = frames;
+        cache.map();
+        return cache;
+    }
+
+    /**
+     * Write header at the start of the file without moving the channel
+     * position.
+     *
+     * @param frameCount
+     *            Frames in file or -1 while writing.
+     * @throws IOException
+     *             Possible exception.
+     */
+    private void writeHeader(final long frameCount) throws IOException {
+        final var header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putLong(MAGIC).putInt(width).putInt(height).putInt(type).putInt(stride).putLong(frameCount)
+                .putDouble(fps);
+        header.clear();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    /**
+     * Map frames in chunks of whole frames.
+     *
+     * @throws IOException
+     *             Possible exception.
+     */
+    private void map() throws IOException {
+        chunkFrames = (int) Math.max(1, Math.min(frames, Integer.MAX_VALUE / stride));
+        chunks = new MappedByteBuffer[(int) ((frames + chunkFrames - 1) / chunkFrames)];
+        for (int i = 0; i < chunks.length; i++) {
+            final var first = (long) i * chunkFrames;
+            final var count = Math.min(chunkFrames, frames - first);
+            chunks[i] = channel.map(FileChannel.MapMode.PRIVATE, HEADER_SIZE + first * stride, count * stride);
+        }
+        frameMats = new Mat[(int) frames];
+    }
+
+    /**
+     * Append frame.
+     *
+     * @param mat
+     *            Frame with the cache size and type.
+     * @throws IOException
+     *             Possible exception.
+     */
+    public void write(final Mat mat) throws IOException {
+        if (mat.cols() != width || mat.rows() != height || mat.type() != type) {
+            throw new IllegalArgumentException(String.format("Frame %dx%d type %d does not match cache", mat.cols(),
+                    mat.rows(), mat.type()));
+        }
+        // One native copy, then the channel writes straight from the buffer
+        mat.copyTo(writeMat);
+        writeBuffer.clear();
+        while (writeBuffer.hasRemaining()) {
+            channel.write(writeBuffer);
+        }
+        frames++;
+    }
+
+    /**
+     * Frame without copying. Treat as read only.
+     *
+     * @param index
+     *            Frame index.
+     * @return Mat over the mapping.
+     */
+    public Mat getFrame(final int index) {
+        var mat = frameMats[index];
+        if (mat == null) {
+            final var chunk = chunks[index / chunkFrames];
+            mat = new Mat(height, width, type, chunk.slice((index % chunkFrames) * stride, dataSize));
+            frameMats[index] = mat;
+        }
+        return mat;
+    }
+
+    /**
+     * Touch every page so the first pass is not measuring page faults.
+     */
+    public void load() {
+        for (final var chunk : chunks) {
+            chunk.load();
+        }
+    }
+
+    /**
+     * Frames in cache.
+     *
+     * @return Frames.
+     */
+    public int getFrameCount() {
+        return (int) frames;
+    }
+
+    /**
+     * Frame size.
+     *
+     * @return Frame size.
+     */
+    public Size getFrameSize() {
+        return new Size(width, height);
+    }
+
+    /**
+     * Frames per second of source.
+     *
+     * @return FPS.
+     */
+    public double getFps() {
+        return fps;
+    }
+
+    /**
+     * Bytes per frame.
+     *
+     * @return Bytes.
+     */
+    public int getFrameBytes() {
+        return dataSize;
+    }
+
+    /**
+     * Write frame count if writing, release frame Mats and close file. The
+     * mapping is freed when the cache is garbage collected.
+     *
+     * @throws IOException
+     *             Possible exception.
+     */
+    @Override
+    public void close() throws IOException {
+        if (writeMat != null) {
+            writeHeader(frames);
+            writeMat.release();
+        }
+        if (frameMats != null) {
+            for (final var mat : frameMats) {
+                if (mat != null) {
+                    mat.release();
+                }
+            }
+        }
+        channel.close();
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.opencv.core.Mat;
+
+/**
+ * Fixed pool of reference counted frames, so one decode can feed several
+ * analyzers. The decoder fills a free frame, sets the count to the number of
+ * holders and hands it out. Holders treat the Mat as read only (copy it before
+ * drawing) and call release when done. The last release returns the frame to
+ * the pool for the decoder to reuse, so frames are never allocated per
+ * decode.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class FramePool {
+
+    /**
+     * Reference counted frame.
+     */
+    static final class Frame {
+        /**
+         * Pool frame returns to.
+         */
+        private final FramePool pool;
+        /**
+         * Pixels. Read only while shared.
+         */
+        private final Mat mat = new Mat();
+        /**
+         * Holders.
+         */
+        private final AtomicInteger refs = new AtomicInteger();
+        /**
+         * Frame number.
+         */
+        private long number;
+
+        /**
+         * Create frame.
+         *
+         * @param pool
+         *            Pool frame returns to.
+         */
+        Frame(final FramePool pool) {
+            this.pool = pool;
+        }
+
+        /**
+         * Pixels. Do not modify while shared.
+         *
+         * @return Mat.
+         */
+        public Mat getMat() {
+            return mat;
+        }
+
+        /**
+         * Frame number.
+         *
+         * @return Frame number.
+         */
+        public long getNumber() {
+            return number;
+        }
+
+        /**
+         * Set number and holders before handing frame out.
+         *
+         * @param number
+         *            Frame number.
+         * @param holders
+         *            Holders that will call release.
+         */
+        public void share(final long number, final int holders) {
+            this.number = number;
+            refs.set(holders);
+        }
+
+        /**
+         * Release one hold. The last release returns frame to the pool.
+         */
+        public void release() {
+            final var remaining = refs.decrementAndGet();
+            if (remaining == 0) {
+                pool.free.add(this);
+            } else if (remaining < 0) {
+                throw new IllegalStateException(String.format("Frame %d released too many times", number));
+            }
+        }
+    }
+
+    /**
+     * Frames not held by anyone.
+     */
+    private final ArrayBlockingQueue<Frame> free;
+    /**
+     * All frames.
+     */
+    private final Frame[] frames;
+
+    /**
+     * Create pool.
+     *
+     * @param size
+     *            Frames in pool.
+     */
+    FramePool(final int size) {
+        free = new ArrayBlockingQueue<>(size);
+        frames = new Frame[size];
+        for (int i = 0; i < size; i++) {
+            frames[i] = new Frame(this);
+            free.add(frames[i]);
+        }
+    }
+
+    /**
+     * Take a free frame, waiting for a release if none are free.
+     *
+     * @return Frame the caller owns until it calls share.
+     * @throws InterruptedException
+     *             Possible exception.
+     */
+    public Frame acquire() throws InterruptedException {
+        return free.take();
+    }
+
+    /**
+     * Return frame that was acquired and never shared.
+     *
+     * @param frame
+     *            Frame.
+     */
+    public void giveBack(final Frame frame) {
+        free.add(frame);
+    }
+
+    /**
+     * Free native memory. Call after every holder is done.
+     */
+    public void release() {
+        for (final var frame : frames) {
+            frame.mat.release();
+        }
+    }
+}
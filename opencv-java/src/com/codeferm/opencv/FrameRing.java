@@ -0,0 +1,420 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+/**
+ * Memory mapped ring of fixed size frame slots shared between one writer
+ * process and any number of reader processes. Every slot is wrapped once as a
+ * Mat over the mapping, so readers process frames in place without copying.
+ *
+ * Each slot has a sequence number used as a seqlock: odd while the writer is
+ * filling it and 2 * frame + 2 when it holds frame. The writer never waits.
+ * A reader that falls more than slots - 1 frames behind skips to the newest
+ * frame and counts an overrun. Since frames are not copied, a reader should
+ * call isValid() after processing to make sure the slot was not overwritten
+ * while it was being used.
+ *
+ * A new ring is built in a temporary file and renamed over the old one, so
+ * readers that still map the old file keep valid pages instead of getting
+ * SIGBUS from a truncated file. Readers call isReplaced() while idle to find
+ * out a new writer started and open the ring again. Readers map the file read
+ * only, so slot Mats must not be written to.
+ *
+ * Layout: 128 byte header (magic, slots, width, height, type, slot size, fps,
+ * frames written, closed, generation) followed by slots. Each slot is a 64
+ * byte header holding the sequence number and the pixels. The whole ring must
+ * fit in one mapping, so it is limited to 2 GB.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class FrameRing {
+    /**
+     * Ordered access to longs in the mapping.
+     */
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.nativeOrder());
+    /**
+     * File signature and version.
+     */
+    private static final long MAGIC = 0x4652414d4552494eL;
+    /**
+     * Header size.
+     */
+    private static final int HEADER_SIZE = 128;
+    /**
+     * Slot header size. Keeps pixels 64 byte aligned.
+     */
+    private static final int SLOT_HEADER_SIZE = 64;
+    /**
+     * Offset of frames written.
+     */
+    private static final int WRITTEN = 56;
+    /**
+     * Offset of closed flag.
+     */
+    private static final int CLOSED = 64;
+    /**
+     * Offset of generation, which is different for every created ring.
+     */
+    private static final int GENERATION = 72;
+    /**
+     * Ring file.
+     */
+    private final Path path;
+    /**
+     * Mapping.
+     */
+    private final MappedByteBuffer buffer;
+    /**
+     * Generation of mapped ring.
+     */
+    private final long generation;
+    /**
+     * Number of slots.
+     */
+    private final int slots;
+    /**
+     * Frame width.
+     */
+    private final int width;
+    /**
+     * Frame height.
+     */
+    private final int height;
+    /**
+     * Frame type.
+     */
+    private final int type;
+    /**
+     * Bytes per slot including slot header.
+     */
+    private final int slotSize;
+    /**
+     * Frames per second of source.
+     */
+    private final double fps;
+    /**
+     * Slots wrapped as Mats.
+     */
+    private final Mat[] slotMats;
+    /**
+     * Next frame to read.
+     */
+    private long next;
+    /**
+     * Frame returned by last read.
+     */
+    private long current = -1;
+    /**
+     * Times reader fell behind.
+     */
+    private long overruns;
+    /**
+     * Frames skipped by reader.
+     */
+    private long skipped;
+
+    /**
+     * Map ring.
+     *
+     * @param path
+     *            Ring file.
+     * @param buffer
+     *            Mapping.
+     */
+    private FrameRing(final Path path, final MappedByteBuffer buffer) {
+        this.path = path;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || (long) LONGS.getAcquire(buffer, 0) != MAGIC) {
+            throw new IllegalArgumentException("Not a frame ring");
+        }
+        slots = (int) (long) LONGS.get(buffer, 8);
+        width = (int) (long) LONGS.get(buffer, 16);
+        height = (int) (long) LONGS.get(buffer, 24);
+        type = (int) (long) LONGS.get(buffer, 32);
+        slotSize = (int) (long) LONGS.get(buffer, 40);
+        fps = Double.longBitsToDouble((long) LONGS.get(buffer, 48));
+        generation = (long) LONGS.get(buffer, GENERATION);
+        final var dataSize = width * height * CvType.ELEM_SIZE(type);
+        if (slots < 1 || dataSize < 1 || slotSize < SLOT_HEADER_SIZE + dataSize
+                || buffer.capacity() < HEADER_SIZE + (long) slots * slotSize) {
+            throw new IllegalArgumentException("Frame ring header does not match file size");
+        }
+        slotMats = new Mat[slots];
+        for (int i = 0; i < slots; i++) {
+            slotMats[i] = new Mat(height, width, type, buffer.slice(dataOffset(i), dataSize));
+        }
+    }
+
+    /**
+     * Create ring file for writer. An existing ring is replaced atomically, so
+     * readers of the old ring are not affected.
+     *
+     * @param fileName
+     *            Ring file such as "/dev/shm/opencv-ring".
+     * @param slots
+     *            Number of slots.
+     * @param width
+     *            Frame width.
+     * @param height
+     *            Frame height.
+     * @param type
+     *            Frame type such as CvType.CV_8UC3.
+     * @param fps
+     *            Frames per second of source.
+     * @return Ring.
+     * @throws IOException
+     *             Possible exception.
+     */
+    public static FrameRing create(final String fileName, final int slots, final int width, final int height,
+            final int type, final double fps) throws IOException {
+        final var dataSize = (long) width * height * CvType.ELEM_SIZE(type);
+        // Round up so every slot header stays 64 byte aligned
+        final var slotSize = SLOT_HEADER_SIZE + (dataSize + 63) / 64 * 64;
+        final var size = HEADER_SIZE + slots * slotSize;
+        // Slot offsets are ints and one mapping is limited to 2 GB
+        if (slots < 1 || dataSize < 1 || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("%d slots of %dx%d type %d do not fit in 2 GB",
+                    slots, width, height, type));
+        }
+        final var path = Paths.get(fileName);
+        // Same directory, so the rename is atomic
+        final var tempPath = Paths.get(String.format("%s.%d.tmp", fileName, ProcessHandle.current().pid()));
+        Files.deleteIfExists(tempPath);
+        try (final var channel = FileChannel.open(tempPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            final var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            LONGS.set(buffer, 8, (long) slots);
+            LONGS.set(buffer, 16, (long) width);
+            LONGS.set(buffer, 24, (long) height);
+            LONGS.set(buffer, 32, (long) type);
+            LONGS.set(buffer, 40, slotSize);
+            LONGS.set(buffer, 48, Double.doubleToLongBits(fps));
+            LONGS.set(buffer, GENERATION, ThreadLocalRandom.current().nextLong());
+            // Readers only trust the header once magic is set
+            LONGS.setRelease(buffer, 0, MAGIC);
+            Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return new FrameRing(path, buffer);
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    /**
+     * Map existing ring read only for reader. Reading starts at the newest
+     * frame.
+     *
+     * @param fileName
+     *            Ring file.
+     * @return Ring.
+     * @throws IOException
+     *             Possible exception.
+     */
+    public static FrameRing open(final String fileName) throws IOException {
+        final var path = Paths.get(fileName);
+        try (final var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final var ring = new FrameRing(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            ring.next = Math.max(0, ring.written() - 1);
+            return ring;
+        }
+    }
+
+    /**
+     * Ring file was replaced by a new writer. Opens the file, so only call it
+     * while idle. Open the ring again to follow the new writer.
+     *
+     * @return True if the file now holds a different ring.
+     */
+    public boolean isReplaced() {
+        try (final var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final var header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.nativeOrder());
+            channel.read(header, 0);
+            // New ring is complete before it is renamed into place
+            return header.position() == HEADER_SIZE
+                    && (header.getLong(0) != MAGIC || header.getLong(GENERATION) != generation);
+        } catch (IOException e) {
+            // Missing file is not a new ring
+            return false;
+        }
+    }
+
+    /**
+     * Offset of slot header.
+     *
+     * @param slot
+     *            Slot.
+     * @return Offset.
+     */
+    private int slotOffset(final int slot) {
+        return HEADER_SIZE + slot * slotSize;
+    }
+
+    /**
+     * Offset of slot pixels.
+     *
+     * @param slot
+     *            Slot.
+     * @return Offset.
+     */
+    private int dataOffset(final int slot) {
+        return slotOffset(slot) + SLOT_HEADER_SIZE;
+    }
+
+    /**
+     * Frames written so far.
+     *
+     * @return Frames written.
+     */
+    public long written() {
+        return (long) LONGS.getAcquire(buffer, WRITTEN);
+    }
+
+    /**
+     * Writer has closed the ring.
+     *
+     * @return True if no more frames will be written.
+     */
+    public boolean isClosed() {
+        return (long) LONGS.getAcquire(buffer, CLOSED) != 0;
+    }
+
+    /**
+     * Frames per second of source.
+     *
+     * @return FPS.
+     */
+    public double getFps() {
+        return fps;
+    }
+
+    /**
+     * Times reader fell behind.
+     *
+     * @return Overruns.
+     */
+    public long getOverruns() {
+        return overruns;
+    }
+
+    /**
+     * Frames skipped by reader.
+     *
+     * @return Skipped frames.
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Start writing the next frame. Fill the returned Mat with copyTo and then
+     * call publish().
+     *
+     * @return Slot Mat for next frame.
+     */
+    public Mat beginWrite() {
+        final var frame = written();
+        final var slot = (int) (frame % slots);
+        // Odd sequence marks slot as being written
+        LONGS.setRelease(buffer, slotOffset(slot), 2 * frame + 1);
+        VarHandle.storeStoreFence();
+        return slotMats[slot];
+    }
+
+    /**
+     * Publish frame started by beginWrite().
+     */
+    public void publish() {
+        final var frame = written();
+        final var slot = (int) (frame % slots);
+        LONGS.setRelease(buffer, slotOffset(slot), 2 * frame + 2);
+        LONGS.setRelease(buffer, WRITTEN, frame + 1);
+    }
+
+    /**
+     * Mark ring closed, so readers stop.
+     */
+    public void closeWriter() {
+        LONGS.setRelease(buffer, CLOSED, 1L);
+    }
+
+    /**
+     * Next frame without copying. Skips ahead to the newest frame if the
+     * reader fell behind.
+     *
+     * @return Slot Mat or null if there is no new frame.
+     */
+    public Mat read() {
+        while (true) {
+            final var written = written();
+            if (next >= written) {
+                return null;
+            }
+            // Slot of written - slots could be being overwritten now
+            if (next <= written - slots) {
+                overruns++;
+                skipped += written - 1 - next;
+                next = written - 1;
+            }
+            final var slot = (int) (next % slots);
+            if ((long) LONGS.getAcquire(buffer, slotOffset(slot)) == 2 * next + 2) {
+                current = next++;
+                return slotMats[slot];
+            }
+            // Writer lapped us between checks
+            overruns++;
+            next = Math.max(next + 1, written() - 1);
+        }
+    }
+
+    /**
+     * Frame returned by last read was not overwritten. Call after processing.
+     *
+     * @return True if results for the frame can be trusted.
+     */
+    public boolean isValid() {
+        VarHandle.loadLoadFence();
+        return current >= 0
+                && (long) LONGS.getAcquire(buffer, slotOffset((int) (current % slots))) == 2 * current + 2;
+    }
+
+    /**
+     * Frame number returned by last read.
+     *
+     * @return Frame number.
+     */
+    public long getFrame() {
+        return current;
+    }
+
+    /**
+     * Release slot Mats. Mapping is freed when the ring is garbage collected.
+     */
+    public void release() {
+        for (final var mat : slotMats) {
+            mat.release();
+        }
+    }
+}
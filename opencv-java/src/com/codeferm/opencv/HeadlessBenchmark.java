@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.VideoWriter;
+import org.opencv.videoio.Videoio;
+
+/**
+ * Compare headless detection to the annotate and encode path for each
+ * detector. Both paths decode the same file, so the difference is the cost of
+ * drawing and VideoWriter.
+ *
+ * args[0] = detectors separated by "," or will default to
+ * "motion,resize,mog2,knn,people" if no args passed.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class HeadlessBenchmark {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = Logger.getLogger(HeadlessBenchmark.class.getName());
+    /* Load the OpenCV system library */
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    /**
+     * Suppress default constructor for noninstantiability.
+     */
+    private HeadlessBenchmark() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Run detector over source.
+     *
+     * @param name
+     *            Detector name.
+     * @param url
+     *            Source file.
+     * @param outputFile
+     *            Annotated output file or null for headless.
+     * @return Frames per second.
+     */
+    public static double run(final String name, final String url, final String outputFile) {
+        final var videoCapture = new VideoCapture();
+        videoCapture.open(url);
+        final var frameSize = new Size((int) videoCapture.get(Videoio.CAP_PROP_FRAME_WIDTH),
+                (int) videoCapture.get(Videoio.CAP_PROP_FRAME_HEIGHT));
+        final var detector = Detector.create(name, frameSize);
+        VideoWriter videoWriter = null;
+        LabelAtlas labelAtlas = null;
+        if (outputFile != null) {
+            labelAtlas = new LabelAtlas(Imgproc.FONT_HERSHEY_PLAIN, 1.5, new Scalar(255, 255, 255), 2);
+            videoWriter = new VideoWriter(outputFile, new FourCC("X264").toInt(),
+                    videoCapture.get(Videoio.CAP_PROP_FPS), frameSize, true);
+        }
+        final var mat = new Mat();
+        int frames = 0;
+        final var startTime = System.currentTimeMillis();
+        while (videoCapture.read(mat)) {
+            final var detection = detector.detect(mat);
+            if (videoWriter != null) {
+                detection.annotate(mat, labelAtlas);
+                videoWriter.write(mat);
+            }
+            frames++;
+        }
+        final var seconds = (System.currentTimeMillis() - startTime) / 1000.0;
+        // Free native memory
+        videoCapture.release();
+        if (videoWriter != null) {
+            videoWriter.release();
+            labelAtlas.release();
+        }
+        detector.release();
+        mat.release();
+        return frames / seconds;
+    }
+
+    /**
+     * Run each detector headless and annotated.
+     *
+     * args[0] = detectors separated by "," or will default to
+     * "motion,resize,mog2,knn,people" if no args passed.
+     *
+     * @param args
+     *            String array of arguments.
+     */
+    public static void main(final String... args) {
+        var names = String.join(",", Detector.NAMES);
+        if (args.length > 0) {
+            names = args[0];
+        }
+        // Custom logging properties via class loader
+        try {
+            LogManager.getLogManager().readConfiguration(
+                    HeadlessBenchmark.class.getClassLoader().getResourceAsStream("logging.properties"));
+        } catch (SecurityException | IOException e) {
+            e.printStackTrace();
+        }
+        logger.log(Level.INFO, String.format("OpenCV %s", Core.VERSION));
+        for (final var name : names.split(",")) {
+            final var url = HeadlessDetect.defaultUrl(name);
+            // Warm up JIT and OS file cache
+            run(name, url, null);
+            final var headlessFps = run(name, url, null);
+            final var annotatedFps = run(name, url, String.format("../output/headless-benchmark-%s-java.avi", name));
+            logger.log(Level.INFO, String.format("%s: headless %4.1f FPS, annotate and encode %4.1f FPS, %4.2fx",
+                    name, headlessFps, annotatedFps, headlessFps / annotatedFps));
+        }
+    }
+}
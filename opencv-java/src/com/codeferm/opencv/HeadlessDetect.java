@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.Videoio;
+
+/**
+ * Analytics only detection. Runs a Detector on every frame without drawing or
+ * encoding and writes one JSON object per frame (JSON lines). With a
+ * calibration dir the detector runs on raw frames and only the results are
+ * undistorted (UndistortDetector), which adds cx and cy centroids to each
+ * rectangle.
+ *
+ * args[0] = detector "motion", "resize", "mog2", "knn" or "people" or will
+ * default to "motion" if no args passed.
+ *
+ * args[1] = source file or will default to "../resources/traffic.mp4"
+ * ("../resources/walking.mp4" for people) if no args passed.
+ *
+ * args[2] = output file or will default to
+ * "../output/headless-[detector]-java.jsonl" if no args passed.
+ *
+ * args[3] = calibration dir such as "../output/" with camera-matrix.bin and
+ * dist-coefs.bin from CameraCalibration or will not undistort if no args
+ * passed.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class HeadlessDetect {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = Logger.getLogger(HeadlessDetect.class.getName());
+    /* Load the OpenCV system library */
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    /**
+     * Suppress default constructor for noninstantiability.
+     */
+    private HeadlessDetect() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Default source for detector.
+     *
+     * @param name
+     *            Detector name.
+     * @return Source file.
+     */
+    public static String defaultUrl(final String name) {
+        if ("people".equals(name)) {
+            return "../resources/walking.mp4";
+        }
+        return "../resources/traffic.mp4";
+    }
+
+    /**
+     * Run detector over source and write results.
+     *
+     * @param name
+     *            Detector name.
+     * @param url
+     *            Source file.
+     * @param out
+     *            JSON lines output.
+     * @return Frames processed.
+     * @throws IOException
+     *             Possible exception.
+     */
+    public static int run(final String name, final String url, final BufferedWriter out) throws IOException {
+        return run(name, url, out, null);
+    }
+
+    /**
+     * Run detector over source and write results.
+     *
+     * @param name
+     *            Detector name.
+     * @param url
+     *            Source file.
+     * @param out
+     *            JSON lines output.
+     * @param calibrationDir
+     *            Dir with camera-matrix.bin and dist-coefs.bin or null to not
+     *            undistort results.
+     * @return Frames processed.
+     * @throws IOException
+     *             Possible exception.
+     */
+    public static int run(final String name, final String url, final BufferedWriter out,
+            final String calibrationDir) throws IOException {
+        final var videoCapture = new VideoCapture();
+        videoCapture.open(url);
+        final var frameSize = new Size((int) videoCapture.get(Videoio.CAP_PROP_FRAME_WIDTH),
+                (int) videoCapture.get(Videoio.CAP_PROP_FRAME_HEIGHT));
+        logger.log(Level.INFO, String.format("Resolution: %s", frameSize));
+        final Detector detector;
+        if (calibrationDir == null) {
+            detector = Detector.create(name, frameSize);
+        } else {
+            final var calibrateArr = new CameraCalibration().loadCalibrate(
+                    String.format("%scamera-matrix.bin", calibrationDir),
+                    String.format("%sdist-coefs.bin", calibrationDir));
+            detector = new UndistortDetector(Detector.create(name, frameSize), calibrateArr[0], calibrateArr[1],
+                    frameSize);
+        }
+        final var mat = new Mat();
+        int frames = 0;
+        int framesDetected = 0;
+        while (videoCapture.read(mat)) {
+            final var detection = detector.detect(mat);
+            if (detection.isDetected()) {
+                framesDetected++;
+            }
+            out.write(detection.toJson(frames));
+            out.newLine();
+            frames++;
+        }
+        logger.log(Level.INFO, String.format("%d frames, %d frames with detections", frames, framesDetected));
+        // Free native memory
+        videoCapture.release();
+        detector.release();
+        mat.release();
+        return frames;
+    }
+
+    /**
+     * Detect and write JSON lines.
+     *
+     * args[0] = detector "motion", "resize", "mog2", "knn" or "people" or
+     * will default to "motion" if no args passed.
+     *
+     * args[1] = source file or will default to "../resources/traffic.mp4"
+     * ("../resources/walking.mp4" for people) if no args passed.
+     *
+     * args[2] = output file or will default to
+     * "../output/headless-[detector]-java.jsonl" if no args passed.
+     *
+     * args[3] = calibration dir with camera-matrix.bin and dist-coefs.bin from
+     * CameraCalibration or will not undistort if no args passed.
+     *
+     * @param args
+     *            String array of arguments.
+     */
+    public static void main(final String... args) {
+        var name = "motion";
+        if (args.length > 0) {
+            name = args[0];
+        }
+        var url = defaultUrl(name);
+        if (args.length > 1) {
+            url = args[1];
+        }
+        var outputFile = String.format("../output/headless-%s-java.jsonl", name);
+        if (args.length > 2) {
+            outputFile = args[2];
+        }
+        String calibrationDir = null;
+        if (args.length > 3) {
+            calibrationDir = args[3];
+        }
+        // Custom logging properties via class loader
+        try {
+            LogManager.getLogManager()
+                    .readConfiguration(HeadlessDetect.class.getClassLoader().getResourceAsStream("logging.properties"));
+        } catch (SecurityException | IOException e) {
+            e.printStackTrace();
+        }
+        logger.log(Level.INFO, String.format("OpenCV %s", Core.VERSION));
+        logger.log(Level.INFO, String.format("Detector: %s", name));
+        logger.log(Level.INFO, String.format("Input file: %s", url));
+        logger.log(Level.INFO, String.format("Output file: %s", outputFile));
+        if (calibrationDir != null) {
+            logger.log(Level.INFO, String.format("Calibration dir: %s", calibrationDir));
+        }
+        final var startTime = System.currentTimeMillis();
+        var frames = 0;
+        try (final var out = new BufferedWriter(new FileWriter(outputFile))) {
+            frames = run(name, url, out, calibrationDir);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, String.format("Unable to write %s: %s", outputFile, e.getMessage()));
+        }
+        final var estimatedTime = System.currentTimeMillis() - startTime;
+        final var seconds = (double) estimatedTime / 1000;
+        logger.log(Level.INFO, String.format("%4.1f FPS, elapsed time: %4.2f seconds", frames / seconds, seconds));
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+
+/**
+ * Detect on JPEG sources (MJPEG streams and image directories) decoded at
+ * reduced resolution. libjpeg-turbo can decode at 1/2, 1/4 or 1/8 scale for
+ * a fraction of the cost of a full decode and resize. The largest reduction
+ * that keeps the frame at least the analysis width is used, which is what
+ * MotionDetectResize resizes to anyway. Rectangles are scaled back to full
+ * resolution. A frame is decoded at full resolution only when it becomes an
+ * event snapshot candidate.
+ *
+ * args[0] = directory of .jpg files, MJPEG URL or raw MJPEG file or will
+ * default to "../resources" if no args passed.
+ *
+ * args[1] = detector name or will default to "motion" if no args passed.
+ *
+ * args[2] = analysis width or will default to "480" if no args passed.
+ *
+ * args[3] = snapshots per event or will default to "3" if no args passed. 0
+ * disables snapshots.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class JpegDetect {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = Logger.getLogger(JpegDetect.class.getName());
+    /* Load the OpenCV system library */
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    /**
+     * Suppress default constructor for noninstantiability.
+     */
+    private JpegDetect() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Detect on reduced resolution decodes.
+     *
+     * args[0] = directory of .jpg files, MJPEG URL or raw MJPEG file or will
+     * default to "../resources" if no args passed.
+     *
+     * args[1] = detector name or will default to "motion" if no args passed.
+     *
+     * args[2] = analysis width or will default to "480" if no args passed.
+     *
+     * args[3] = snapshots per event or will default to "3" if no args passed.
+     *
+     * @param args
+     *            String array of arguments.
+     */
+    public static void main(final String... args) {
+        var source = "../resources";
+        var name = "motion";
+        var analysisWidth = 480;
+        var snapshotsPerEvent = 3;
+        if (args.length > 0) {
+            source = args[0];
+        }
+        if (args.length > 1) {
+            name = args[1];
+        }
+        if (args.length > 2) {
+            analysisWidth = Integer.parseInt(args[2]);
+        }
+        if (args.length > 3) {
+            snapshotsPerEvent = Integer.parseInt(args[3]);
+        }
+        // Custom logging properties via class loader
+        try {
+            LogManager.getLogManager()
+                    .readConfiguration(JpegDetect.class.getClassLoader().getResourceAsStream("logging.properties"));
+        } catch (SecurityException | IOException e) {
+            e.printStackTrace();
+        }
+        logger.log(Level.INFO, String.format("OpenCV %s", Core.VERSION));
+        logger.log(Level.INFO, String.format("Input: %s, detector: %s, analysis width: %d", source, name,
+                analysisWidth));
+        final JpegSource jpegSource;
+        try {
+            jpegSource = JpegSource.open(source);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, String.format("Unable to open %s: %s", source, e.getMessage()));
+            return;
+        }
+        final var eventSnapshots = snapshotsPerEvent > 0
+                ? new EventSnapshots("../output/jpeg-detect-java", snapshotsPerEvent, 30, 30, 2, 90)
+                : null;
+        Detector detector = null;
+        Mat mat = null;
+        var flags = Imgcodecs.IMREAD_COLOR;
+        var scaleX = 1.0;
+        var scaleY = 1.0;
+        var frames = 0;
+        var framesDetected = 0;
+        // Counted inside the snapshot callback
+        final var fullDecodes = new AtomicInteger();
+        var sizeChanges = 0;
+        var decodeTime = 0L;
+        final var startTime = System.currentTimeMillis();
+        try {
+            while (jpegSource.next()) {
+                final var fullSize = jpegSource.getSize();
+                if (fullSize == null) {
+                    continue;
+                }
+                if (detector == null) {
+                    final var reduction = JpegSource.reduction((int) fullSize.width, analysisWidth);
+                    flags = JpegSource.flags(reduction);
+                    logger.log(Level.INFO, String.format("Resolution: %s, reduction: 1/%d", fullSize, reduction));
+                }
+                final var decodeStart = System.nanoTime();
+                final var reduced = jpegSource.decode(flags);
+                decodeTime += System.nanoTime() - decodeStart;
+                if (reduced.empty()) {
+                    reduced.release();
+                    continue;
+                }
+                // Reduced decodes round up, so scale from the decoded size
+                if (detector == null) {
+                    detector = Detector.create(name, reduced.size());
+                    scaleX = fullSize.width / reduced.cols();
+                    scaleY = fullSize.height / reduced.rows();
+                    mat = reduced;
+                } else if (reduced.cols() != mat.cols() || reduced.rows() != mat.rows()) {
+                    // Detector state is for one resolution
+                    sizeChanges++;
+                    reduced.release();
+                    continue;
+                } else {
+                    mat.release();
+                    mat = reduced;
+                }
+                final var detection = ScaledDetector.scale(detector.detect(mat), scaleX, scaleY);
+                if (detection.isDetected()) {
+                    framesDetected++;
+                }
+                if (eventSnapshots != null) {
+                    eventSnapshots.offer(candidate -> {
+                        final var full = jpegSource.decode(Imgcodecs.IMREAD_COLOR);
+                        full.copyTo(candidate);
+                        full.release();
+                        fullDecodes.incrementAndGet();
+                    }, detection.score());
+                }
+                frames++;
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, String.format("Read failed: %s", e.getMessage()));
+        }
+        final var estimatedTime = System.currentTimeMillis() - startTime;
+        final var seconds = (double) estimatedTime / 1000;
+        logger.log(Level.INFO, String.format("%d frames, %d with detections, %d skipped for size change", frames,
+                framesDetected, sizeChanges));
+        if (frames > 0) {
+            logger.log(Level.INFO, String.format("Reduced decode %6.2f ms mean, %d full decodes",
+                    decodeTime / 1000000.0 / frames, fullDecodes.get()));
+        }
+        logger.log(Level.INFO, String.format("%4.1f FPS, elapsed time: %4.2f seconds", frames / seconds, seconds));
+        // Release native memory
+        if (eventSnapshots != null) {
+            eventSnapshots.close();
+        }
+        if (detector != null) {
+            detector.release();
+        }
+        if (mat != null) {
+            mat.release();
+        }
+        try {
+            jpegSource.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, String.format("Close failed: %s", e.getMessage()));
+        }
+    }
+}
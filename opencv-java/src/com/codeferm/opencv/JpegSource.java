@@ -0,0 +1,385 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgcodecs.Imgcodecs;
+
+/**
+ * Compressed JPEG frames from a directory of images, an MJPEG stream over HTTP
+ * or a raw MJPEG file. Frames are kept compressed until decode is called, so
+ * analysis can decode with IMREAD_REDUCED_COLOR_2, 4 or 8 and let libjpeg-turbo
+ * skip most of the IDCT work. The same compressed frame can then be decoded at
+ * full resolution only when it is recorded or snapshotted.
+ *
+ * Streams are split on JPEG markers instead of multipart headers, so any
+ * boundary or missing Content-Length works. Segments are skipped by length, so
+ * EXIF thumbnails do not end a frame early.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class JpegSource {
+    /**
+     * Reductions libjpeg can decode directly, largest first.
+     */
+    private static final int[] REDUCTIONS = { 8, 4, 2 };
+    /**
+     * Stream or null for a directory.
+     */
+    private final InputStream in;
+    /**
+     * Image files or null for a stream.
+     */
+    private final List<Path> files;
+    /**
+     * Stream read buffer.
+     */
+    private final byte[] readBuffer = new byte[65536];
+    /**
+     * Next byte in read buffer.
+     */
+    private int readPos;
+    /**
+     * Bytes in read buffer.
+     */
+    private int readLimit;
+    /**
+     * Next file.
+     */
+    private int fileIndex;
+    /**
+     * Current compressed frame.
+     */
+    private byte[] data = new byte[1 << 20];
+    /**
+     * Bytes in current frame.
+     */
+    private int length;
+    /**
+     * Current frame in native memory for imdecode.
+     */
+    private final Mat buffer = new Mat();
+
+    /**
+     * Create source.
+     *
+     * @param in
+     *            Stream or null.
+     * @param files
+     *            Files or null.
+     */
+    private JpegSource(final InputStream in, final List<Path> files) {
+        this.in = in;
+        this.files = files;
+    }
+
+    /**
+     * Open source.
+     *
+     * @param source
+     *            Directory of .jpg files, http(s) MJPEG URL or raw MJPEG file.
+     * @return JPEG source.
+     * @throws IOException
+     *             Possible exception.
+     */
+    public static JpegSource open(final String source) throws IOException {
+        final var path = Paths.get(source);
+        if (Files.isDirectory(path)) {
+            try (final var stream = Files.list(path)) {
+                return new JpegSource(null, stream.filter(file -> {
+                    final var name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+                    return name.endsWith(".jpg") || name.endsWith(".jpeg");
+                }).sorted().collect(Collectors.toList()));
+            }
+        }
+        if (source.startsWith("http://") || source.startsWith("https://")) {
+            return new JpegSource(URI.create(source).toURL().openStream(), null);
+        }
+        return new JpegSource(Files.newInputStream(path), null);
+    }
+
+    /**
+     * Largest reduction that keeps the decoded width at least the analysis
+     * width.
+     *
+     * @param width
+     *            Full resolution width.
+     * @param analysisWidth
+     *            Smallest width analysis needs such as 480.
+     * @return 8, 4, 2 or 1.
+     */
+    public static int reduction(final int width, final int analysisWidth) {
+        for (final var reduction : REDUCTIONS) {
+            if (width / reduction >= analysisWidth) {
+                return reduction;
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * imdecode flags for color decode at a reduction.
+     *
+     * @param reduction
+     *            8, 4, 2 or 1.
+     * @return Flags.
+     */
+    public static int flags(final int reduction) {
+        switch (reduction) {
+        case 8:
+            return Imgcodecs.IMREAD_REDUCED_COLOR_8;
+        case 4:
+            return Imgcodecs.IMREAD_REDUCED_COLOR_4;
+        case 2:
+            return Imgcodecs.IMREAD_REDUCED_COLOR_2;
+        default:
+            return Imgcodecs.IMREAD_COLOR;
+        }
+    }
+
+    /**
+     * Read next compressed frame.
+     *
+     * @return True if there is a frame.
+     * @throws IOException
+     *             Possible exception.
+     */
+    public boolean next() throws IOException {
+        if (files != null) {
+            if (fileIndex == files.size()) {
+                return false;
+            }
+            data = Files.readAllBytes(files.get(fileIndex++));
+            length = data.length;
+            return true;
+        }
+        try {
+            // Skip partial or corrupt frames until a whole one is read
+            while (true) {
+                findStart();
+                if (readFrame()) {
+                    return true;
+                }
+            }
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Next stream byte.
+     *
+     * @return 0 to 255.
+     * @throws IOException
+     *             EOFException at end of stream.
+     */
+    private int read() throws IOException {
+        if (readPos == readLimit) {
+            readLimit = in.read(readBuffer);
+            readPos = 0;
+            if (readLimit <= 0) {
+                readLimit = 0;
+                throw new EOFException();
+            }
+        }
+        return readBuffer[readPos++] & 0xff;
+    }
+
+    /**
+     * Append byte to current frame.
+     *
+     * @param b
+     *            Byte.
+     */
+    private void append(final int b) {
+        if (length == data.length) {
+            data = Arrays.copyOf(data, length * 2);
+        }
+        data[length++] = (byte) b;
+    }
+
+    /**
+     * Read and append next byte.
+     *
+     * @return Byte.
+     * @throws IOException
+     *             Possible exception.
+     */
+    private int copy() throws IOException {
+        final var b = read();
+        append(b);
+        return b;
+    }
+
+    /**
+     * Skip to start of image marker and start a new frame with it.
+     *
+     * @throws IOException
+     *             Possible exception.
+     */
+    private void findStart() throws IOException {
+        var last = 0;
+        var b = read();
+        while (last != 0xff || b != 0xd8) {
+            last = b;
+            b = read();
+        }
+        length = 0;
+        append(0xff);
+        append(0xd8);
+    }
+
+    /**
+     * Copy marker following the current position, including fill bytes.
+     *
+     * @return Marker or -1 if there is no marker here.
+     * @throws IOException
+     *             Possible exception.
+     */
+    private int copyMarker() throws IOException {
+        if (copy() != 0xff) {
+            return -1;
+        }
+        var marker = copy();
+        while (marker == 0xff) {
+            marker = copy();
+        }
+        return marker;
+    }
+
+    /**
+     * Copy entropy coded data up to the next marker.
+     *
+     * @return Marker that ended the scan.
+     * @throws IOException
+     *             Possible exception.
+     */
+    private int copyScan() throws IOException {
+        while (true) {
+            if (copy() == 0xff) {
+                var marker = copy();
+                while (marker == 0xff) {
+                    marker = copy();
+                }
+                // Stuffed zero and restart markers are part of the scan
+                if (marker != 0x00 && (marker < 0xd0 || marker > 0xd7)) {
+                    return marker;
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy segments after start of image up to end of image.
+     *
+     * @return True if frame is complete, false if it is corrupt.
+     * @throws IOException
+     *             Possible exception.
+     */
+    private boolean readFrame() throws IOException {
+        var marker = copyMarker();
+        while (true) {
+            if (marker < 0 || marker == 0xd8) {
+                return false;
+            }
+            if (marker == 0xd9) {
+                return true;
+            }
+            final var segmentLength = (copy() << 8 | copy()) - 2;
+            if (segmentLength < 0) {
+                return false;
+            }
+            for (int i = 0; i < segmentLength; i++) {
+                copy();
+            }
+            // Progressive images have several scans
+            marker = marker == 0xda ? copyScan() : copyMarker();
+        }
+    }
+
+    /**
+     * Full resolution size from the frame header without decoding.
+     *
+     * @return Size or null if there is no frame header.
+     */
+    public Size getSize() {
+        var pos = 2;
+        while (pos + 9 < length) {
+            if ((data[pos] & 0xff) != 0xff) {
+                return null;
+            }
+            final var marker = data[pos + 1] & 0xff;
+            // Start of frame markers except DHT, JPG and DAC
+            if (marker >= 0xc0 && marker <= 0xcf && marker != 0xc4 && marker != 0xc8 && marker != 0xcc) {
+                return new Size((data[pos + 7] & 0xff) << 8 | data[pos + 8] & 0xff,
+                        (data[pos + 5] & 0xff) << 8 | data[pos + 6] & 0xff);
+            }
+            if (marker == 0xff) {
+                pos++;
+            } else {
+                pos += 2 + ((data[pos + 2] & 0xff) << 8 | data[pos + 3] & 0xff);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compressed size of current frame.
+     *
+     * @return Bytes.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Decode current frame.
+     *
+     * @param flags
+     *            imdecode flags such as flags(reduction(width, 480)).
+     * @return Decoded frame. Caller must release.
+     */
+    public Mat decode(final int flags) {
+        if (buffer.cols() < length) {
+            buffer.create(1, Math.max(length, data.length), CvType.CV_8UC1);
+        }
+        buffer.put(0, 0, data, 0, length);
+        final var frame = buffer.colRange(0, length);
+        final var mat = Imgcodecs.imdecode(frame, flags);
+        frame.release();
+        return mat;
+    }
+
+    /**
+     * Close stream and free native memory.
+     *
+     * @throws IOException
+     *             Possible exception.
+     */
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+        }
+        buffer.release();
+    }
+}
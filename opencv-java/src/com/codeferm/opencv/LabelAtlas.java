@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Number labels without per frame putText. The glyphs "0123456789.-" are
+ * rendered once with putText into a small atlas Mat and a mask of the
+ * anti-aliased pixels. Labels are drawn by copying each glyph through its mask
+ * into the frame ROI. Numbers are formatted into a reused buffer, so drawing a
+ * label does not create Strings.
+ *
+ * Hershey fonts have no kerning, so placing glyphs by their advance matches
+ * putText of the whole string. Advances are scaled by the font scale and are
+ * usually fractional, so they are kept as doubles and the pen position is
+ * rounded per glyph like putText's fixed point pen. Edge pixels keep the anti-aliased color over
+ * black instead of being blended with the frame. One instance per thread.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class LabelAtlas {
+    /**
+     * Glyphs in atlas order.
+     */
+    private static final String GLYPHS = "0123456789.-";
+    /**
+     * Index of '.' glyph.
+     */
+    private static final int DOT = 10;
+    /**
+     * Index of '-' glyph.
+     */
+    private static final int MINUS = 11;
+    /**
+     * Glyphs in a row measured for the advance. getTextSize rounds the total,
+     * so a long run gives the fractional advance.
+     */
+    private static final int ADVANCE_RUN = 1000;
+    /**
+     * Colored glyphs on black.
+     */
+    private final Mat atlas;
+    /**
+     * Glyph pixels touched by putText.
+     */
+    private final Mat mask;
+    /**
+     * Colored glyph cells.
+     */
+    private final Mat[] glyphs = new Mat[GLYPHS.length()];
+    /**
+     * Mask glyph cells.
+     */
+    private final Mat[] glyphMasks = new Mat[GLYPHS.length()];
+    /**
+     * Glyph advance in pixels.
+     */
+    private final double[] advance = new double[GLYPHS.length()];
+    /**
+     * Cell width.
+     */
+    private final int cellWidth;
+    /**
+     * Cell height.
+     */
+    private final int cellHeight;
+    /**
+     * Cell padding around glyph for thickness and anti-aliasing.
+     */
+    private final int pad;
+    /**
+     * Text height above baseline.
+     */
+    private final int textHeight;
+    /**
+     * Glyph indexes of the label being drawn.
+     */
+    private final int[] label = new int[24];
+
+    /**
+     * Render glyphs with the same arguments putText would use.
+     *
+     * @param fontFace
+     *            Font face such as Imgproc.FONT_HERSHEY_PLAIN.
+     * @param fontScale
+     *            Font scale.
+     * @param color
+     *            Text color.
+     * @param thickness
+     *            Line thickness.
+     */
+    LabelAtlas(final int fontFace, final double fontScale, final Scalar color, final int thickness) {
+        final var baseLine = new int[1];
+        var maxWidth = 0;
+        var maxHeight = 0;
+        var maxBaseLine = 0;
+        for (int i = 0; i < advance.length; i++) {
+            final var glyph = GLYPHS.substring(i, i + 1);
+            final var size = Imgproc.getTextSize(glyph, fontFace, fontScale, thickness, baseLine);
+            // Width difference of two prefixes is the sum of advances between them
+            final var run = Imgproc.getTextSize(glyph.repeat(ADVANCE_RUN + 1), fontFace, fontScale, thickness,
+                    baseLine);
+            advance[i] = (run.width - size.width) / ADVANCE_RUN;
+            maxWidth = Math.max(maxWidth, (int) size.width);
+            maxHeight = Math.max(maxHeight, (int) size.height);
+            maxBaseLine = Math.max(maxBaseLine, baseLine[0]);
+        }
+        pad = thickness + 2;
+        textHeight = maxHeight;
+        cellWidth = maxWidth + pad * 2;
+        cellHeight = maxHeight + maxBaseLine + pad * 2;
+        atlas = new Mat(cellHeight, cellWidth * advance.length, CvType.CV_8UC3, new Scalar(0, 0, 0));
+        mask = new Mat(cellHeight, cellWidth * advance.length, CvType.CV_8UC1, new Scalar(0));
+        final var white = new Scalar(255);
+        final var origin = new Point();
+        for (int i = 0; i < advance.length; i++) {
+            final var glyph = GLYPHS.substring(i, i + 1);
+            origin.x = i * cellWidth + pad;
+            origin.y = pad + textHeight;
+            Imgproc.putText(atlas, glyph, origin, fontFace, fontScale, color, thickness, Imgproc.LINE_AA, false);
+            Imgproc.putText(mask, glyph, origin, fontFace, fontScale, white, thickness, Imgproc.LINE_AA, false);
+            glyphs[i] = atlas.submat(0, cellHeight, i * cellWidth, (i + 1) * cellWidth);
+            glyphMasks[i] = mask.submat(0, cellHeight, i * cellWidth, (i + 1) * cellWidth);
+        }
+        // Any pixel putText touched is copied
+        Imgproc.threshold(mask, mask, 0, 255, Imgproc.THRESH_BINARY);
+    }
+
+    /**
+     * Copy glyph into frame clipping to frame bounds.
+     *
+     * @param frame
+     *            Frame to draw on.
+     * @param glyph
+     *            Glyph index.
+     * @param left
+     *            Cell left in frame.
+     * @param top
+     *            Cell top in frame.
+     */
+    private void blit(final Mat frame, final int glyph, final int left, final int top) {
+        final var x0 = Math.max(left, 0);
+        final var y0 = Math.max(top, 0);
+        final var x1 = Math.min(left + cellWidth, frame.cols());
+        final var y1 = Math.min(top + cellHeight, frame.rows());
+        if (x0 >= x1 || y0 >= y1) {
+            return;
+        }
+        final var roi = frame.submat(y0, y1, x0, x1);
+        if (x1 - x0 == cellWidth && y1 - y0 == cellHeight) {
+            glyphs[glyph].copyTo(roi, glyphMasks[glyph]);
+        } else {
+            // Partly outside frame
+            final var glyphRoi = glyphs[glyph].submat(y0 - top, y1 - top, x0 - left, x1 - left);
+            final var maskRoi = glyphMasks[glyph].submat(y0 - top, y1 - top, x0 - left, x1 - left);
+            glyphRoi.copyTo(roi, maskRoi);
+            glyphRoi.release();
+            maskRoi.release();
+        }
+        roi.release();
+    }
+
+    /**
+     * Draw number with two decimals like putText of String.format("%1.2f",
+     * value).
+     *
+     * @param frame
+     *            BGR frame to draw on.
+     * @param value
+     *            Value to draw.
+     * @param x
+     *            Bottom left x of text like putText org.
+     * @param y
+     *            Bottom left y of text like putText org.
+     */
+    public void drawNumber(final Mat frame, final double value, final int x, final int y) {
+        var scaled = Math.round(Math.abs(value) * 100.0);
+        var length = 0;
+        if (value < 0.0 && scaled != 0) {
+            label[length++] = MINUS;
+        }
+        label[length++] = (int) (scaled % 10);
+        scaled /= 10;
+        label[length++] = (int) (scaled % 10);
+        scaled /= 10;
+        label[length++] = DOT;
+        do {
+            label[length++] = (int) (scaled % 10);
+            scaled /= 10;
+        } while (scaled > 0 && length < label.length);
+        // Digits were added least significant first, so fix order after sign
+        final var start = label[0] == MINUS ? 1 : 0;
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            final var temp = label[i];
+            label[i] = label[j];
+            label[j] = temp;
+        }
+        var penX = (double) x;
+        final var top = y - textHeight - pad;
+        for (int i = 0; i < length; i++) {
+            blit(frame, label[i], (int) Math.round(penX) - pad, top);
+            penX += advance[label[i]];
+        }
+    }
+
+    /**
+     * Free native memory.
+     */
+    public void release() {
+        for (int i = 0; i < glyphs.length; i++) {
+            glyphs[i].release();
+            glyphMasks[i].release();
+        }
+        atlas.release();
+        mask.release();
+    }
+}
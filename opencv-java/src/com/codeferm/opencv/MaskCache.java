@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+
+/**
+ * Run length encoded file of binary foreground masks, one per frame. Masks
+ * cover the detection mask roi. Each frame is a run count followed by
+ * alternating runs of 0 and 255 pixels (starting with 0) in row major order.
+ * Counts and runs are variable length integers, so a mostly empty mask takes a
+ * few bytes.
+ *
+ * Header: magic, frame width, frame height and roi x, y, width and height.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class MaskCache implements AutoCloseable {
+    /**
+     * File signature and version.
+     */
+    private static final int MAGIC = 0x524c4531;
+    /**
+     * Output or null if reading.
+     */
+    private final DataOutputStream out;
+    /**
+     * Input or null if writing.
+     */
+    private final DataInputStream in;
+    /**
+     * Frame size.
+     */
+    private final Size frameSize;
+    /**
+     * Detection mask roi.
+     */
+    private final Rect roi;
+    /**
+     * Reused mask pixels.
+     */
+    private final byte[] pixels;
+    /**
+     * Reused runs.
+     */
+    private int[] runs = new int[1024];
+    /**
+     * Bytes written or read after header.
+     */
+    private long bytes;
+
+    /**
+     * Create cache.
+     *
+     * @param out
+     *            Output or null.
+     * @param in
+     *            Input or null.
+     * @param frameSize
+     *            Frame size.
+     * @param roi
+     *            Detection mask roi.
+     */
+    private MaskCache(final DataOutputStream out, final DataInputStream in, final Size frameSize,
+            final Rect roi) {
+        this.out = out;
+        this.in = in;
+        this.frameSize = frameSize;
+        this.roi = roi;
+        this.pixels = new byte[roi.width * roi.height];
+    }
+
+    /**
+     * Create cache file for writing.
+     *
+     * @param fileName
+     *            Cache file.
+     * @param frameSize
+     *            Frame size.
+     * @param roi
+     *            Detection mask roi.
+     * @return Cache.
+     * @throws IOException
+     *             Possible exception.
+     */
+    public static MaskCache create(final String fileName, final Size frameSize, final Rect roi) throws IOException {
+        final var out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt((int) frameSize.width);
+        out.writeInt((int) frameSize.height);
+        out.writeInt(roi.x);
+        out.writeInt(roi.y);
+        out.writeInt(roi.width);
+        out.writeInt(roi.height);
+        return new MaskCache(out, null, frameSize, roi);
+    }
+
+    /**
+     * Open cache file for reading.
+     *
+     * @param fileName
+     *            Cache file.
+     * @return Cache.
+     * @throws IOException
+     *             Possible exception.
+     */
+    public static MaskCache open(final String fileName) throws IOException {
+        final var in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName), 1 << 16));
+        if (in.readInt() != MAGIC) {
+            in.close();
+            throw new IOException(String.format("%s is not a mask cache", fileName));
+        }
+        final var frameSize = new Size(in.readInt(), in.readInt());
+        final var roi = new Rect(in.readInt(), in.readInt(), in.readInt(), in.readInt());
+        return new MaskCache(null, in, frameSize, roi);
+    }
+
+    /**
+     * Frame size.
+     *
+     * @return Frame size.
+     */
+    public Size getFrameSize() {
+        return frameSize;
+    }
+
+    /**
+     * Detection mask roi.
+     *
+     * @return Roi.
+     */
+    public Rect getRoi() {
+        return roi;
+    }
+
+    /**
+     * Bytes written or read after header.
+     *
+     * @return Bytes.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Write variable length integer.
+     *
+     * @param value
+     *            Value 0 or more.
+     * @throws IOException
+     *             Possible exception.
+     */
+    private void writeVarInt(final int value) throws IOException {
+        var remaining = value;
+        while ((remaining & ~0x7f) != 0) {
+            out.write(remaining & 0x7f | 0x80);
+            remaining >>>= 7;
+            bytes++;
+        }
+        out.write(remaining);
+        bytes++;
+    }
+
+    /**
+     * Read variable length integer.
+     *
+     * @return Value.
+     * @throws IOException
+     *             Possible exception.
+     */
+    private int readVarInt() throws IOException {
+        var value = 0;
+        var shift = 0;
+        while (true) {
+            final var b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            bytes++;
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+
+    /**
+     * Append mask.
+     *
+     * @param mask
+     *            Binary CV_8UC1 mask of roi.
+     * @throws IOException
+     *             Possible exception.
+     */
+    public void write(final Mat mask) throws IOException {
+        // One JNI call for the whole mask
+        mask.get(0, 0, pixels);
+        var count = 0;
+        var set = false;
+        var start = 0;
+        for (int i = 0; i < pixels.length; i++) {
+            if (pixels[i] != 0 != set) {
+                if (count == runs.length) {
+                    runs = Arrays.copyOf(runs, count * 2);
+                }
+                runs[count++] = i - start;
+                start = i;
+                set = !set;
+            }
+        }
+        if (count == runs.length) {
+            runs = Arrays.copyOf(runs, count + 1);
+        }
+        runs[count++] = pixels.length - start;
+        writeVarInt(count);
+        for (int i = 0; i < count; i++) {
+            writeVarInt(runs[i]);
+        }
+    }
+
+    /**
+     * Read next mask.
+     *
+     * @param mask
+     *            Receives binary CV_8UC1 mask of roi.
+     * @return Nonzero pixels or -1 at end of file.
+     * @throws IOException
+     *             Possible exception.
+     */
+    public int read(final Mat mask) throws IOException {
+        final int count;
+        try {
+            count = readVarInt();
+        } catch (EOFException e) {
+            return -1;
+        }
+        var position = 0;
+        var nonZero = 0;
+        for (int i = 0; i < count; i++) {
+            final var run = readVarInt();
+            if (position + run > pixels.length) {
+                throw new IOException("Corrupt mask cache");
+            }
+            Arrays.fill(pixels, position, position + run, (byte) (i % 2 == 0 ? 0 : 255));
+            if (i % 2 == 1) {
+                nonZero += run;
+            }
+            position += run;
+        }
+        mask.create(roi.height, roi.width, CvType.CV_8UC1);
+        mask.put(0, 0, pixels);
+        return nonZero;
+    }
+
+    /**
+     * Close file.
+     *
+     * @throws IOException
+     *             Possible exception.
+     */
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+        }
+        if (in != null) {
+            in.close();
+        }
+    }
+}
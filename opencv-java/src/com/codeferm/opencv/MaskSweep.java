@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.Videoio;
+
+/**
+ * Sweep MotionDetect contour and trigger parameters without decoding the video
+ * for every trial. The first run decodes the video once and caches each
+ * frame's thresholded foreground mask with MaskCache. Later runs replay the
+ * cached masks through contours and triggering for every combination of
+ * trigger percent, dilate iterations and erode iterations. Contours are found
+ * once per dilate and erode pair and shared by every trigger percent.
+ *
+ * The moving average, its 25% reset and the binary threshold shape the masks,
+ * so they are fixed when the cache is recorded. Delete the cache to record it
+ * again after changing them.
+ *
+ * args[0] = source file or will default to "../resources/traffic.mp4" if no
+ * args passed.
+ *
+ * args[1] = mask cache file or will default to
+ * "../output/traffic-masks-java.rle" if no args passed. Recorded if missing.
+ *
+ * args[2] = trigger percents separated by "," or will default to
+ * "0.5,0.75,1.0,2.0" if no args passed.
+ *
+ * args[3] = dilate iterations separated by "," or will default to "10,15,20"
+ * if no args passed.
+ *
+ * args[4] = erode iterations separated by "," or will default to "5,10" if no
+ * args passed.
+ *
+ * args[5] = mask file or will default to no mask if no args passed.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class MaskSweep {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = Logger.getLogger(MaskSweep.class.getName());
+    /* Load the OpenCV system library */
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    /**
+     * Results of one trigger percent with one dilate and erode pair.
+     */
+    static final class Trial {
+        /**
+         * Motion percent that triggers detection.
+         */
+        private final double triggerPercent;
+        /**
+         * Dilate iterations.
+         */
+        private final int dilateIterations;
+        /**
+         * Erode iterations.
+         */
+        private final int erodeIterations;
+        /**
+         * Frames with detections.
+         */
+        private int framesDetected;
+        /**
+         * Runs of frames with detections.
+         */
+        private int events;
+        /**
+         * Rectangles on frames with detections.
+         */
+        private long rects;
+        /**
+         * Last frame had detections.
+         */
+        private boolean lastDetected;
+
+        /**
+         * Create trial.
+         *
+         * @param triggerPercent
+         *            Motion percent that triggers detection.
+         * @param dilateIterations
+         *            Dilate iterations.
+         * @param erodeIterations
+         *            Erode iterations.
+         */
+        Trial(final double triggerPercent, final int dilateIterations, final int erodeIterations) {
+            this.triggerPercent = triggerPercent;
+            this.dilateIterations = dilateIterations;
+            this.erodeIterations = erodeIterations;
+        }
+    }
+
+    /**
+     * Suppress default constructor for noninstantiability.
+     */
+    private MaskSweep() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Detection mask for frame.
+     *
+     * @param maskFile
+     *            Mask file or null.
+     * @param frameSize
+     *            Frame size.
+     * @return Detection mask.
+     */
+    private static DetectMask detectMask(final String maskFile, final Size frameSize) {
+        return maskFile == null ? new DetectMask(frameSize) : new DetectMask(maskFile, frameSize);
+    }
+
+    /**
+     * Decode video once and cache thresholded masks.
+     *
+     * @param url
+     *            Source file.
+     * @param cacheFile
+     *            Mask cache file.
+     * @param maskFile
+     *            Mask file or null.
+     * @throws IOException
+     *             Possible exception.
+     */
+    public static void record(final String url, final String cacheFile, final String maskFile) throws IOException {
+        final var videoCapture = new VideoCapture();
+        videoCapture.open(url);
+        final var frameSize = new Size((int) videoCapture.get(Videoio.CAP_PROP_FRAME_WIDTH),
+                (int) videoCapture.get(Videoio.CAP_PROP_FRAME_HEIGHT));
+        final var detector = new MotionDetector(detectMask(maskFile, frameSize));
+        final var cacheMask = detectMask(maskFile, frameSize);
+        final var mat = new Mat();
+        var frames = 0;
+        final var startTime = System.currentTimeMillis();
+        try (final var maskCache = MaskCache.create(cacheFile, frameSize, cacheMask.getRoi())) {
+            while (videoCapture.read(mat)) {
+                detector.foreground(mat);
+                maskCache.write(detector.getForeground());
+                frames++;
+            }
+            final var seconds = (System.currentTimeMillis() - startTime) / 1000.0;
+            logger.log(Level.INFO, String.format("Recorded %d masks, %d bytes, %4.1f bytes per frame, %4.2f seconds",
+                    frames, maskCache.getBytes(), (double) maskCache.getBytes() / Math.max(1, frames), seconds));
+        } finally {
+            // Free native memory
+            videoCapture.release();
+            detector.release();
+            cacheMask.release();
+            mat.release();
+        }
+    }
+
+    /**
+     * Replay cached masks for every trial.
+     *
+     * @param cacheFile
+     *            Mask cache file.
+     * @param maskFile
+     *            Mask file or null.
+     * @param triggers
+     *            Trigger percents.
+     * @param dilates
+     *            Dilate iterations.
+     * @param erodes
+     *            Erode iterations.
+     * @return Trials.
+     * @throws IOException
+     *             Possible exception.
+     */
+    public static List<Trial> sweep(final String cacheFile, final String maskFile, final double[] triggers,
+            final int[] dilates, final int[] erodes) throws IOException {
+        final var trials = new ArrayList<Trial>();
+        final var detectors = new ArrayList<MotionDetector>();
+        final var mask = new Mat();
+        final var work = new Mat();
+        try (final var maskCache = MaskCache.open(cacheFile)) {
+            final var frameSize = maskCache.getFrameSize();
+            final var sweepMask = detectMask(maskFile, frameSize);
+            if (!sweepMask.getRoi().equals(maskCache.getRoi())) {
+                sweepMask.release();
+                throw new IOException(String.format("Mask roi %s does not match cache roi %s", sweepMask.getRoi(),
+                        maskCache.getRoi()));
+            }
+            // One detector per dilate and erode pair
+            for (final var dilate : dilates) {
+                for (final var erode : erodes) {
+                    detectors.add(new MotionDetector(detectMask(maskFile, frameSize), 0.0, dilate, erode));
+                    for (final var trigger : triggers) {
+                        trials.add(new Trial(trigger, dilate, erode));
+                    }
+                }
+            }
+            int nonZero;
+            while ((nonZero = maskCache.read(mask)) >= 0) {
+                final var motionPercent = 100.0 * nonZero / sweepMask.getPixels();
+                for (int i = 0; i < detectors.size(); i++) {
+                    // Contours dilate and erode in place
+                    mask.copyTo(work);
+                    final var rectCount = detectors.get(i).detectForeground(work, motionPercent).getRects().size();
+                    for (int j = 0; j < triggers.length; j++) {
+                        final var trial = trials.get(i * triggers.length + j);
+                        final var detected = motionPercent > trial.triggerPercent;
+                        if (detected) {
+                            trial.framesDetected++;
+                            trial.rects += rectCount;
+                            if (!trial.lastDetected) {
+                                trial.events++;
+                            }
+                        }
+                        trial.lastDetected = detected;
+                    }
+                }
+            }
+            sweepMask.release();
+        } finally {
+            // Free native memory
+            for (final var detector : detectors) {
+                detector.release();
+            }
+            mask.release();
+            work.release();
+        }
+        return trials;
+    }
+
+    /**
+     * Record masks if needed and sweep parameters.
+     *
+     * args[0] = source file or will default to "../resources/traffic.mp4" if
+     * no args passed.
+     *
+     * args[1] = mask cache file or will default to
+     * "../output/traffic-masks-java.rle" if no args passed.
+     *
+     * args[2] = trigger percents separated by "," or will default to
+     * "0.5,0.75,1.0,2.0" if no args passed.
+     *
+     * args[3] = dilate iterations separated by "," or will default to
+     * "10,15,20" if no args passed.
+     *
+     * args[4] = erode iterations separated by "," or will default to "5,10" if
+     * no args passed.
+     *
+     * args[5] = mask file or will default to no mask if no args passed.
+     *
+     * @param args
+     *            String array of arguments.
+     */
+    public static void main(final String... args) {
+        var url = "../resources/traffic.mp4";
+        var cacheFile = "../output/traffic-masks-java.rle";
+        var triggers = "0.5,0.75,1.0,2.0";
+        var dilates = "10,15,20";
+        var erodes = "5,10";
+        String maskFile = null;
+        if (args.length > 0) {
+            url = args[0];
+        }
+        if (args.length > 1) {
+            cacheFile = args[1];
+        }
+        if (args.length > 2) {
+            triggers = args[2];
+        }
+        if (args.length > 3) {
+            dilates = args[3];
+        }
+        if (args.length > 4) {
+            erodes = args[4];
+        }
+        if (args.length > 5) {
+            maskFile = args[5];
+        }
+        // Custom logging properties via class loader
+        try {
+            LogManager.getLogManager()
+                    .readConfiguration(MaskSweep.class.getClassLoader().getResourceAsStream("logging.properties"));
+        } catch (SecurityException | IOException e) {
+            e.printStackTrace();
+        }
+        logger.log(Level.INFO, String.format("OpenCV %s", Core.VERSION));
+        logger.log(Level.INFO, String.format("Input file: %s, mask cache: %s", url, cacheFile));
+        try {
+            if (!Files.exists(Paths.get(cacheFile))) {
+                record(url, cacheFile, maskFile);
+            }
+            final var triggerValues = Arrays.stream(triggers.split(",")).mapToDouble(Double::parseDouble)
+                    .toArray();
+            final var dilateValues = Arrays.stream(dilates.split(",")).mapToInt(Integer::parseInt)
+                    .toArray();
+            final var erodeValues = Arrays.stream(erodes.split(",")).mapToInt(Integer::parseInt)
+                    .toArray();
+            final var startTime = System.currentTimeMillis();
+            final var trials = sweep(cacheFile, maskFile, triggerValues, dilateValues, erodeValues);
+            final var seconds = (System.currentTimeMillis() - startTime) / 1000.0;
+            for (final var trial : trials) {
+                logger.log(Level.INFO, String.format(
+                        "trigger %5.2f%%, dilate %2d, erode %2d: %5d frames detected, %4d events, %6d rects",
+                        trial.triggerPercent, trial.dilateIterations, trial.erodeIterations, trial.framesDetected,
+                        trial.events, trial.rects));
+            }
+            logger.log(Level.INFO, String.format("%d trials, elapsed time: %4.2f seconds", trials.size(), seconds));
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, String.format("Sweep failed: %s", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.video.BackgroundSubtractor;
+import org.opencv.video.Video;
+
+/**
+ * Gaussian Mixture-based Background/Foreground Segmentation detector.
+ * MotionDetectMOG2 draws and encodes its results. Another BackgroundSubtractor
+ * such as KNN can be used in place of MOG2.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class Mog2Detector implements Detector {
+    /**
+     * Kernel used for contours.
+     */
+    private static final Mat CONTOUR_KERNEL = Imgproc.getStructuringElement(Imgproc.MORPH_DILATE, new Size(3, 3),
+            new Point(1, 1));
+    /**
+     * Point used for contour dilate and erode.
+     */
+    private static final Point CONTOUR_POINT = new Point(-1, -1);
+    /**
+     * Blur kernel size.
+     */
+    private static final Size K_SIZE = new Size(4, 4);
+    /**
+     * Contour hierarchy. One per instance, so detectors can run on different
+     * threads.
+     */
+    private final Mat hierarchy = new Mat();
+    /**
+     * Detection mask.
+     */
+    private final DetectMask detectMask;
+    /**
+     * Background model.
+     */
+    private final BackgroundSubtractor backgroundSubtractor;
+    /**
+     * Close morphology structuring element.
+     */
+    private final Mat element = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(7, 7), new Point(3, 3));
+    /**
+     * Blurred frame.
+     */
+    private final Mat blur = new Mat();
+    /**
+     * Foreground mask.
+     */
+    private final Mat foreground = new Mat();
+    /**
+     * Binary image.
+     */
+    private final Mat binaryImg = new Mat();
+
+    /**
+     * Create detector. Detector owns the mask.
+     *
+     * @param detectMask
+     *            Detection mask.
+     */
+    Mog2Detector(final DetectMask detectMask) {
+        this(detectMask, Video.createBackgroundSubtractorMOG2(300, 32, true));
+    }
+
+    /**
+     * Create detector with another background model. Detector owns the mask.
+     *
+     * @param detectMask
+     *            Detection mask.
+     * @param backgroundSubtractor
+     *            Background model such as
+     *            Video.createBackgroundSubtractorKNN(500, 400, true).
+     */
+    Mog2Detector(final DetectMask detectMask, final BackgroundSubtractor backgroundSubtractor) {
+        this.detectMask = detectMask;
+        this.backgroundSubtractor = backgroundSubtractor;
+    }
+
+    /**
+     * Get contours from image.
+     *
+     * @param source
+     *            Source image cropped to mask roi.
+     * @return List of rectangles in frame coordinates.
+     */
+    private List<Rect> contours(final Mat source) {
+        Imgproc.dilate(source, source, CONTOUR_KERNEL, CONTOUR_POINT, 15);
+        Imgproc.erode(source, source, CONTOUR_KERNEL, CONTOUR_POINT, 10);
+        // Dilate can grow blobs into ignored pixels
+        detectMask.apply(source);
+        final var contoursList = new ArrayList<MatOfPoint>();
+        Imgproc.findContours(source, contoursList, hierarchy, Imgproc.RETR_TREE, Imgproc.CHAIN_APPROX_SIMPLE);
+        final var rectList = new ArrayList<Rect>();
+        // Convert MatOfPoint to Rectangles
+        for (final var mop : contoursList) {
+            rectList.add(Imgproc.boundingRect(mop));
+            // Release native memory
+            mop.release();
+        }
+        return detectMask.toFrame(rectList);
+    }
+
+    /**
+     * @see com.codeferm.opencv.Detector#detect(org.opencv.core.Mat)
+     */
+    @Override
+    public Detection detect(final Mat frame) {
+        // Only process mask roi
+        final var roiImg = frame.submat(detectMask.getRoi());
+        // Reduce noise with a kernel 4x4
+        Imgproc.blur(roiImg, blur, K_SIZE);
+        roiImg.release();
+        // Update the background model
+        backgroundSubtractor.apply(blur, foreground, -1);
+        // Apply the close morphology operation
+        Imgproc.morphologyEx(foreground, binaryImg, Imgproc.MORPH_CLOSE, element);
+        // Convert to BW
+        Imgproc.threshold(binaryImg, binaryImg, 128, 255, Imgproc.THRESH_BINARY);
+        final var movementLocations = contours(binaryImg);
+        // Filter out smaller blobs
+        final var rectList = new ArrayList<Rect>();
+        for (final var rect : movementLocations) {
+            if (rect.width > 30 && rect.height > 30) {
+                rectList.add(rect);
+            }
+        }
+        // Contours trigger motion
+        return new Detection(rectList, Collections.emptyList(), 0.0, !movementLocations.isEmpty());
+    }
+
+    /**
+     * Background image for BackgroundState. Model internals are not exposed,
+     * so the background image is the state.
+     *
+     * @param background
+     *            Background image of mask roi. Empty before the first frame.
+     */
+    public void getBackgroundImage(final Mat background) {
+        backgroundSubtractor.getBackgroundImage(background);
+    }
+
+    /**
+     * Seed model from a saved background image. The first apply initializes
+     * every pixel, the rest lower the automatic learning rate.
+     *
+     * @param background
+     *            Background image of mask roi.
+     * @param frames
+     *            Times to apply background.
+     */
+    public void prime(final Mat background, final int frames) {
+        for (int i = 0; i < frames; i++) {
+            backgroundSubtractor.apply(background, foreground, -1);
+        }
+    }
+
+    /**
+     * @see com.codeferm.opencv.Detector#release()
+     */
+    @Override
+    public void release() {
+        hierarchy.release();
+        element.release();
+        blur.release();
+        foreground.release();
+        binaryImg.release();
+        detectMask.release();
+    }
+}
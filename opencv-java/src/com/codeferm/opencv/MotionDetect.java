@@ -7,8 +7,6 @@
 package com.codeferm.opencv;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
@@ -16,22 +14,40 @@ import java.util.logging.Logger;
 import org.opencv.core.Core;
 import org.opencv.core.CvType;
 import org.opencv.core.Mat;
-import org.opencv.core.MatOfPoint;
-import org.opencv.core.Point;
-import org.opencv.core.Rect;
-import org.opencv.core.Scalar;
 import org.opencv.core.Size;
-import org.opencv.imgproc.Imgproc;
-import org.opencv.videoio.VideoCapture;
-import org.opencv.videoio.VideoWriter;
 import org.opencv.videoio.Videoio;
 
 /**
- * Uses moving average to determine change percent.
+ * Uses moving average to determine change percent. The source is opened with
+ * the configuration CaptureTuner saved to
+ * "../output/capture-tuning.properties" if there is one.
  *
  * args[0] = source file or will default to "../resources/traffic.mp4" if no
  * args passed.
  *
+ * args[1] = mask file or will detect all pixels if "-" or not passed. Black
+ * pixels in the mask are ignored, so "../resources/mask.png" can be used with
+ * traffic.mp4.
+ *
+ * args[2] = max static frames to skip in a row or will process every frame if
+ * "0" or not passed. Frames with the same scene hash as the last processed
+ * frame reuse its result.
+ *
+ * args[3] = JPEG snapshots per motion event or will not save snapshots if "0"
+ * or not passed. Frames with the largest motion rectangle are saved.
+ *
+ * args[4] = segment length in seconds or will write one file if "0" or not
+ * passed.
+ *
+ * args[5] = background state file or will start with a cold model if "-" or
+ * not passed. The moving average and frame position are saved once a minute
+ * of video, so a restart resumes detecting immediately and a file resumes
+ * where it stopped. Output starts after existing segments instead of
+ * overwriting them.
+ *
+ * args[6] = trigger percent, dilate and erode iterations separated by "," or
+ * will default to "0.75,15,10" if not passed. Use values found by MaskSweep.
+ *
  * @author sgoldsmith
  * @version 1.0.0
  * @since 1.0.0
@@ -46,20 +62,6 @@ final class MotionDetect {
         System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
     }
 
-    /**
-     * Kernel used for contours.
-     */
-    private static final Mat CONTOUR_KERNEL = Imgproc.getStructuringElement(Imgproc.MORPH_DILATE, new Size(3, 3),
-            new Point(1, 1));
-    /**
-     * Contour hierarchy.
-     */
-    private static final Mat HIERARCHY = new Mat();
-    /**
-     * Point used for contour dilate and erode.
-     */
-    private static final Point CONTOUR_POINT = new Point(-1, -1);
-
     /**
      * Suppress default constructor for noninstantiability.
      */
@@ -67,39 +69,39 @@ final class MotionDetect {
         throw new AssertionError();
     }
 
-    /**
-     * Get contours from image.
-     *
-     * @param source
-     *            Source image.
-     * @return List of rectangles.
-     */
-    public static List<Rect> contours(final Mat source) {
-        Imgproc.dilate(source, source, CONTOUR_KERNEL, CONTOUR_POINT, 15);
-        Imgproc.erode(source, source, CONTOUR_KERNEL, CONTOUR_POINT, 10);
-        final var contoursList = new ArrayList<MatOfPoint>();
-        Imgproc.findContours(source, contoursList, HIERARCHY, Imgproc.RETR_TREE, Imgproc.CHAIN_APPROX_SIMPLE);
-        final var rectList = new ArrayList<Rect>();
-        // Convert MatOfPoint to Rectangles
-        for (final var mop : contoursList) {
-            rectList.add(Imgproc.boundingRect(mop));
-            // Release native memory
-            mop.release();
-        }
-        return rectList;
-    }
-
     /**
      * Mark frames with motion detected.
      *
      * args[0] = source file or will default to "../resources/traffic.mp4" if no
      * args passed.
      *
+     * args[1] = mask file or will detect all pixels if "-" or not passed.
+     *
+     * args[2] = max static frames to skip in a row or will process every frame
+     * if "0" or not passed.
+     *
+     * args[3] = JPEG snapshots per motion event or will not save snapshots if
+     * "0" or not passed.
+     *
+     * args[4] = segment length in seconds or will write one file if "0" or
+     * not passed.
+     *
+     * args[5] = background state file or will start with a cold model if "-"
+     * or not passed.
+     *
+     * args[6] = trigger percent, dilate and erode iterations separated by ","
+     * or will default to "0.75,15,10" if not passed.
+     *
      * @param args
      *            String array of arguments.
      */
     public static void main(final String... args) {
         String url = null;
+        var segmentSeconds = 0;
+        String maskFile = null;
+        var maxSkip = 0;
+        var snapshotsPerEvent = 0;
+        String stateFile = null;
         final var outputFile = "../output/motion-detect-java.avi";
         // Check how many arguments were passed in
         if (args.length == 0) {
@@ -109,6 +111,25 @@ final class MotionDetect {
         } else {
             url = args[0];
         }
+        if (args.length > 1 && !"-".equals(args[1])) {
+            maskFile = args[1];
+        }
+        if (args.length > 2) {
+            maxSkip = Integer.parseInt(args[2]);
+        }
+        if (args.length > 3) {
+            snapshotsPerEvent = Integer.parseInt(args[3]);
+        }
+        if (args.length > 4) {
+            segmentSeconds = Integer.parseInt(args[4]);
+        }
+        if (args.length > 5 && !"-".equals(args[5])) {
+            stateFile = args[5];
+        }
+        var parameters = "0.75,15,10";
+        if (args.length > 6) {
+            parameters = args[6];
+        }
         // Custom logging properties via class loader
         try {
             LogManager.getLogManager()
@@ -119,83 +140,99 @@ final class MotionDetect {
         logger.log(Level.INFO, String.format("OpenCV %s", Core.VERSION));
         logger.log(Level.INFO, String.format("Input file: %s", url));
         logger.log(Level.INFO, String.format("Output file: %s", outputFile));
-        final var videoCapture = new VideoCapture();
-        videoCapture.open(url);
+        // Use the CaptureTuner configuration saved for this source, otherwise the default backend
+        final var videoCapture = CaptureTuner.open(url, "../output/capture-tuning.properties");
         final var frameSize = new Size((int) videoCapture.get(Videoio.CAP_PROP_FRAME_WIDTH),
                 (int) videoCapture.get(Videoio.CAP_PROP_FRAME_HEIGHT));
         logger.log(Level.INFO, String.format("Resolution: %s", frameSize));
+        final DetectMask detectMask;
+        if (maskFile == null) {
+            detectMask = new DetectMask(frameSize);
+        } else {
+            detectMask = new DetectMask(maskFile, frameSize);
+            logger.log(Level.INFO, String.format("Mask file: %s, roi: %s, %4.1f%% of frame detected", maskFile,
+                    detectMask.getRoi(), 100.0 * detectMask.getPixels() / frameSize.area()));
+        }
+        // Skip frames that are effectively identical to the last processed frame
+        final var sceneHash = maxSkip > 0 ? new SceneHash(maxSkip, 4, detectMask.getRoiMask()) : null;
         final var fourCC = new FourCC("X264");
-        final var videoWriter = new VideoWriter(outputFile, fourCC.toInt(),
-                videoCapture.get(Videoio.CAP_PROP_FPS), frameSize, true);
+        // Roll output files for 24/7 operation, a resumed run keeps earlier segments
+        final var videoWriter = SegmentedWriter.create("../output/motion-detect-java", "avi", fourCC.toInt(),
+                videoCapture.get(Videoio.CAP_PROP_FPS), frameSize, segmentSeconds, 0, stateFile != null);
+        // Best frames of each event are encoded off the detection thread
+        final var fps = (int) Math.max(1, videoCapture.get(Videoio.CAP_PROP_FPS));
+        final var eventSnapshots = snapshotsPerEvent > 0
+                ? new EventSnapshots("../output/motion-detect-java", snapshotsPerEvent, fps, fps, 2, 90)
+                : null;
+        final var fields = parameters.split(",");
+        final var triggerPercent = Double.parseDouble(fields[0]);
+        final var dilateIterations = Integer.parseInt(fields[1]);
+        final var erodeIterations = Integer.parseInt(fields[2]);
+        logger.log(Level.INFO, String.format("Trigger: %4.2f%%, dilate: %d, erode: %d", triggerPercent,
+                dilateIterations, erodeIterations));
+        final var detector = new MotionDetector(detectMask, triggerPercent, dilateIterations, erodeIterations);
         final var mat = new Mat();
         int frames = 0;
-        final Mat workImg = new Mat();
-        Mat movingAvgImg = null;
-        final var gray = new Mat();
-        final var diffImg = new Mat();
-        final var scaleImg = new Mat();
-        final var rectPoint1 = new Point();
-        final var rectPoint2 = new Point();
-        final var rectColor = new Scalar(0, 255, 0);
-        final var kSize = new Size(8, 8);
-        final var totalPixels = frameSize.area();
-        double motionPercent = 0.0;
+        // Resume with a warm moving average
+        final var backgroundState = stateFile == null ? null : new BackgroundState(stateFile, fps * 60L);
+        var startFrame = 0L;
+        if (backgroundState != null) {
+            final var model = backgroundState.load(detectMask.getRoi().height, detectMask.getRoi().width,
+                    CvType.CV_32FC1);
+            if (model != null) {
+                detector.setModel(model);
+                // Only files can seek
+                if (backgroundState.getFrame() > 0 && videoCapture.get(Videoio.CAP_PROP_FRAME_COUNT) > 0) {
+                    videoCapture.set(Videoio.CAP_PROP_POS_FRAMES, backgroundState.getFrame());
+                    startFrame = backgroundState.getFrame();
+                }
+            }
+        }
         int framesWithMotion = 0;
+        Detection detection = null;
         final var startTime = System.currentTimeMillis();
         while (videoCapture.read(mat)) {
-            // Generate work image by blurring
-            Imgproc.blur(mat, workImg, kSize);
-            // Generate moving average image if needed
-            if (movingAvgImg == null) {
-                movingAvgImg = new Mat();
-                workImg.convertTo(movingAvgImg, CvType.CV_32F);
-
-            }
-            // Generate moving average image
-            Imgproc.accumulateWeighted(workImg, movingAvgImg, .03);
-            // Convert the scale of the moving average
-            Core.convertScaleAbs(movingAvgImg, scaleImg);
-            // Subtract the work image frame from the scaled image average
-            Core.absdiff(workImg, scaleImg, diffImg);
-            // Convert the image to grayscale
-            Imgproc.cvtColor(diffImg, gray, Imgproc.COLOR_BGR2GRAY);
-            // Convert to BW
-            Imgproc.threshold(gray, gray, 25, 255, Imgproc.THRESH_BINARY);
-            // Total number of changed motion pixels
-            motionPercent = 100.0 * Core.countNonZero(gray) / totalPixels;
-            // Detect if camera is adjusting and reset reference if more than
-            // 25%
-            if (motionPercent > 25.0) {
-                workImg.convertTo(movingAvgImg, CvType.CV_32F);
+            // Only hash mask roi
+            final var roiImg = mat.submat(detectMask.getRoi());
+            final var skip = sceneHash != null && sceneHash.skip(roiImg);
+            if (detection == null || !skip) {
+                detection = detector.detect(mat);
             }
-            final var movementLocations = contours(gray);
-            // Threshold trigger motion
-            if (motionPercent > 0.75) {
+            roiImg.release();
+            if (detection.isDetected()) {
                 framesWithMotion++;
-                for (final Rect rect : movementLocations) {
-                    rectPoint1.x = rect.x;
-                    rectPoint1.y = rect.y;
-                    rectPoint2.x = rect.x + rect.width;
-                    rectPoint2.y = rect.y + rect.height;
-                    // Draw rectangle around fond object
-                    Imgproc.rectangle(mat, rectPoint1, rectPoint2, rectColor, 2);
-                }
             }
+            // Snapshots are taken before any rectangles are drawn
+            if (eventSnapshots != null) {
+                eventSnapshots.offer(mat, detection.score());
+            }
+            detection.annotate(mat);
             videoWriter.write(mat);
             frames++;
+            if (backgroundState != null && detector.getModel() != null) {
+                backgroundState.save(detector.getModel(), startFrame + frames);
+            }
         }
         final var estimatedTime = System.currentTimeMillis() - startTime;
         final var seconds = (double) estimatedTime / 1000;
         logger.log(Level.INFO, String.format("%d frames, %d frames with motion", frames, framesWithMotion));
         logger.log(Level.INFO, String.format("%4.1f FPS, elapsed time: %4.2f seconds", frames / seconds, seconds));
+        if (sceneHash != null) {
+            logger.log(Level.INFO, sceneHash.toString());
+            sceneHash.release();
+        }
+        if (eventSnapshots != null) {
+            eventSnapshots.close();
+        }
+        if (backgroundState != null) {
+            // Source ended, so next run starts over with a warm model
+            backgroundState.close(detector.getModel(), 0);
+        }
         // Free native memory
         videoCapture.release();
         videoWriter.release();
         mat.release();
-        workImg.release();
-        movingAvgImg.release();
-        gray.release();
-        diffImg.release();
-        scaleImg.release();
+        // Detector owns the mask
+        detector.release();
     }
 }
@@ -7,21 +7,14 @@
 package com.codeferm.opencv;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
 
 import org.opencv.core.Core;
+import org.opencv.core.CvType;
 import org.opencv.core.Mat;
-import org.opencv.core.MatOfPoint;
-import org.opencv.core.Point;
-import org.opencv.core.Rect;
-import org.opencv.core.Scalar;
 import org.opencv.core.Size;
-import org.opencv.imgproc.Imgproc;
-import org.opencv.video.Video;
 import org.opencv.videoio.VideoCapture;
 import org.opencv.videoio.VideoWriter;
 import org.opencv.videoio.Videoio;
@@ -34,6 +27,19 @@ import org.opencv.videoio.Videoio;
  * args[0] = source file or will default to "../resources/traffic.mp4" if no
  * args passed.
  *
+ * args[1] = mask file or will detect all pixels if "-" or not passed. Black
+ * pixels in the mask are ignored, so "../resources/mask.png" can be used with
+ * traffic.mp4.
+ *
+ * args[2] = max static frames to skip in a row or will process every frame if
+ * "0" or not passed. Frames with the same scene hash as the last processed
+ * frame reuse its result.
+ *
+ * args[3] = background state file or will start with a cold model if "-" or
+ * not passed. The MOG2 background image and frame position are saved once a
+ * minute of video. On restart the model is seeded from the background image,
+ * so detection resumes immediately and a file resumes where it stopped.
+ *
  * @author sgoldsmith
  * @version 1.0.0
  * @since 1.0.0
@@ -49,18 +55,9 @@ final class MotionDetectMOG2 {
     }
 
     /**
-     * Kernel used for contours.
-     */
-    private static final Mat CONTOUR_KERNEL = Imgproc.getStructuringElement(Imgproc.MORPH_DILATE, new Size(3, 3),
-            new Point(1, 1));
-    /**
-     * Contour hierarchy.
-     */
-    private static final Mat HIERARCHY = new Mat();
-    /**
-     * Point used for contour dilate and erode.
+     * Frames of saved background image used to seed MOG2 on restore.
      */
-    private static final Point CONTOUR_POINT = new Point(-1, -1);
+    private static final int PRIME_FRAMES = 30;
 
     /**
      * Suppress default constructor for noninstantiability.
@@ -69,39 +66,28 @@ final class MotionDetectMOG2 {
         throw new AssertionError();
     }
 
-    /**
-     * Get contours from image.
-     *
-     * @param source
-     *            Source image.
-     * @return List of rectangles.
-     */
-    public static List<Rect> contours(final Mat source) {
-        Imgproc.dilate(source, source, CONTOUR_KERNEL, CONTOUR_POINT, 15);
-        Imgproc.erode(source, source, CONTOUR_KERNEL, CONTOUR_POINT, 10);
-        final var contoursList = new ArrayList<MatOfPoint>();
-        Imgproc.findContours(source, contoursList, HIERARCHY, Imgproc.RETR_TREE, Imgproc.CHAIN_APPROX_SIMPLE);
-        final var rectList = new ArrayList<Rect>();
-        // Convert MatOfPoint to Rectangles
-        for (final var mop : contoursList) {
-            rectList.add(Imgproc.boundingRect(mop));
-            // Release native memory
-            mop.release();
-        }
-        return rectList;
-    }
-
     /**
      * Mark frames with motion detected.
      *
      * args[0] = source file or will default to "../resources/traffic.mp4" if no
      * args passed.
      *
+     * args[1] = mask file or will detect all pixels if "-" or not passed.
+     *
+     * args[2] = max static frames to skip in a row or will process every frame
+     * if "0" or not passed.
+     *
+     * args[3] = background state file or will start with a cold model if "-"
+     * or not passed.
+     *
      * @param args
      *            String array of arguments.
      */
     public static void main(final String... args) {
         String url = null;
+        String maskFile = null;
+        var maxSkip = 0;
+        String stateFile = null;
         final var outputFile = "../output/motion-detect-mog2-java.avi";
         // Check how many arguments were passed in
         if (args.length == 0) {
@@ -111,6 +97,15 @@ final class MotionDetectMOG2 {
         } else {
             url = args[0];
         }
+        if (args.length > 1 && !"-".equals(args[1])) {
+            maskFile = args[1];
+        }
+        if (args.length > 2) {
+            maxSkip = Integer.parseInt(args[2]);
+        }
+        if (args.length > 3 && !"-".equals(args[3])) {
+            stateFile = args[3];
+        }
         // Custom logging properties via class loader
         try {
             LogManager.getLogManager().readConfiguration(
@@ -126,63 +121,83 @@ final class MotionDetectMOG2 {
         final Size frameSize = new Size((int) videoCapture.get(Videoio.CAP_PROP_FRAME_WIDTH),
                 (int) videoCapture.get(Videoio.CAP_PROP_FRAME_HEIGHT));
         logger.log(Level.INFO, String.format("Resolution: %s", frameSize));
+        final DetectMask detectMask;
+        if (maskFile == null) {
+            detectMask = new DetectMask(frameSize);
+        } else {
+            detectMask = new DetectMask(maskFile, frameSize);
+            logger.log(Level.INFO, String.format("Mask file: %s, roi: %s, %4.1f%% of frame detected", maskFile,
+                    detectMask.getRoi(), 100.0 * detectMask.getPixels() / frameSize.area()));
+        }
+        // Skip frames that are effectively identical to the last processed frame
+        final var sceneHash = maxSkip > 0 ? new SceneHash(maxSkip, 4, detectMask.getRoiMask()) : null;
         final var fourCC = new FourCC("X264");
         final var videoWriter = new VideoWriter(outputFile, fourCC.toInt(),
                 videoCapture.get(Videoio.CAP_PROP_FPS), frameSize, true);
-        final var mog2 = Video.createBackgroundSubtractorMOG2(300, 32, true);
+        final var detector = new Mog2Detector(detectMask);
         final var capture = new Mat();
-        final var foreground = new Mat();
-        final var blur = new Mat();
-        final var binaryImg = new Mat();
-        // Create a structuring element (SE)
-        final var element = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(7, 7), new Point(3, 3));
-        final var kSize = new Size(4, 4);
-        final var rectPoint1 = new Point();
-        final var rectPoint2 = new Point();
-        final var rectColor = new Scalar(0, 255, 0);
+        final var background = new Mat();
+        // MOG2 model internals are not exposed, so state is the background
+        // image
+        final var fps = (int) Math.max(1, videoCapture.get(Videoio.CAP_PROP_FPS));
+        final var backgroundState = stateFile == null ? null : new BackgroundState(stateFile, fps * 60L);
+        var startFrame = 0L;
+        if (backgroundState != null) {
+            final var saved = backgroundState.load(detectMask.getRoi().height, detectMask.getRoi().width,
+                    CvType.CV_8UC3);
+            if (saved != null) {
+                detector.prime(saved, PRIME_FRAMES);
+                saved.release();
+                // Only files can seek
+                if (backgroundState.getFrame() > 0 && videoCapture.get(Videoio.CAP_PROP_FRAME_COUNT) > 0) {
+                    videoCapture.set(Videoio.CAP_PROP_POS_FRAMES, backgroundState.getFrame());
+                    startFrame = backgroundState.getFrame();
+                }
+            }
+        }
         int frames = 0;
         int framesWithMotion = 0;
+        Detection detection = null;
         final long startTime = System.currentTimeMillis();
         // Process all frames in file
         while (videoCapture.read(capture)) {
-            // Reduce noise with a kernel 4x4
-            Imgproc.blur(capture, blur, kSize);
-            // Update the background model
-            mog2.apply(blur, foreground, -1);
-            // Apply the close morphology operation
-            Imgproc.morphologyEx(foreground, binaryImg, Imgproc.MORPH_CLOSE, element);
-            // Convert to BW
-            Imgproc.threshold(binaryImg, binaryImg, 128, 255, Imgproc.THRESH_BINARY);
-            final var movementLocations = contours(binaryImg);
-            // Contours trigger motion
-            if (!movementLocations.isEmpty()) {
+            // Only hash mask roi
+            final var roiImg = capture.submat(detectMask.getRoi());
+            final var skip = sceneHash != null && sceneHash.skip(roiImg);
+            if (detection == null || !skip) {
+                detection = detector.detect(capture);
+            }
+            roiImg.release();
+            if (detection.isDetected()) {
                 framesWithMotion++;
-                for (final Rect rect : movementLocations) {
-                    // Filter out smaller blobs
-                    if (rect.width > 30 && rect.height > 30) {
-                        rectPoint1.x = rect.x;
-                        rectPoint1.y = rect.y;
-                        rectPoint2.x = rect.x + rect.width;
-                        rectPoint2.y = rect.y + rect.height;
-                        // Draw rectangle around fond object
-                        Imgproc.rectangle(capture, rectPoint1, rectPoint2, rectColor, 2);
-                    }
-                }
             }
+            detection.annotate(capture);
             videoWriter.write(capture);
             frames++;
+            if (backgroundState != null && backgroundState.isDue(startFrame + frames)) {
+                detector.getBackgroundImage(background);
+                backgroundState.save(background, startFrame + frames);
+            }
         }
         final var estimatedTime = System.currentTimeMillis() - startTime;
         final var seconds = (double) estimatedTime / 1000;
         logger.log(Level.INFO, String.format("%d frames, %d frames with motion", frames, framesWithMotion));
         logger.log(Level.INFO, String.format("%4.1f FPS, elapsed time: %4.2f seconds", frames / seconds, seconds));
+        if (sceneHash != null) {
+            logger.log(Level.INFO, sceneHash.toString());
+            sceneHash.release();
+        }
+        if (backgroundState != null) {
+            // Source ended, so next run starts over with a warm model
+            detector.getBackgroundImage(background);
+            backgroundState.close(background.empty() ? null : background, 0);
+        }
         // Free native memory
         videoCapture.release();
         videoWriter.release();
         capture.release();
-        foreground.release();
-        blur.release();
-        binaryImg.release();
-        element.release();
+        background.release();
+        // Detector owns the mask
+        detector.release();
     }
 }
@@ -34,6 +34,14 @@ import org.opencv.videoio.Videoio;
  * args[0] = source file or will default to "../resources/traffic.mp4" if no
  * args passed.
  *
+ * args[1] = mask file or will detect all pixels if "-" or not passed. Black
+ * pixels in the mask are ignored, so "../resources/mask.png" can be used with
+ * traffic.mp4.
+ *
+ * args[2] = max static frames to skip in a row or will process every frame if
+ * "0" or not passed. Frames with the same scene hash as the last processed
+ * frame reuse its result.
+ *
  * @author sgoldsmith
  * @version 1.0.0
  * @since 1.0.0
@@ -73,12 +81,16 @@ final class MotionDetectResize {
      * Get contours from image.
      *
      * @param source
-     *            Source image.
-     * @return List of rectangles.
+     *            Source image cropped to mask roi.
+     * @param detectMask
+     *            Detection mask.
+     * @return List of rectangles in frame coordinates.
      */
-    public static List<Rect> contours(final Mat source) {
+    public static List<Rect> contours(final Mat source, final DetectMask detectMask) {
         Imgproc.dilate(source, source, CONTOUR_KERNEL, CONTOUR_POINT, 15);
         Imgproc.erode(source, source, CONTOUR_KERNEL, CONTOUR_POINT, 10);
+        // Dilate can grow blobs into ignored pixels
+        detectMask.apply(source);
         final var contoursList = new ArrayList<MatOfPoint>();
         Imgproc.findContours(source, contoursList, HIERARCHY, Imgproc.RETR_TREE, Imgproc.CHAIN_APPROX_SIMPLE);
         final var rectList = new ArrayList<Rect>();
@@ -88,7 +100,7 @@ final class MotionDetectResize {
             // Release native memory
             mop.release();
         }
-        return rectList;
+        return detectMask.toFrame(rectList);
     }
 
     /**
@@ -97,11 +109,18 @@ final class MotionDetectResize {
      * args[0] = source file or will default to "../resources/traffic.mp4" if no
      * args passed.
      *
+     * args[1] = mask file or will detect all pixels if "-" or not passed.
+     *
+     * args[2] = max static frames to skip in a row or will process every frame
+     * if "0" or not passed.
+     *
      * @param args
      *            String array of arguments.
      */
     public static void main(final String... args) {
         String url = null;
+        String maskFile = null;
+        var maxSkip = 0;
         final var outputFile = "../output/motion-detect-resize-java.avi";
         // Check how many arguments were passed in
         if (args.length == 0) {
@@ -111,6 +130,12 @@ final class MotionDetectResize {
         } else {
             url = args[0];
         }
+        if (args.length > 1 && !"-".equals(args[1])) {
+            maskFile = args[1];
+        }
+        if (args.length > 2) {
+            maxSkip = Integer.parseInt(args[2]);
+        }
         // Custom logging properties via class loader
         try {
             LogManager.getLogManager().readConfiguration(
@@ -126,6 +151,16 @@ final class MotionDetectResize {
         final var frameSize = new Size((int) videoCapture.get(Videoio.CAP_PROP_FRAME_WIDTH),
                 (int) videoCapture.get(Videoio.CAP_PROP_FRAME_HEIGHT));
         logger.log(Level.INFO, String.format("Resolution: %s", frameSize));
+        final DetectMask detectMask;
+        if (maskFile == null) {
+            detectMask = new DetectMask(frameSize);
+        } else {
+            detectMask = new DetectMask(maskFile, frameSize);
+            logger.log(Level.INFO, String.format("Mask file: %s, roi: %s, %4.1f%% of frame detected", maskFile,
+                    detectMask.getRoi(), 100.0 * detectMask.getPixels() / frameSize.area()));
+        }
+        // Skip frames that are effectively identical to the last processed frame
+        final var sceneHash = maxSkip > 0 ? new SceneHash(maxSkip, 4, detectMask.getRoiMask()) : null;
         // Motion detection generally works best with 480 or wider images
         int widthDivisor = (int) frameSize.width / 480;
         if (widthDivisor < 1) {
@@ -149,37 +184,44 @@ final class MotionDetectResize {
         final var rectPoint2 = new Point();
         final var rectColor = new Scalar(0, 255, 0);
         final var kSize = new Size(8, 8);
-        final var totalPixels = frameSize.area();
+        final var totalPixels = detectMask.getPixels();
         var motionPercent = 0.0;
         var framesWithMotion = 0;
+        List<Rect> movementLocations = new ArrayList<>();
         final var startTime = System.currentTimeMillis();
         while (videoCapture.read(mat)) {
-            // Generate work image by blurring
-            Imgproc.blur(mat, workImg, kSize);
-            // Generate moving average image if needed
-            if (movingAvgImg == null) {
-                movingAvgImg = new Mat();
-                workImg.convertTo(movingAvgImg, CvType.CV_32F);
+            // Only process mask roi
+            final var roiImg = mat.submat(detectMask.getRoi());
+            if (sceneHash == null || !sceneHash.skip(roiImg)) {
+                // Generate work image by blurring
+                Imgproc.blur(roiImg, workImg, kSize);
+                // Generate moving average image if needed
+                if (movingAvgImg == null) {
+                    movingAvgImg = new Mat();
+                    workImg.convertTo(movingAvgImg, CvType.CV_32F);
 
+                }
+                // Generate moving average image
+                Imgproc.accumulateWeighted(workImg, movingAvgImg, .03);
+                // Convert the scale of the moving average
+                Core.convertScaleAbs(movingAvgImg, scaleImg);
+                // Subtract the work image frame from the scaled image average
+                Core.absdiff(workImg, scaleImg, diffImg);
+                // Convert the image to grayscale
+                Imgproc.cvtColor(diffImg, gray, Imgproc.COLOR_BGR2GRAY);
+                // Convert to BW
+                Imgproc.threshold(gray, gray, 25, 255, Imgproc.THRESH_BINARY);
+                // Clear ignored pixels
+                detectMask.apply(gray);
+                // Total number of changed motion pixels
+                motionPercent = 100.0 * Core.countNonZero(gray) / totalPixels;
+                // Detect if camera is adjusting and reset reference if more than
+                // 25%
+                if (motionPercent > 25.0) {
+                    workImg.convertTo(movingAvgImg, CvType.CV_32F);
+                }
+                movementLocations = contours(gray, detectMask);
             }
-            // Generate moving average image
-            Imgproc.accumulateWeighted(workImg, movingAvgImg, .03);
-            // Convert the scale of the moving average
-            Core.convertScaleAbs(movingAvgImg, scaleImg);
-            // Subtract the work image frame from the scaled image average
-            Core.absdiff(workImg, scaleImg, diffImg);
-            // Convert the image to grayscale
-            Imgproc.cvtColor(diffImg, gray, Imgproc.COLOR_BGR2GRAY);
-            // Convert to BW
-            Imgproc.threshold(gray, gray, 25, 255, Imgproc.THRESH_BINARY);
-            // Total number of changed motion pixels
-            motionPercent = 100.0 * Core.countNonZero(gray) / totalPixels;
-            // Detect if camera is adjusting and reset reference if more than
-            // 25%
-            if (motionPercent > 25.0) {
-                workImg.convertTo(movingAvgImg, CvType.CV_32F);
-            }
-            final List<Rect> movementLocations = contours(gray);
             // Threshold trigger motion
             if (motionPercent > 0.75) {
                 framesWithMotion++;
@@ -192,6 +234,7 @@ final class MotionDetectResize {
                     Imgproc.rectangle(mat, rectPoint1, rectPoint2, rectColor, 2);
                 }
             }
+            roiImg.release();
             videoWriter.write(mat);
             frames++;
         }
@@ -199,6 +242,10 @@ final class MotionDetectResize {
         final var seconds = (double) estimatedTime / 1000;
         logger.log(Level.INFO, String.format("%d frames, %d frames with motion", frames, framesWithMotion));
         logger.log(Level.INFO, String.format("%4.1f FPS, elapsed time: %4.2f seconds", frames / seconds, seconds));
+        if (sceneHash != null) {
+            logger.log(Level.INFO, sceneHash.toString());
+            sceneHash.release();
+        }
         // Free native memory
         videoCapture.release();
         videoWriter.release();
@@ -208,5 +255,6 @@ final class MotionDetectResize {
         gray.release();
         diffImg.release();
         scaleImg.release();
+        detectMask.release();
     }
 }
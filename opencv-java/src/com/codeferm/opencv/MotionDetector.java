@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Moving average motion detector. MotionDetect draws and encodes its results.
+ * The moving average runs on a single channel gray image, which is about four
+ * times faster than averaging BGR and converting the difference to gray. The
+ * pipeline is split into foreground (background model and threshold) and
+ * detectForeground (contours and trigger), so thresholded masks can be cached
+ * by MaskCache and replayed with other parameters.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class MotionDetector implements Detector {
+    /**
+     * Kernel used for contours.
+     */
+    private static final Mat CONTOUR_KERNEL = Imgproc.getStructuringElement(Imgproc.MORPH_DILATE, new Size(3, 3),
+            new Point(1, 1));
+    /**
+     * Point used for contour dilate and erode.
+     */
+    private static final Point CONTOUR_POINT = new Point(-1, -1);
+    /**
+     * Blur kernel size.
+     */
+    private static final Size K_SIZE = new Size(8, 8);
+    /**
+     * Motion percent that resets the moving average (camera adjusting).
+     */
+    private static final double RESET_PERCENT = 25.0;
+    /**
+     * Motion percent that triggers detection.
+     */
+    private final double triggerPercent;
+    /**
+     * Contour dilate iterations.
+     */
+    private final int dilateIterations;
+    /**
+     * Contour erode iterations.
+     */
+    private final int erodeIterations;
+    /**
+     * Contour hierarchy. One per instance, so detectors can run on different
+     * threads.
+     */
+    private final Mat hierarchy = new Mat();
+    /**
+     * Detection mask.
+     */
+    private final DetectMask detectMask;
+    /**
+     * Gray frame.
+     */
+    private final Mat grayImg = new Mat();
+    /**
+     * Blurred gray frame.
+     */
+    private final Mat workImg = new Mat();
+    /**
+     * Moving average.
+     */
+    private Mat movingAvgImg;
+    /**
+     * Scaled moving average.
+     */
+    private final Mat scaleImg = new Mat();
+    /**
+     * Difference image.
+     */
+    private final Mat diffImg = new Mat();
+    /**
+     * Thresholded difference image.
+     */
+    private final Mat gray = new Mat();
+
+    /**
+     * Create detector. Detector owns the mask.
+     *
+     * @param detectMask
+     *            Detection mask.
+     */
+    MotionDetector(final DetectMask detectMask) {
+        this(detectMask, 0.75, 15, 10);
+    }
+
+    /**
+     * Create detector with contour and trigger parameters. Detector owns the
+     * mask.
+     *
+     * @param detectMask
+     *            Detection mask.
+     * @param triggerPercent
+     *            Motion percent that triggers detection.
+     * @param dilateIterations
+     *            Contour dilate iterations.
+     * @param erodeIterations
+     *            Contour erode iterations.
+     */
+    MotionDetector(final DetectMask detectMask, final double triggerPercent, final int dilateIterations,
+            final int erodeIterations) {
+        this.detectMask = detectMask;
+        this.triggerPercent = triggerPercent;
+        this.dilateIterations = dilateIterations;
+        this.erodeIterations = erodeIterations;
+    }
+
+    /**
+     * Get contours from image.
+     *
+     * @param source
+     *            Source image cropped to mask roi.
+     * @return List of rectangles in frame coordinates.
+     */
+    private List<Rect> contours(final Mat source) {
+        Imgproc.dilate(source, source, CONTOUR_KERNEL, CONTOUR_POINT, dilateIterations);
+        Imgproc.erode(source, source, CONTOUR_KERNEL, CONTOUR_POINT, erodeIterations);
+        // Dilate can grow blobs into ignored pixels
+        detectMask.apply(source);
+        final var contoursList = new ArrayList<MatOfPoint>();
+        Imgproc.findContours(source, contoursList, hierarchy, Imgproc.RETR_TREE, Imgproc.CHAIN_APPROX_SIMPLE);
+        final var rectList = new ArrayList<Rect>();
+        // Convert MatOfPoint to Rectangles
+        for (final var mop : contoursList) {
+            rectList.add(Imgproc.boundingRect(mop));
+            // Release native memory
+            mop.release();
+        }
+        return detectMask.toFrame(rectList);
+    }
+
+    /**
+     * @see com.codeferm.opencv.Detector#detect(org.opencv.core.Mat)
+     */
+    @Override
+    public Detection detect(final Mat frame) {
+        return detectForeground(gray, foreground(frame));
+    }
+
+    /**
+     * Update moving average and threshold the difference. The mask is left in
+     * getForeground() until the next call.
+     *
+     * @param frame
+     *            BGR frame.
+     * @return Percent of mask pixels that changed.
+     */
+    public double foreground(final Mat frame) {
+        // Only process mask roi
+        final var roiImg = frame.submat(detectMask.getRoi());
+        // Average one channel instead of three
+        Imgproc.cvtColor(roiImg, grayImg, Imgproc.COLOR_BGR2GRAY);
+        roiImg.release();
+        // Generate work image by blurring
+        Imgproc.blur(grayImg, workImg, K_SIZE);
+        // Generate moving average image if needed
+        if (movingAvgImg == null) {
+            movingAvgImg = new Mat();
+            workImg.convertTo(movingAvgImg, CvType.CV_32F);
+        }
+        // Generate moving average image
+        Imgproc.accumulateWeighted(workImg, movingAvgImg, .03);
+        // Convert the scale of the moving average
+        Core.convertScaleAbs(movingAvgImg, scaleImg);
+        // Subtract the work image frame from the scaled image average
+        Core.absdiff(workImg, scaleImg, diffImg);
+        // Convert to BW
+        Imgproc.threshold(diffImg, gray, 25, 255, Imgproc.THRESH_BINARY);
+        // Clear ignored pixels
+        detectMask.apply(gray);
+        // Total number of changed motion pixels
+        final var motionPercent = 100.0 * Core.countNonZero(gray) / detectMask.getPixels();
+        // Camera is adjusting, so reset reference above RESET_PERCENT
+        if (motionPercent > RESET_PERCENT) {
+            workImg.convertTo(movingAvgImg, CvType.CV_32F);
+        }
+        return motionPercent;
+    }
+
+    /**
+     * Thresholded mask of mask roi from last foreground call.
+     *
+     * @return Binary mask.
+     */
+    public Mat getForeground() {
+        return gray;
+    }
+
+    /**
+     * Moving average for BackgroundState.
+     *
+     * @return Moving average of mask roi or null before the first frame.
+     */
+    public Mat getModel() {
+        return movingAvgImg;
+    }
+
+    /**
+     * Start from a saved moving average instead of the first frame. Detector
+     * owns the Mat.
+     *
+     * @param model
+     *            CV_32FC1 moving average of mask roi.
+     */
+    public void setModel(final Mat model) {
+        if (movingAvgImg != null) {
+            movingAvgImg.release();
+        }
+        movingAvgImg = model;
+    }
+
+    /**
+     * Find contours and trigger on a thresholded mask.
+     *
+     * @param foreground
+     *            Binary mask of mask roi. Modified by dilate and erode.
+     * @param motionPercent
+     *            Percent of mask pixels that changed.
+     * @return Detection result.
+     */
+    public Detection detectForeground(final Mat foreground, final double motionPercent) {
+        final var movementLocations = contours(foreground);
+        // Threshold trigger motion
+        return new Detection(movementLocations, Collections.emptyList(), motionPercent,
+                motionPercent > triggerPercent);
+    }
+
+    /**
+     * @see com.codeferm.opencv.Detector#release()
+     */
+    @Override
+    public void release() {
+        hierarchy.release();
+        grayImg.release();
+        workImg.release();
+        if (movingAvgImg != null) {
+            movingAvgImg.release();
+        }
+        scaleImg.release();
+        diffImg.release();
+        gray.release();
+        detectMask.release();
+    }
+}
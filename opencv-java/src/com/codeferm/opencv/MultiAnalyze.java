@@ -0,0 +1,379 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.VideoWriter;
+import org.opencv.videoio.Videoio;
+
+/**
+ * Decode once and feed several analyzers such as motion, people and Canny.
+ * Each decoded frame comes from a FramePool and is shared read only by every
+ * analyzer, so the source is decoded and stored once no matter how many
+ * analyzers there are. An analyzer copies the frame only when it has to draw
+ * on it. The frame goes back to the pool when the last analyzer releases it.
+ *
+ * Each analyzer has its own thread and a one frame mailbox, so it runs at its
+ * own rate. If an analyzer is still busy when the next frame arrives, the
+ * frame waiting in its mailbox is released and counted as skipped. A slow
+ * analyzer never holds up the decoder or the other analyzers. Files are paced
+ * at their frame rate like a camera, so skipped counts show what each analyzer
+ * could keep up with live.
+ *
+ * Each analyzer writes the frames it processed to
+ * ../output/multi-name-java.avi.
+ *
+ * args[0] = source file or camera index or will default to
+ * "../resources/traffic.mp4" if no args passed.
+ *
+ * args[1] = analyzers separated by "," or will default to
+ * "motion,people,canny" if no args passed. Use any Detector name or canny.
+ *
+ * args[2] = pace files at frame rate or will default to "true" if no args
+ * passed.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class MultiAnalyze {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = Logger.getLogger(MultiAnalyze.class.getName());
+    /* Load the OpenCV system library */
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    /**
+     * Analyzer thread fed from a one frame mailbox.
+     */
+    static final class Analyzer implements Runnable {
+        /**
+         * Analyzer name.
+         */
+        private final String name;
+        /**
+         * Detector or null for Canny.
+         */
+        private final Detector detector;
+        /**
+         * Frames waiting. Holds at most one.
+         */
+        private final ArrayBlockingQueue<FramePool.Frame> mailbox = new ArrayBlockingQueue<>(1);
+        /**
+         * Processed frames.
+         */
+        private final VideoWriter videoWriter;
+        /**
+         * Copy of shared frame for drawing.
+         */
+        private final Mat annotated = new Mat();
+        /**
+         * Canny gray image.
+         */
+        private final Mat gray = new Mat();
+        /**
+         * Canny blurred image.
+         */
+        private final Mat blur = new Mat();
+        /**
+         * Canny edges.
+         */
+        private final Mat edges = new Mat();
+        /**
+         * Canny colored edges.
+         */
+        private final Mat dst = new Mat();
+        /**
+         * Canny blur kernel.
+         */
+        private final Size kSize = new Size(3, 3);
+        /**
+         * Black.
+         */
+        private final Scalar black = new Scalar(0, 0, 0);
+        /**
+         * Decoder is done publishing.
+         */
+        private volatile boolean done;
+        /**
+         * Frames processed.
+         */
+        private long frames;
+        /**
+         * Frames with detections.
+         */
+        private long detected;
+        /**
+         * Frames copied for drawing.
+         */
+        private long copies;
+        /**
+         * Frames released unprocessed. Only the decoder updates this.
+         */
+        private long skipped;
+        /**
+         * Frames that threw while processing.
+         */
+        private long failed;
+        /**
+         * Time spent processing in nanoseconds.
+         */
+        private long busyNanos;
+
+        /**
+         * Create analyzer.
+         *
+         * @param name
+         *            Detector name or canny.
+         * @param frameSize
+         *            Frame size.
+         * @param fps
+         *            Output frames per second.
+         */
+        Analyzer(final String name, final Size frameSize, final double fps) {
+            this.name = name;
+            this.detector = "canny".equals(name) ? null : Detector.create(name, frameSize);
+            this.videoWriter = new VideoWriter(String.format("../output/multi-%s-java.avi", name),
+                    new FourCC("X264").toInt(), fps, frameSize, true);
+        }
+
+        /**
+         * Hand frame to analyzer, replacing a frame it has not started yet.
+         * Called by the decoder only. Takes over one hold on the frame.
+         *
+         * @param frame
+         *            Shared frame.
+         */
+        void publish(final FramePool.Frame frame) {
+            if (!mailbox.offer(frame)) {
+                final var stale = mailbox.poll();
+                if (stale != null) {
+                    stale.release();
+                    skipped++;
+                }
+                // Only the decoder offers, so there is room now
+                mailbox.offer(frame);
+            }
+        }
+
+        /**
+         * Process one shared frame. The shared Mat is never written.
+         *
+         * @param mat
+         *            Shared frame.
+         */
+        private void process(final Mat mat) {
+            if (detector == null) {
+                Imgproc.cvtColor(mat, gray, Imgproc.COLOR_BGR2GRAY);
+                Imgproc.GaussianBlur(gray, blur, kSize, 0);
+                Imgproc.Canny(blur, edges, 100, 200, 3, false);
+                // Clear last frame's edges instead of allocating dst each time
+                dst.create(mat.size(), mat.type());
+                dst.setTo(black);
+                Core.bitwise_and(mat, mat, dst, edges);
+                videoWriter.write(dst);
+            } else {
+                final var detection = detector.detect(mat);
+                if (detection.isDetected()) {
+                    // Draw on a copy, other analyzers may still be reading
+                    mat.copyTo(annotated);
+                    detection.annotate(annotated);
+                    videoWriter.write(annotated);
+                    detected++;
+                    copies++;
+                } else {
+                    videoWriter.write(mat);
+                }
+            }
+        }
+
+        /**
+         * Process frames until decoder is done and mailbox is empty. A frame
+         * that fails is counted and the analyzer moves on, so one bad frame
+         * does not silently stop it.
+         */
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    final var frame = mailbox.poll(100, TimeUnit.MILLISECONDS);
+                    if (frame == null) {
+                        // Done is set after the last publish
+                        if (done && mailbox.isEmpty()) {
+                            break;
+                        }
+                        continue;
+                    }
+                    final var startNanos = System.nanoTime();
+                    try {
+                        process(frame.getMat());
+                    } catch (RuntimeException e) {
+                        // Log the first failure, the rest are counted in the summary
+                        logger.log(failed++ == 0 ? Level.WARNING : Level.FINE, String.format(
+                                "%s failed on frame %d: %s", name, frame.getNumber(), e.getMessage()));
+                    } finally {
+                        frame.release();
+                    }
+                    busyNanos += System.nanoTime() - startNanos;
+                    frames++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Free native memory.
+         */
+        void release() {
+            if (detector != null) {
+                detector.release();
+            }
+            videoWriter.release();
+            annotated.release();
+            gray.release();
+            blur.release();
+            edges.release();
+            dst.release();
+        }
+    }
+
+    /**
+     * Suppress default constructor for noninstantiability.
+     */
+    private MultiAnalyze() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Decode source once and feed every analyzer.
+     *
+     * args[0] = source file or camera index or will default to
+     * "../resources/traffic.mp4" if no args passed.
+     *
+     * args[1] = analyzers separated by "," or will default to
+     * "motion,people,canny" if no args passed.
+     *
+     * args[2] = pace files at frame rate or will default to "true" if no args
+     * passed.
+     *
+     * @param args
+     *            String array of arguments.
+     * @throws InterruptedException
+     *             Possible exception.
+     */
+    public static void main(final String... args) throws InterruptedException {
+        var url = "../resources/traffic.mp4";
+        var names = "motion,people,canny";
+        var pace = true;
+        if (args.length > 0) {
+            url = args[0];
+        }
+        if (args.length > 1) {
+            names = args[1];
+        }
+        if (args.length > 2) {
+            pace = Boolean.parseBoolean(args[2]);
+        }
+        // Custom logging properties via class loader
+        try {
+            LogManager.getLogManager()
+                    .readConfiguration(MultiAnalyze.class.getClassLoader().getResourceAsStream("logging.properties"));
+        } catch (SecurityException | IOException e) {
+            e.printStackTrace();
+        }
+        logger.log(Level.INFO, String.format("OpenCV %s", Core.VERSION));
+        logger.log(Level.INFO, String.format("Input file: %s, analyzers: %s, pace: %b", url, names, pace));
+        final var videoCapture = new VideoCapture();
+        // See if URL is an integer: -? = negative sign, could have none or one,
+        // \\d+ = one or more digits
+        if (url.matches("-?\\d+")) {
+            videoCapture.open(Integer.parseInt(url));
+        } else {
+            videoCapture.open(url);
+        }
+        final var frameSize = new Size((int) videoCapture.get(Videoio.CAP_PROP_FRAME_WIDTH),
+                (int) videoCapture.get(Videoio.CAP_PROP_FRAME_HEIGHT));
+        final var fps = Math.max(1.0, videoCapture.get(Videoio.CAP_PROP_FPS));
+        // Only files have a frame count, cameras are already paced
+        pace = pace && videoCapture.get(Videoio.CAP_PROP_FRAME_COUNT) > 0;
+        logger.log(Level.INFO, String.format("Resolution: %s, %4.1f FPS", frameSize, fps));
+        final var analyzers = new ArrayList<Analyzer>();
+        for (final var name : names.split(",")) {
+            analyzers.add(new Analyzer(name, frameSize, fps));
+        }
+        // Each analyzer holds at most one frame in process and one waiting
+        final var framePool = new FramePool(analyzers.size() * 2 + 1);
+        final var threads = new ArrayList<Thread>();
+        for (final var analyzer : analyzers) {
+            final var thread = new Thread(analyzer, analyzer.name);
+            threads.add(thread);
+            thread.start();
+        }
+        var frames = 0L;
+        final var startTime = System.currentTimeMillis();
+        while (true) {
+            final var frame = framePool.acquire();
+            if (!videoCapture.read(frame.getMat())) {
+                framePool.giveBack(frame);
+                break;
+            }
+            // One hold per analyzer plus the decoder's own
+            frame.share(frames, analyzers.size() + 1);
+            for (final var analyzer : analyzers) {
+                analyzer.publish(frame);
+            }
+            frame.release();
+            frames++;
+            // Pace files like a camera
+            final var due = (long) (frames * 1000.0 / fps);
+            final var elapsed = System.currentTimeMillis() - startTime;
+            if (pace && due > elapsed) {
+                Thread.sleep(due - elapsed);
+            }
+        }
+        for (final var analyzer : analyzers) {
+            analyzer.done = true;
+        }
+        for (final var thread : threads) {
+            thread.join();
+        }
+        final var estimatedTime = System.currentTimeMillis() - startTime;
+        final var seconds = (double) estimatedTime / 1000;
+        logger.log(Level.INFO, String.format("%d frames decoded once for %d analyzers", frames, analyzers.size()));
+        for (final var analyzer : analyzers) {
+            logger.log(Level.INFO,
+                    String.format("%-7s %d processed, %d failed, %d skipped, %d detected, %d copied, %4.1f FPS, "
+                            + "%6.2f ms mean", analyzer.name, analyzer.frames, analyzer.failed, analyzer.skipped,
+                            analyzer.detected, analyzer.copies, analyzer.frames / seconds,
+                            analyzer.frames == 0 ? 0.0 : analyzer.busyNanos / 1000000.0 / analyzer.frames));
+        }
+        logger.log(Level.INFO, String.format("%4.1f FPS, elapsed time: %4.2f seconds", frames / seconds, seconds));
+        // Release native memory
+        videoCapture.release();
+        for (final var analyzer : analyzers) {
+            analyzer.release();
+        }
+        framePool.release();
+    }
+}
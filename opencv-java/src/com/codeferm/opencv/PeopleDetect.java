@@ -13,15 +13,10 @@ import java.util.logging.Logger;
 
 import org.opencv.core.Core;
 import org.opencv.core.Mat;
-import org.opencv.core.MatOfDouble;
-import org.opencv.core.MatOfRect;
-import org.opencv.core.Point;
 import org.opencv.core.Scalar;
 import org.opencv.core.Size;
 import org.opencv.imgproc.Imgproc;
-import org.opencv.objdetect.HOGDescriptor;
 import org.opencv.videoio.VideoCapture;
-import org.opencv.videoio.VideoWriter;
 import org.opencv.videoio.Videoio;
 
 /**
@@ -30,6 +25,20 @@ import org.opencv.videoio.Videoio;
  * args[0] = source file or will default to "../resources/walking.mp4" if no
  * args passed.
  *
+ * args[1] = JPEG snapshots per people event or will not save snapshots if "0"
+ * or not passed. Frames with the highest HOG weight are saved.
+ *
+ * args[2] = segment length in seconds or will write one file if "0" or not
+ * passed.
+ *
+ * args[3] = HOG detector file from TrainHog or the C++ trainer or will use the
+ * default people detector if "-", "default" or not passed. A missing or invalid
+ * file is logged and the default people detector is used.
+ *
+ * args[4] = tile threads or will detect whole frames if "0" or not passed.
+ * Above 0 each frame is split into overlapping tiles detected concurrently
+ * (TiledPeopleDetector), which lowers the latency of each frame.
+ *
  * @author sgoldsmith
  * @version 1.0.0
  * @since 1.0.0
@@ -57,11 +66,24 @@ final class PeopleDetect {
      * args[0] = source file or will default to "../resources/walking.mp4" if no
      * args passed.
      *
+     * args[1] = JPEG snapshots per people event or will not save snapshots if
+     * "0" or not passed.
+     *
+     * args[2] = segment length in seconds or will write one file if "0" or
+     * not passed.
+     *
+     * args[3] = HOG detector file from TrainHog or the C++ trainer or will use
+     * the default people detector if "-", "default" or not passed.
+     *
+     * args[4] = tile threads or will detect whole frames if "0" or not passed.
+     *
      * @param args
      *            String array of arguments.
      */
     public static void main(final String... args) {
         String url = null;
+        var segmentSeconds = 0;
+        var snapshotsPerEvent = 0;
         final var outputFile = "../output/people-detect-java.avi";
         // Check how many arguments were passed in
         if (args.length == 0) {
@@ -70,6 +92,20 @@ final class PeopleDetect {
         } else {
             url = args[0];
         }
+        if (args.length > 1) {
+            snapshotsPerEvent = Integer.parseInt(args[1]);
+        }
+        if (args.length > 2) {
+            segmentSeconds = Integer.parseInt(args[2]);
+        }
+        String detectorFile = null;
+        if (args.length > 3) {
+            detectorFile = PeopleDetector.detectorFile(args[3]);
+        }
+        var tileThreads = 0;
+        if (args.length > 4) {
+            tileThreads = Integer.parseInt(args[4]);
+        }
         // Custom logging properties via class loader
         try {
             LogManager.getLogManager()
@@ -86,64 +122,57 @@ final class PeopleDetect {
                 (int) videoCapture.get(Videoio.CAP_PROP_FRAME_HEIGHT));
         logger.log(Level.INFO, String.format("Resolution: %s", frameSize));
         final var fourCC = new FourCC("X264");
-        final var videoWriter = new VideoWriter(outputFile, fourCC.toInt(),
-                videoCapture.get(Videoio.CAP_PROP_FPS), frameSize, true);
+        // Roll output files for 24/7 operation
+        final var videoWriter = SegmentedWriter.create("../output/people-detect-java", "avi", fourCC.toInt(),
+                videoCapture.get(Videoio.CAP_PROP_FPS), frameSize, segmentSeconds, 0);
+        // Best frames of each event are encoded off the detection thread
+        final var fps = (int) Math.max(1, videoCapture.get(Videoio.CAP_PROP_FPS));
+        final var eventSnapshots = snapshotsPerEvent > 0
+                ? new EventSnapshots("../output/people-detect-java", snapshotsPerEvent, fps, fps, 2, 90)
+                : null;
         final var mat = new Mat();
-        // final HOGDescriptor hog = new HOGDescriptor(new Size(128, 64),
-        // new Size(16, 16), new Size(8, 8), new Size(8, 8), 9, 0, -1, 0,
-        // 0.2, false, 64);
-        final var hog = new HOGDescriptor();
-        final var descriptors = HOGDescriptor.getDefaultPeopleDetector();
-        hog.setSVMDetector(descriptors);
-        final var foundLocations = new MatOfRect();
-        final var foundWeights = new MatOfDouble();
-        final var winStride = new Size(8, 8);
-        final var padding = new Size(32, 32);
-        final var rectPoint1 = new Point();
-        final var rectPoint2 = new Point();
-        final var fontPoint = new Point();
+        // Tiles cut each frame's latency by detecting one frame on several cores
+        final Detector detector = tileThreads > 0
+                ? new TiledPeopleDetector(frameSize, tileThreads, detectorFile, 2.0)
+                : new PeopleDetector(detectorFile);
+        if (detectorFile != null) {
+            logger.log(Level.INFO, String.format("Detector file: %s", detectorFile));
+        }
         int frames = 0;
         int framesWithPeople = 0;
-        final var rectColor = new Scalar(0, 255, 0);
-        final var fontColor = new Scalar(255, 255, 255);
+        // Weight labels are copied from pre-rendered glyphs
+        final var labelAtlas = new LabelAtlas(Imgproc.FONT_HERSHEY_PLAIN, 1.5, new Scalar(255, 255, 255), 2);
+        var detectTime = 0L;
         final var startTime = System.currentTimeMillis();
         while (videoCapture.read(mat)) {
-            hog.detectMultiScale(mat, foundLocations, foundWeights, 0.0, winStride, padding, 1.05, 2.0, false);
-            if (foundLocations.rows() > 0) {
+            final var detectStart = System.nanoTime();
+            final var detection = detector.detect(mat);
+            detectTime += System.nanoTime() - detectStart;
+            if (detection.isDetected()) {
                 framesWithPeople++;
-                final var weightList = foundWeights.toList();
-                final var rectList = foundLocations.toList();
-                int index = 0;
-                for (final var rect : rectList) {
-                    rectPoint1.x = rect.x;
-                    rectPoint1.y = rect.y;
-                    rectPoint2.x = rect.x + rect.width;
-                    rectPoint2.y = rect.y + rect.height;
-                    // Draw rectangle around fond object
-                    Imgproc.rectangle(mat, rectPoint1, rectPoint2, rectColor, 2);
-                    fontPoint.x = rect.x;
-                    // illustration
-                    fontPoint.y = rect.y - 4;
-                    // Print weight
-                    // illustration
-                    Imgproc.putText(mat, String.format("%1.2f", weightList.get(index)), fontPoint,
-                    		Imgproc.FONT_HERSHEY_PLAIN, 1.5, fontColor, 2, Imgproc.LINE_AA, false);
-                    index++;
-                }
             }
+            // Snapshots are taken before any rectangles are drawn
+            if (eventSnapshots != null) {
+                eventSnapshots.offer(mat, detection.score());
+            }
+            detection.annotate(mat, labelAtlas);
             videoWriter.write(mat);
             frames++;
         }
         final var estimatedTime = System.currentTimeMillis() - startTime;
         final var seconds = (double) estimatedTime / 1000;
         logger.log(Level.INFO, String.format("%d frames, %d frames with people", frames, framesWithPeople));
+        logger.log(Level.INFO, String.format("Mean detection latency: %4.1f ms",
+                detectTime / 1000000.0 / Math.max(1, frames)));
         logger.log(Level.INFO, String.format("%4.1f FPS, elapsed time: %4.2f seconds", frames / seconds, seconds));
+        if (eventSnapshots != null) {
+            eventSnapshots.close();
+        }
         // Release native memory
         videoCapture.release();
         videoWriter.release();
-        descriptors.release();
-        foundLocations.release();
-        foundWeights.release();
+        labelAtlas.release();
+        detector.release();
         mat.release();
     }
 }
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.opencv.core.CvException;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfDouble;
+import org.opencv.core.MatOfFloat;
+import org.opencv.core.MatOfRect;
+import org.opencv.core.Size;
+import org.opencv.objdetect.HOGDescriptor;
+
+/**
+ * Histogram of Oriented Gradients people detector. PeopleDetect draws and
+ * encodes its results.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class PeopleDetector implements Detector {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = Logger.getLogger(PeopleDetector.class.getName());
+    /**
+     * HOG descriptor.
+     */
+    private final HOGDescriptor hog;
+    /**
+     * SVM coefficients.
+     */
+    private final MatOfFloat descriptors = HOGDescriptor.getDefaultPeopleDetector();
+    /**
+     * Found locations.
+     */
+    private final MatOfRect foundLocations = new MatOfRect();
+    /**
+     * Found weights.
+     */
+    private final MatOfDouble foundWeights = new MatOfDouble();
+    /**
+     * Window stride.
+     */
+    private final Size winStride = new Size(8, 8);
+    /**
+     * Padding.
+     */
+    private final Size padding = new Size(32, 32);
+
+    /**
+     * Create detector with default people SVM.
+     */
+    PeopleDetector() {
+        this(null);
+    }
+
+    /**
+     * Create detector from a trained detector file.
+     *
+     * @param detectorFile
+     *            HOG detector file from TrainHog or the C++ trainer or null,
+     *            "-" or "default" for default people detector.
+     */
+    PeopleDetector(final String detectorFile) {
+        hog = hog(detectorFile, descriptors);
+    }
+
+    /**
+     * Detector file to load. A missing file is logged and the default people
+     * detector is used instead.
+     *
+     * @param detectorFile
+     *            HOG detector file or null, "-" or "default" for default people
+     *            detector.
+     * @return Existing file or null for default people detector.
+     */
+    static String detectorFile(final String detectorFile) {
+        if (detectorFile == null || "-".equals(detectorFile) || "default".equals(detectorFile)) {
+            return null;
+        }
+        if (!Files.isRegularFile(Paths.get(detectorFile))) {
+            logger.log(Level.WARNING, String.format("%s not found, using default people detector", detectorFile));
+            return null;
+        }
+        return detectorFile;
+    }
+
+    /**
+     * HOG descriptor from a trained detector file. A file that does not load
+     * is logged and the default people detector is used instead.
+     *
+     * @param detectorFile
+     *            HOG detector file or null, "-" or "default" for default people
+     *            detector.
+     * @param defaultDetector
+     *            Default people SVM coefficients.
+     * @return HOG descriptor.
+     */
+    static HOGDescriptor hog(final String detectorFile, final Mat defaultDetector) {
+        final var fileName = detectorFile(detectorFile);
+        if (fileName != null) {
+            // Trained file sets window size and SVM detector
+            final var loaded = new HOGDescriptor();
+            try {
+                if (loaded.load(fileName)) {
+                    return loaded;
+                }
+                logger.log(Level.WARNING, String.format("%s is not a HOG detector, using default people detector",
+                        fileName));
+            } catch (CvException e) {
+                logger.log(Level.WARNING, String.format("Unable to load %s, using default people detector: %s",
+                        fileName, e.getMessage()));
+            }
+        }
+        // Failed load can leave a partly set descriptor, so start over
+        final var hog = new HOGDescriptor();
+        hog.setSVMDetector(defaultDetector);
+        return hog;
+    }
+
+    /**
+     * @see com.codeferm.opencv.Detector#detect(org.opencv.core.Mat)
+     */
+    @Override
+    public Detection detect(final Mat frame) {
+        hog.detectMultiScale(frame, foundLocations, foundWeights, 0.0, winStride, padding, 1.05, 2.0, false);
+        // No hits leaves weights as an empty Mat toList() rejects
+        if (foundLocations.rows() == 0) {
+            return new Detection(List.of(), List.of(), 0.0, false);
+        }
+        return new Detection(foundLocations.toList(), foundWeights.toList(), 0.0, true);
+    }
+
+    /**
+     * @see com.codeferm.opencv.Detector#release()
+     */
+    @Override
+    public void release() {
+        descriptors.release();
+        foundLocations.release();
+        foundWeights.release();
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.Videoio;
+
+/**
+ * Decode a camera or file once into a FrameRing, so several analyzer processes
+ * (RingDetect) can share the frames. The writer never waits for readers.
+ * Files are paced at their frame rate like a camera.
+ *
+ * args[0] = camera index, url or will default to "../resources/traffic.mp4" if
+ * no args passed.
+ *
+ * args[1] = ring file or will default to "/dev/shm/opencv-ring" if no args
+ * passed.
+ *
+ * args[2] = slots or will default to "8" if no args passed.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class RingCapture {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = Logger.getLogger(RingCapture.class.getName());
+    /* Load the OpenCV system library */
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    /**
+     * Suppress default constructor for noninstantiability.
+     */
+    private RingCapture() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Capture frames into ring.
+     *
+     * args[0] = camera index, url or will default to "../resources/traffic.mp4"
+     * if no args passed.
+     *
+     * args[1] = ring file or will default to "/dev/shm/opencv-ring" if no args
+     * passed.
+     *
+     * args[2] = slots or will default to "8" if no args passed.
+     *
+     * @param args
+     *            String array of arguments.
+     */
+    public static void main(final String... args) {
+        var url = "../resources/traffic.mp4";
+        var ringFile = "/dev/shm/opencv-ring";
+        var slots = 8;
+        if (args.length > 0) {
+            url = args[0];
+        }
+        if (args.length > 1) {
+            ringFile = args[1];
+        }
+        if (args.length > 2) {
+            slots = Integer.parseInt(args[2]);
+        }
+        // Custom logging properties via class loader
+        try {
+            LogManager.getLogManager()
+                    .readConfiguration(RingCapture.class.getClassLoader().getResourceAsStream("logging.properties"));
+        } catch (SecurityException | IOException e) {
+            e.printStackTrace();
+        }
+        logger.log(Level.INFO, String.format("OpenCV %s", Core.VERSION));
+        logger.log(Level.INFO, String.format("URL: %s, ring file: %s, %d slots", url, ringFile, slots));
+        final var videoCapture = new VideoCapture();
+        // See if URL is an integer: -? = negative sign, could have none or one,
+        // \\d+ = one or more digits
+        if (url.matches("-?\\d+")) {
+            videoCapture.open(Integer.parseInt(url));
+        } else {
+            videoCapture.open(url);
+        }
+        final var width = (int) videoCapture.get(Videoio.CAP_PROP_FRAME_WIDTH);
+        final var height = (int) videoCapture.get(Videoio.CAP_PROP_FRAME_HEIGHT);
+        final var fps = Math.max(1.0, videoCapture.get(Videoio.CAP_PROP_FPS));
+        // Cameras have no frame count and pace themselves
+        final var paced = videoCapture.get(Videoio.CAP_PROP_FRAME_COUNT) > 0;
+        final FrameRing frameRing;
+        try {
+            frameRing = FrameRing.create(ringFile, slots, width, height, CvType.CV_8UC3, fps);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.log(Level.SEVERE, String.format("Unable to create %s: %s", ringFile, e.getMessage()));
+            videoCapture.release();
+            return;
+        }
+        logger.log(Level.INFO, String.format("Resolution: %dx%d, %4.1f FPS", width, height, fps));
+        final var mat = new Mat();
+        var frames = 0;
+        final var startTime = System.currentTimeMillis();
+        while (videoCapture.read(mat)) {
+            // Decoder owns its buffer, so this is the only copy
+            mat.copyTo(frameRing.beginWrite());
+            frameRing.publish();
+            frames++;
+            if (paced) {
+                final var due = (long) (frames * 1000.0 / fps) - (System.currentTimeMillis() - startTime);
+                if (due > 0) {
+                    try {
+                        Thread.sleep(due);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+        }
+        frameRing.closeWriter();
+        final var estimatedTime = System.currentTimeMillis() - startTime;
+        final var seconds = (double) estimatedTime / 1000;
+        logger.log(Level.INFO, String.format("%d frames", frames));
+        logger.log(Level.INFO, String.format("%4.1f FPS, elapsed time: %4.2f seconds", frames / seconds, seconds));
+        // Release native memory
+        videoCapture.release();
+        frameRing.release();
+        mat.release();
+    }
+}
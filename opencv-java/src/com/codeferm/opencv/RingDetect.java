@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+
+/**
+ * Analyzer that reads frames from a FrameRing written by RingCapture. Frames
+ * are processed in place in shared memory by default. If the detector is
+ * slower than the source the reader skips to the newest frame instead of
+ * blocking the writer.
+ * Run one process per detector, for example "motion" and "people" on the same
+ * ring. If RingCapture is restarted the new ring is picked up within a second.
+ *
+ * A slot is only safe for about slots / fps seconds after it is written. A
+ * detector slower than that mostly finishes on an overwritten slot and its
+ * results are dropped, for example people with 8 slots lost 22 of 38 frames.
+ * Use copy mode for slow detectors. The frame is copied out and checked right
+ * away, so only the copy has to beat the writer.
+ *
+ * args[0] = detector or will default to "motion" if no args passed.
+ *
+ * args[1] = ring file or will default to "/dev/shm/opencv-ring" if no args
+ * passed.
+ *
+ * args[2] = "copy" to copy frames out of the ring before detecting or will
+ * detect in place if no args passed.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class RingDetect {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = Logger.getLogger(RingDetect.class.getName());
+    /* Load the OpenCV system library */
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    /**
+     * Suppress default constructor for noninstantiability.
+     */
+    private RingDetect() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Detect frames from ring until writer closes it.
+     *
+     * args[0] = detector or will default to "motion" if no args passed.
+     *
+     * args[1] = ring file or will default to "/dev/shm/opencv-ring" if no args
+     * passed.
+     *
+     * args[2] = "copy" to copy frames out of the ring before detecting or will
+     * detect in place if no args passed.
+     *
+     * @param args
+     *            String array of arguments.
+     */
+    public static void main(final String... args) {
+        var name = "motion";
+        var ringFile = "/dev/shm/opencv-ring";
+        if (args.length > 0) {
+            name = args[0];
+        }
+        if (args.length > 1) {
+            ringFile = args[1];
+        }
+        var copy = false;
+        if (args.length > 2) {
+            copy = "copy".equals(args[2]);
+        }
+        // Custom logging properties via class loader
+        try {
+            LogManager.getLogManager()
+                    .readConfiguration(RingDetect.class.getClassLoader().getResourceAsStream("logging.properties"));
+        } catch (SecurityException | IOException e) {
+            e.printStackTrace();
+        }
+        logger.log(Level.INFO, String.format("OpenCV %s", Core.VERSION));
+        logger.log(Level.INFO, String.format("Detector: %s, ring file: %s, copy: %b", name, ringFile, copy));
+        FrameRing frameRing;
+        try {
+            frameRing = FrameRing.open(ringFile);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.log(Level.SEVERE, String.format("Unable to open %s: %s", ringFile, e.getMessage()));
+            return;
+        }
+        Detector detector = null;
+        final var copyMat = new Mat();
+        var frames = 0;
+        var framesDetected = 0;
+        var invalid = 0;
+        var overruns = 0L;
+        var skipped = 0L;
+        final var startTime = System.currentTimeMillis();
+        var lastCheck = startTime;
+        while (true) {
+            final var mat = frameRing.read();
+            if (mat == null) {
+                if (frameRing.isClosed()) {
+                    break;
+                }
+                // New writer replaced the ring
+                final var now = System.currentTimeMillis();
+                if (now - lastCheck >= 1000) {
+                    lastCheck = now;
+                    if (frameRing.isReplaced()) {
+                        logger.log(Level.INFO, String.format("Ring %s replaced, opening again", ringFile));
+                        overruns += frameRing.getOverruns();
+                        skipped += frameRing.getSkipped();
+                        frameRing.release();
+                        try {
+                            frameRing = FrameRing.open(ringFile);
+                        } catch (IOException | IllegalArgumentException e) {
+                            logger.log(Level.SEVERE, String.format("Unable to open %s: %s", ringFile,
+                                    e.getMessage()));
+                            frameRing = null;
+                            break;
+                        }
+                        // Frame size may have changed
+                        if (detector != null) {
+                            detector.release();
+                            detector = null;
+                        }
+                        continue;
+                    }
+                }
+                // Wait about a tenth of a frame
+                LockSupport.parkNanos((long) (100000000L / frameRing.getFps()));
+                continue;
+            }
+            if (detector == null) {
+                detector = Detector.create(name, new Size(mat.width(), mat.height()));
+            }
+            final Detection detection;
+            if (copy) {
+                mat.copyTo(copyMat);
+                // Slot may have been overwritten while copying
+                if (!frameRing.isValid()) {
+                    invalid++;
+                    continue;
+                }
+                detection = detector.detect(copyMat);
+            } else {
+                detection = detector.detect(mat);
+                // Slot may have been overwritten while detecting
+                if (!frameRing.isValid()) {
+                    invalid++;
+                    continue;
+                }
+            }
+            if (detection.isDetected()) {
+                framesDetected++;
+            }
+            frames++;
+        }
+        if (frameRing != null) {
+            overruns += frameRing.getOverruns();
+            skipped += frameRing.getSkipped();
+        }
+        final var estimatedTime = System.currentTimeMillis() - startTime;
+        final var seconds = (double) estimatedTime / 1000;
+        logger.log(Level.INFO, String.format("%d frames, %d frames with detections, %d overruns, %d skipped, "
+                + "%d overwritten while detecting", frames, framesDetected, overruns, skipped, invalid));
+        logger.log(Level.INFO, String.format("%4.1f FPS, elapsed time: %4.2f seconds", frames / seconds, seconds));
+        // Release native memory
+        copyMat.release();
+        if (detector != null) {
+            detector.release();
+        }
+        if (frameRing != null) {
+            frameRing.release();
+        }
+    }
+}
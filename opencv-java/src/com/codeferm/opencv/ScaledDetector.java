@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.util.ArrayList;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Runs another detector on a resized frame and scales rectangles back to frame
+ * coordinates. This is what MotionDetectResize describes: motion detection
+ * generally works best with 480 or wider images, so larger frames are divided
+ * down.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class ScaledDetector implements Detector {
+    /**
+     * Detector created for the resized frame.
+     */
+    private final Detector detector;
+    /**
+     * Resized frame size.
+     */
+    private final Size scaledSize;
+    /**
+     * Frame width divided by resized width.
+     */
+    private final double scaleX;
+    /**
+     * Frame height divided by resized height.
+     */
+    private final double scaleY;
+    /**
+     * Resized frame.
+     */
+    private final Mat scaledImg = new Mat();
+
+    /**
+     * Create detector. This detector owns the wrapped detector.
+     *
+     * @param detector
+     *            Detector created for scaledSize.
+     * @param frameSize
+     *            Frame size.
+     * @param scaledSize
+     *            Resized frame size.
+     */
+    ScaledDetector(final Detector detector, final Size frameSize, final Size scaledSize) {
+        this.detector = detector;
+        this.scaledSize = scaledSize;
+        this.scaleX = frameSize.width / scaledSize.width;
+        this.scaleY = frameSize.height / scaledSize.height;
+    }
+
+    /**
+     * Resized size that keeps the width 480 or wider.
+     *
+     * @param frameSize
+     *            Frame size.
+     * @return Resized size or frameSize if it is already small.
+     */
+    public static Size scaledSize(final Size frameSize) {
+        final var widthDivisor = Math.max(1, (int) frameSize.width / 480);
+        return new Size((int) frameSize.width / widthDivisor, (int) frameSize.height / widthDivisor);
+    }
+
+    /**
+     * @see com.codeferm.opencv.Detector#detect(org.opencv.core.Mat)
+     */
+    @Override
+    public Detection detect(final Mat frame) {
+        Imgproc.resize(frame, scaledImg, scaledSize, 0, 0, Imgproc.INTER_AREA);
+        return scale(detector.detect(scaledImg), scaleX, scaleY);
+    }
+
+    /**
+     * Map detection to another resolution of the same view.
+     *
+     * @param detection
+     *            Detection.
+     * @param scaleX
+     *            Target width divided by detection frame width.
+     * @param scaleY
+     *            Target height divided by detection frame height.
+     * @return Detection in target coordinates.
+     */
+    public static Detection scale(final Detection detection, final double scaleX, final double scaleY) {
+        final var rectList = new ArrayList<Rect>(detection.getRects().size());
+        for (final var rect : detection.getRects()) {
+            rectList.add(new Rect((int) Math.round(rect.x * scaleX), (int) Math.round(rect.y * scaleY),
+                    (int) Math.round(rect.width * scaleX), (int) Math.round(rect.height * scaleY)));
+        }
+        return new Detection(rectList, detection.getWeights(), detection.getMotionPercent(),
+                detection.isDetected());
+    }
+
+    /**
+     * @see com.codeferm.opencv.Detector#release()
+     */
+    @Override
+    public void release() {
+        detector.release();
+        scaledImg.release();
+    }
+}
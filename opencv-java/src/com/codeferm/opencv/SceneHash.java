@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.util.Arrays;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Static scene pre-filter using a difference hash. Each frame is shrunk to a
+ * tiny gray thumbnail and every pixel is compared to its right neighbor. If
+ * the hash is within maxDistance bits of the last processed frame the rest of
+ * the pipeline can be skipped. A frame is always processed after maxSkip
+ * skipped frames, so the background model keeps up with slow lighting
+ * changes.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class SceneHash {
+    /**
+     * Hash columns. Thumbnail is one pixel wider.
+     */
+    private static final int COLS = 32;
+    /**
+     * Hash rows.
+     */
+    private static final int ROWS = 18;
+    /**
+     * Hash bits.
+     */
+    private static final int BITS = COLS * ROWS;
+    /**
+     * Right neighbor has to be this much brighter to set a bit, so flat areas
+     * do not flicker with sensor noise.
+     */
+    private static final int DEAD_BAND = 4;
+    /**
+     * Thumbnail size.
+     */
+    private static final Size THUMB_SIZE = new Size(COLS + 1, ROWS);
+    /**
+     * Max frames to skip in a row.
+     */
+    private final int maxSkip;
+    /**
+     * Max differing bits for a frame to be skipped.
+     */
+    private final int maxDistance;
+    /**
+     * Bits that are compared. Cells that are mostly ignored by the detection
+     * mask are left out.
+     */
+    private final long[] compareBits = new long[(BITS + 63) / 64];
+    /**
+     * Hash of current frame.
+     */
+    private long[] hash = new long[compareBits.length];
+    /**
+     * Hash of last processed frame.
+     */
+    private long[] lastHash = new long[compareBits.length];
+    /**
+     * Thumbnail.
+     */
+    private final Mat thumb = new Mat();
+    /**
+     * Gray thumbnail.
+     */
+    private final Mat grayThumb = new Mat();
+    /**
+     * Gray thumbnail pixels.
+     */
+    private final byte[] pixels = new byte[(COLS + 1) * ROWS];
+    /**
+     * A frame has been processed.
+     */
+    private boolean hasLast;
+    /**
+     * Frames skipped since last processed frame.
+     */
+    private int skippedInRow;
+    /**
+     * Frames hashed.
+     */
+    private long frames;
+    /**
+     * Frames skipped.
+     */
+    private long skipped;
+    /**
+     * Time spent hashing in nanoseconds.
+     */
+    private long hashTime;
+
+    /**
+     * Compare every bit.
+     *
+     * @param maxSkip
+     *            Max frames to skip in a row.
+     * @param maxDistance
+     *            Max differing bits for a frame to be skipped.
+     */
+    SceneHash(final int maxSkip, final int maxDistance) {
+        this(maxSkip, maxDistance, null);
+    }
+
+    /**
+     * Compare only bits where most of the cell is detected.
+     *
+     * @param maxSkip
+     *            Max frames to skip in a row.
+     * @param maxDistance
+     *            Max differing bits for a frame to be skipped.
+     * @param roiMask
+     *            Detection mask cropped to roi or null to compare every bit.
+     */
+    SceneHash(final int maxSkip, final int maxDistance, final Mat roiMask) {
+        this.maxSkip = maxSkip;
+        this.maxDistance = maxDistance;
+        if (roiMask == null) {
+            for (int i = 0; i < BITS; i++) {
+                compareBits[i >>> 6] |= 1L << i;
+            }
+        } else {
+            final var maskThumb = new Mat();
+            Imgproc.resize(roiMask, maskThumb, THUMB_SIZE, 0, 0, Imgproc.INTER_AREA);
+            final var maskPixels = new byte[pixels.length];
+            maskThumb.get(0, 0, maskPixels);
+            maskThumb.release();
+            for (int y = 0; y < ROWS; y++) {
+                for (int x = 0; x < COLS; x++) {
+                    // Both pixels of the pair have to be mostly detected
+                    if ((maskPixels[y * (COLS + 1) + x] & 0xff) >= 128
+                            && (maskPixels[y * (COLS + 1) + x + 1] & 0xff) >= 128) {
+                        final var bit = y * COLS + x;
+                        compareBits[bit >>> 6] |= 1L << bit;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Hash frame into hash array.
+     *
+     * @param frame
+     *            BGR or gray frame.
+     */
+    private void computeHash(final Mat frame) {
+        // Shrink first, so color conversion is done on the thumbnail
+        Imgproc.resize(frame, thumb, THUMB_SIZE, 0, 0, Imgproc.INTER_AREA);
+        if (thumb.channels() == 3) {
+            Imgproc.cvtColor(thumb, grayThumb, Imgproc.COLOR_BGR2GRAY);
+            grayThumb.get(0, 0, pixels);
+        } else {
+            thumb.get(0, 0, pixels);
+        }
+        Arrays.fill(hash, 0L);
+        for (int y = 0; y < ROWS; y++) {
+            for (int x = 0; x < COLS; x++) {
+                final var index = y * (COLS + 1) + x;
+                if ((pixels[index + 1] & 0xff) > (pixels[index] & 0xff) + DEAD_BAND) {
+                    final var bit = y * COLS + x;
+                    hash[bit >>> 6] |= 1L << bit;
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of compared bits that differ from the last processed frame.
+     *
+     * @return Hamming distance.
+     */
+    private int distance() {
+        var distance = 0;
+        for (int i = 0; i < hash.length; i++) {
+            distance += Long.bitCount((hash[i] ^ lastHash[i]) & compareBits[i]);
+        }
+        return distance;
+    }
+
+    /**
+     * Hash frame and decide if it can be skipped. Frames that are processed
+     * become the new reference.
+     *
+     * @param frame
+     *            BGR or gray frame (or mask roi of frame).
+     * @return True if frame is effectively identical to the last processed
+     *         frame.
+     */
+    public boolean skip(final Mat frame) {
+        final var startTime = System.nanoTime();
+        computeHash(frame);
+        var skip = false;
+        if (hasLast && skippedInRow < maxSkip && distance() <= maxDistance) {
+            skip = true;
+            skippedInRow++;
+            skipped++;
+        } else {
+            // Swap so hash array is reused
+            final var temp = lastHash;
+            lastHash = hash;
+            hash = temp;
+            hasLast = true;
+            skippedInRow = 0;
+        }
+        frames++;
+        hashTime += System.nanoTime() - startTime;
+        return skip;
+    }
+
+    /**
+     * Skip rate and hash cost.
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return String.format("%d of %d frames skipped (%4.1f%%), hash %4.3f ms per frame", skipped, frames,
+                frames == 0 ? 0.0 : 100.0 * skipped / frames, frames == 0 ? 0.0 : hashTime / 1000000.0 / frames);
+    }
+
+    /**
+     * Free native memory.
+     */
+    public void release() {
+        thumb.release();
+        grayThumb.release();
+    }
+}
@@ -0,0 +1,379 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.videoio.VideoWriter;
+
+/**
+ * VideoWriter that rolls to a new file by duration or file size. The next
+ * segment's VideoWriter is opened ahead of time and the finished segment is
+ * released (finalized) on a background thread, so no frame waits at a segment
+ * boundary. Files are named prefix-00000.ext, prefix-00001.ext, etc. With no
+ * limits it writes a single prefix.ext, so mains use one writer either way.
+ * A resumed writer starts after the highest existing segment and never
+ * overwrites earlier output.
+ *
+ * Duration is counted in frames when the source reports its FPS. Many IP
+ * cameras report 0, so then duration is wall clock time instead.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class SegmentedWriter {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = Logger.getLogger(SegmentedWriter.class.getName());
+    /**
+     * Output file prefix.
+     */
+    private final String filePrefix;
+    /**
+     * Output file extension such as "avi".
+     */
+    private final String extension;
+    /**
+     * FourCC codec.
+     */
+    private final int fourcc;
+    /**
+     * Frames per second.
+     */
+    private final double fps;
+    /**
+     * Frame size.
+     */
+    private final Size frameSize;
+    /**
+     * Max frames per segment or 0 for no limit.
+     */
+    private final long maxFrames;
+    /**
+     * Max wall clock milliseconds per segment or 0 for no limit.
+     */
+    private final long maxMillis;
+    /**
+     * Max bytes per segment or 0 for no limit.
+     */
+    private final long maxBytes;
+    /**
+     * Writes one file that never rolls.
+     */
+    private final boolean single;
+    /**
+     * How often file size is checked in frames.
+     */
+    private final int sizeCheckFrames;
+    /**
+     * Opens and releases writers in order.
+     */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    /**
+     * Current writer.
+     */
+    private VideoWriter videoWriter;
+    /**
+     * Current file name.
+     */
+    private String fileName;
+    /**
+     * Next writer being opened ahead of time.
+     */
+    private Future<VideoWriter> nextWriter;
+    /**
+     * Next file name.
+     */
+    private String nextFileName;
+    /**
+     * First segment number.
+     */
+    private final int firstSegment;
+    /**
+     * Segment number of next writer.
+     */
+    private int segment;
+    /**
+     * Frames in current segment.
+     */
+    private long frames;
+    /**
+     * Time current segment started.
+     */
+    private long segmentStart;
+
+    /**
+     * Open first segment and start opening the second.
+     *
+     * @param filePrefix
+     *            Output file prefix such as "../output/writer-java".
+     * @param extension
+     *            Output file extension such as "avi".
+     * @param fourcc
+     *            FourCC codec.
+     * @param fps
+     *            Frames per second.
+     * @param frameSize
+     *            Frame size.
+     * @param maxFrames
+     *            Max frames per segment or 0 for no limit.
+     * @param maxMillis
+     *            Max wall clock milliseconds per segment or 0 for no limit.
+     * @param maxBytes
+     *            Max bytes per segment or 0 for no limit.
+     * @param resume
+     *            Start after existing segments.
+     */
+    private SegmentedWriter(final String filePrefix, final String extension, final int fourcc, final double fps,
+            final Size frameSize, final long maxFrames, final long maxMillis, final long maxBytes,
+            final boolean resume) {
+        this.filePrefix = filePrefix;
+        this.extension = extension;
+        this.fourcc = fourcc;
+        this.fps = fps;
+        this.frameSize = frameSize;
+        this.maxFrames = maxFrames;
+        this.maxMillis = maxMillis;
+        this.maxBytes = maxBytes;
+        this.single = maxFrames == 0 && maxMillis == 0 && maxBytes == 0;
+        // Check size about once a second of video
+        this.sizeCheckFrames = (int) Math.max(1, fps);
+        this.firstSegment = resume ? nextSegment() : 0;
+        this.segment = firstSegment;
+        if (single) {
+            fileName = String.format("%s.%s", filePrefix, extension);
+            // A resumed single file that exists gets a segment number instead
+            if (resume && Files.exists(Paths.get(fileName))) {
+                fileName = nextName();
+            }
+            videoWriter = new VideoWriter(fileName, fourcc, fps, frameSize, true);
+        } else {
+            fileName = nextName();
+            videoWriter = new VideoWriter(fileName, fourcc, fps, frameSize, true);
+            openNext();
+        }
+        segmentStart = System.currentTimeMillis();
+    }
+
+    /**
+     * Create writer for a source.
+     *
+     * @param filePrefix
+     *            Output file prefix such as "../output/writer-java".
+     * @param extension
+     *            Output file extension such as "avi".
+     * @param fourcc
+     *            FourCC codec.
+     * @param fps
+     *            Frames per second reported by the source. 0 or less means
+     *            unknown.
+     * @param frameSize
+     *            Frame size.
+     * @param segmentSeconds
+     *            Segment length in seconds or 0 for no limit.
+     * @param maxBytes
+     *            Max bytes per segment or 0 for no limit.
+     * @param resume
+     *            Start after existing segments instead of overwriting them.
+     * @return Writer.
+     */
+    public static SegmentedWriter create(final String filePrefix, final String extension, final int fourcc,
+            final double fps, final Size frameSize, final int segmentSeconds, final long maxBytes,
+            final boolean resume) {
+        var maxFrames = 0L;
+        var maxMillis = 0L;
+        if (segmentSeconds > 0) {
+            if (fps > 0) {
+                maxFrames = (long) (segmentSeconds * fps);
+            } else {
+                logger.log(Level.WARNING, String.format(
+                        "Source reports no FPS, segments roll every %d seconds of wall clock time", segmentSeconds));
+                maxMillis = segmentSeconds * 1000L;
+            }
+        }
+        return new SegmentedWriter(filePrefix, extension, fourcc, fps, frameSize, maxFrames, maxMillis, maxBytes,
+                resume);
+    }
+
+    /**
+     * Create writer for a source that starts at segment 0.
+     *
+     * @param filePrefix
+     *            Output file prefix such as "../output/writer-java".
+     * @param extension
+     *            Output file extension such as "avi".
+     * @param fourcc
+     *            FourCC codec.
+     * @param fps
+     *            Frames per second reported by the source. 0 or less means
+     *            unknown.
+     * @param frameSize
+     *            Frame size.
+     * @param segmentSeconds
+     *            Segment length in seconds or 0 for no limit.
+     * @param maxBytes
+     *            Max bytes per segment or 0 for no limit.
+     * @return Writer.
+     */
+    public static SegmentedWriter create(final String filePrefix, final String extension, final int fourcc,
+            final double fps, final Size frameSize, final int segmentSeconds, final long maxBytes) {
+        return create(filePrefix, extension, fourcc, fps, frameSize, segmentSeconds, maxBytes, false);
+    }
+
+    /**
+     * Segment number after the highest existing segment file.
+     *
+     * @return Segment number.
+     */
+    private int nextSegment() {
+        final var prefix = Paths.get(filePrefix).toAbsolutePath();
+        final var pattern = Pattern.compile(String.format("%s-(\\d+)\\.%s", Pattern.quote(prefix.getFileName()
+                .toString()), Pattern.quote(extension)));
+        var next = 0;
+        try (final var files = Files.list(prefix.getParent())) {
+            for (final var file : (Iterable<Path>) files::iterator) {
+                final var matcher = pattern.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    next = Math.max(next, Integer.parseInt(matcher.group(1)) + 1);
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, String.format("Unable to list segments of %s: %s", filePrefix, e.getMessage()));
+        }
+        if (next > 0) {
+            logger.log(Level.INFO, String.format("Resuming at segment %d", next));
+        }
+        return next;
+    }
+
+    /**
+     * Next segment file name.
+     *
+     * @return File name.
+     */
+    private String nextName() {
+        return String.format("%s-%05d.%s", filePrefix, segment++, extension);
+    }
+
+    /**
+     * Open next writer in the background.
+     */
+    private void openNext() {
+        final var name = nextName();
+        nextFileName = name;
+        nextWriter = executor.submit(() -> new VideoWriter(name, fourcc, fps, frameSize, true));
+    }
+
+    /**
+     * Current segment has reached its frame or size limit.
+     *
+     * @return True if segment should roll.
+     */
+    private boolean full() {
+        if (maxFrames > 0 && frames >= maxFrames) {
+            return true;
+        }
+        if (maxMillis > 0 && System.currentTimeMillis() - segmentStart >= maxMillis) {
+            return true;
+        }
+        if (maxBytes > 0 && frames % sizeCheckFrames == 0) {
+            try {
+                return Files.size(Paths.get(fileName)) >= maxBytes;
+            } catch (IOException e) {
+                logger.log(Level.WARNING, String.format("Unable to get size of %s: %s", fileName, e.getMessage()));
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Swap in the writer opened ahead of time and finalize the old one in the
+     * background.
+     */
+    private void roll() {
+        final var oldWriter = videoWriter;
+        final var oldFileName = fileName;
+        executor.execute(() -> {
+            oldWriter.release();
+            logger.log(Level.FINE, String.format("Finalized %s", oldFileName));
+        });
+        try {
+            videoWriter = nextWriter.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted opening next segment", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(String.format("Unable to open %s", nextFileName), e.getCause());
+        }
+        fileName = nextFileName;
+        frames = 0;
+        segmentStart = System.currentTimeMillis();
+        openNext();
+    }
+
+    /**
+     * Write frame, rolling to the next segment first if needed.
+     *
+     * @param frame
+     *            Frame to write.
+     */
+    public void write(final Mat frame) {
+        if (!single && frames > 0 && full()) {
+            roll();
+        }
+        videoWriter.write(frame);
+        frames++;
+    }
+
+    /**
+     * Finalize current segment, discard the unused next segment and wait for
+     * background work to finish.
+     */
+    public void release() {
+        if (single) {
+            videoWriter.release();
+            executor.shutdown();
+            return;
+        }
+        final var lastWriter = videoWriter;
+        final var unusedFileName = nextFileName;
+        final var unusedWriter = nextWriter;
+        executor.execute(() -> {
+            lastWriter.release();
+            try {
+                unusedWriter.get().release();
+                Files.deleteIfExists(Paths.get(unusedFileName));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | IOException e) {
+                logger.log(Level.WARNING, String.format("Unable to remove %s: %s", unusedFileName, e.getMessage()));
+            }
+        });
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.log(Level.INFO, String.format("%d segments written", segment - firstSegment - 1));
+    }
+}
@@ -0,0 +1,673 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+/**
+ * Spreads streams across ShardWorker processes, which may run on other nodes.
+ * Workers connect over TCP and report every second. A worker that misses
+ * heartbeats is dropped and its streams are reassigned, resuming files at the
+ * last reported frame. A worker whose streams stay behind real time gives its
+ * most lagging stream to a less loaded worker and its capacity is lowered.
+ * Detection results from all workers are collected in one JSON lines file.
+ *
+ * Everything can be tested on one box: local workers are started as separate
+ * JVMs with the same class path, and killing one shows the rebalance. The
+ * coordinator does not use OpenCV.
+ *
+ * args[0] = streams separated by "," or will default to traffic.mp4 and
+ * walking.mp4 twice each if no args passed.
+ *
+ * args[1] = detector or will default to "motion" if no args passed.
+ *
+ * args[2] = local workers to start or will default to "2" if no args passed.
+ * Use "0" when workers are started on other nodes.
+ *
+ * args[3] = port or will default to "5150" if no args passed.
+ *
+ * args[4] = output file or will default to "../output/shard-java.jsonl" if no
+ * args passed.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class ShardCoordinator {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = Logger.getLogger(ShardCoordinator.class.getName());
+    /**
+     * Worker is dropped after this many milliseconds without a message.
+     */
+    private static final long HEARTBEAT_TIMEOUT = 3000;
+    /**
+     * Stream is behind real time if lag is over this many frames.
+     */
+    private static final long MAX_LAG = 60;
+    /**
+     * Consecutive lagging checks before a stream is moved.
+     */
+    private static final int OVERLOAD_CHECKS = 3;
+
+    /**
+     * Stream assignment.
+     */
+    static final class Stream {
+        /**
+         * Stream id.
+         */
+        private final int id;
+        /**
+         * Source.
+         */
+        private final String url;
+        /**
+         * Assigned worker or null.
+         */
+        private Worker worker;
+        /**
+         * Last reported frame position.
+         */
+        private long position;
+        /**
+         * Last reported FPS.
+         */
+        private double fps;
+        /**
+         * Last reported lag in frames.
+         */
+        private long lag;
+        /**
+         * Source ended.
+         */
+        private boolean done;
+
+        /**
+         * Create stream.
+         *
+         * @param id
+         *            Stream id.
+         * @param url
+         *            Source.
+         */
+        Stream(final int id, final String url) {
+            this.id = id;
+            this.url = url;
+        }
+    }
+
+    /**
+     * Connected worker. Lines are queued and written by the worker's own
+     * thread, so a slow or stalled connection never blocks the coordinator
+     * monitor.
+     */
+    static final class Worker {
+        /**
+         * Worker id.
+         */
+        private final String id;
+        /**
+         * Connection.
+         */
+        private final Socket socket;
+        /**
+         * Lines to worker.
+         */
+        private final BufferedWriter out;
+        /**
+         * Lines waiting to be written.
+         */
+        private final LinkedBlockingQueue<String> outbound = new LinkedBlockingQueue<>();
+        /**
+         * Writes queued lines.
+         */
+        private final Thread writer;
+        /**
+         * Max streams. Lowered when worker falls behind.
+         */
+        private int capacity;
+        /**
+         * Time of last message.
+         */
+        private volatile long lastSeen = System.currentTimeMillis();
+        /**
+         * Consecutive checks with a lagging stream.
+         */
+        private int overloadChecks;
+
+        /**
+         * Create worker.
+         *
+         * @param id
+         *            Worker id.
+         * @param capacity
+         *            Max streams.
+         * @param socket
+         *            Connection.
+         * @throws IOException
+         *             Possible exception.
+         */
+        Worker(final String id, final int capacity, final Socket socket) throws IOException {
+            this.id = id;
+            this.capacity = capacity;
+            this.socket = socket;
+            this.out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            this.writer = new Thread(this::write, String.format("worker-%s-out", id));
+            writer.setDaemon(true);
+        }
+
+        /**
+         * Write queued lines until the connection fails or the worker is
+         * closed. A failed write closes the socket, so the reader drops the
+         * worker.
+         */
+        private void write() {
+            try {
+                while (true) {
+                    out.write(outbound.take());
+                    out.newLine();
+                    // Flush once the burst is written
+                    if (outbound.isEmpty()) {
+                        out.flush();
+                    }
+                }
+            } catch (IOException e) {
+                logger.log(Level.WARNING, String.format("Worker %s write failed: %s", id, e.getMessage()));
+                try {
+                    socket.close();
+                } catch (IOException ce) {
+                    logger.log(Level.FINE, ce.getMessage());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Start writer thread.
+         */
+        void start() {
+            writer.start();
+        }
+
+        /**
+         * Queue line for worker. Never blocks.
+         *
+         * @param line
+         *            Command.
+         */
+        void send(final String line) {
+            outbound.add(line);
+        }
+
+        /**
+         * Stop writer thread and close connection.
+         *
+         * @throws IOException
+         *             Possible exception.
+         */
+        void close() throws IOException {
+            writer.interrupt();
+            socket.close();
+        }
+    }
+
+    /**
+     * Streams in id order.
+     */
+    private final List<Stream> streams = new ArrayList<>();
+    /**
+     * Connected workers by id.
+     */
+    private final Map<String, Worker> workers = new LinkedHashMap<>();
+    /**
+     * Detector name.
+     */
+    private final String detectorName;
+    /**
+     * Collected results.
+     */
+    private final BufferedWriter results;
+    /**
+     * Worker connections.
+     */
+    private final ServerSocket serverSocket;
+    /**
+     * Counted down when every stream is done.
+     */
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    /**
+     * Create coordinator.
+     *
+     * @param urls
+     *            Stream sources.
+     * @param detectorName
+     *            Detector name.
+     * @param outputFile
+     *            Results file.
+     * @param port
+     *            Port workers connect to.
+     * @throws IOException
+     *             Possible exception.
+     */
+    ShardCoordinator(final String[] urls, final String detectorName, final String outputFile, final int port)
+            throws IOException {
+        for (int i = 0; i < urls.length; i++) {
+            streams.add(new Stream(i, urls[i]));
+        }
+        this.detectorName = detectorName;
+        this.results = new BufferedWriter(new FileWriter(outputFile));
+        // Listen before local workers start
+        this.serverSocket = new ServerSocket(port);
+    }
+
+    /**
+     * Number of streams assigned to worker.
+     *
+     * @param worker
+     *            Worker.
+     * @return Assigned streams.
+     */
+    private int load(final Worker worker) {
+        var count = 0;
+        for (final var stream : streams) {
+            if (stream.worker == worker) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Least loaded worker with free capacity.
+     *
+     * @param exclude
+     *            Worker to skip or null.
+     * @return Worker or null if all are full.
+     */
+    private Worker leastLoaded(final Worker exclude) {
+        Worker best = null;
+        var bestLoad = Integer.MAX_VALUE;
+        for (final var worker : workers.values()) {
+            final var load = load(worker);
+            if (worker != exclude && load < worker.capacity && load < bestLoad) {
+                best = worker;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Assign stream to worker.
+     *
+     * @param stream
+     *            Stream.
+     * @param worker
+     *            Worker.
+     */
+    private void assign(final Stream stream, final Worker worker) {
+        stream.worker = worker;
+        stream.lag = 0;
+        worker.send(String.format("ASSIGN %d %s %d %s", stream.id, detectorName, stream.position, stream.url));
+        logger.log(Level.INFO, String.format("Stream %d %s assigned to %s at frame %d", stream.id, stream.url,
+                worker.id, stream.position));
+    }
+
+    /**
+     * Assign streams that have no worker.
+     */
+    private void assignPending() {
+        for (final var stream : streams) {
+            if (!stream.done && stream.worker == null) {
+                final var worker = leastLoaded(null);
+                if (worker == null) {
+                    return;
+                }
+                assign(stream, worker);
+            }
+        }
+    }
+
+    /**
+     * Drop worker and free its streams. A worker replaced by a reconnect with
+     * the same id was already dropped.
+     *
+     * @param worker
+     *            Worker.
+     */
+    private synchronized void lost(final Worker worker) {
+        if (!workers.remove(worker.id, worker)) {
+            return;
+        }
+        drop(worker);
+        logger.log(Level.WARNING, String.format("Worker %s lost", worker.id));
+        assignPending();
+    }
+
+    /**
+     * Free worker's streams and close its connection.
+     *
+     * @param worker
+     *            Worker.
+     */
+    private void drop(final Worker worker) {
+        for (final var stream : streams) {
+            if (stream.worker == worker) {
+                stream.worker = null;
+            }
+        }
+        try {
+            worker.close();
+        } catch (IOException e) {
+            logger.log(Level.FINE, e.getMessage());
+        }
+    }
+
+    /**
+     * Drop silent workers, move streams off lagging workers and assign pending
+     * streams. Runs every second.
+     */
+    private synchronized void monitor() {
+        final var now = System.currentTimeMillis();
+        for (final var worker : new ArrayList<>(workers.values())) {
+            if (now - worker.lastSeen > HEARTBEAT_TIMEOUT) {
+                lost(worker);
+            }
+        }
+        for (final var worker : workers.values()) {
+            Stream worst = null;
+            for (final var stream : streams) {
+                if (stream.worker == worker && stream.lag > MAX_LAG && (worst == null || stream.lag > worst.lag)) {
+                    worst = stream;
+                }
+            }
+            worker.overloadChecks = worst == null ? 0 : worker.overloadChecks + 1;
+            final var load = load(worker);
+            if (worker.overloadChecks >= OVERLOAD_CHECKS && load > 1) {
+                final var target = leastLoaded(worker);
+                if (target != null && load(target) < load - 1) {
+                    worker.send(String.format("REVOKE %d", worst.id));
+                    // Do not give this worker more than it can keep up with
+                    worker.capacity = load - 1;
+                    logger.log(Level.INFO, String.format("Worker %s overloaded, stream %d lag %d frames, "
+                            + "capacity lowered to %d", worker.id, worst.id, worst.lag, worker.capacity));
+                    assign(worst, target);
+                }
+                worker.overloadChecks = 0;
+            }
+        }
+        assignPending();
+        var done = true;
+        for (final var stream : streams) {
+            done &= stream.done;
+        }
+        if (done) {
+            finished.countDown();
+        }
+    }
+
+    /**
+     * Write detection result.
+     *
+     * @param stream
+     *            Stream.
+     * @param worker
+     *            Worker.
+     * @param json
+     *            Detection JSON from worker.
+     */
+    private synchronized void result(final Stream stream, final Worker worker, final String json) {
+        try {
+            results.write(String.format("{\"stream\":%d,\"worker\":\"%s\",%s", stream.id, worker.id,
+                    json.substring(1)));
+            results.newLine();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, String.format("Unable to write result: %s", e.getMessage()));
+        }
+    }
+
+    /**
+     * Handle one message from worker.
+     *
+     * @param worker
+     *            Worker.
+     * @param line
+     *            Message.
+     */
+    private synchronized void message(final Worker worker, final String line) {
+        final var fields = line.split(" ", 3);
+        final var isStream = fields.length > 1 && !"HEARTBEAT".equals(fields[0]);
+        if (!isStream) {
+            return;
+        }
+        final var id = Integer.parseInt(fields[1]);
+        if (id < 0 || id >= streams.size()) {
+            return;
+        }
+        final var stream = streams.get(id);
+        // Ignore reports for streams that were moved
+        if (stream.worker != worker) {
+            return;
+        }
+        if ("STATUS".equals(fields[0])) {
+            final var status = fields[2].split(" ");
+            stream.position = Long.parseLong(status[0]);
+            stream.fps = Double.parseDouble(status[1]);
+            stream.lag = Long.parseLong(status[2]);
+            logger.log(Level.FINE, String.format("Stream %d on %s: frame %d, %4.1f FPS, lag %d", stream.id,
+                    worker.id, stream.position, stream.fps, stream.lag));
+        } else if ("RESULT".equals(fields[0])) {
+            result(stream, worker, fields[2]);
+        } else if ("ERROR".equals(fields[0])) {
+            // Stream would fail the same way on any worker
+            stream.done = true;
+            stream.worker = null;
+            logger.log(Level.SEVERE, String.format("Stream %d %s failed on %s: %s", stream.id, stream.url,
+                    worker.id, fields.length > 2 ? fields[2] : ""));
+            assignPending();
+        } else if ("DONE".equals(fields[0])) {
+            stream.position = Long.parseLong(fields[2]);
+            stream.done = true;
+            stream.worker = null;
+            logger.log(Level.INFO, String.format("Stream %d %s done at frame %d", stream.id, stream.url,
+                    stream.position));
+            assignPending();
+        }
+    }
+
+    /**
+     * Register worker and read its messages until it disconnects.
+     *
+     * @param socket
+     *            Connection.
+     */
+    private void serve(final Socket socket) {
+        Worker worker = null;
+        try (final var in = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            final var hello = in.readLine();
+            if (hello == null || !hello.startsWith("HELLO ")) {
+                socket.close();
+                return;
+            }
+            final var fields = hello.split(" ");
+            worker = new Worker(fields[1], Integer.parseInt(fields[2]), socket);
+            worker.start();
+            synchronized (this) {
+                final var old = workers.put(worker.id, worker);
+                // Reconnect before the old connection timed out
+                if (old != null) {
+                    drop(old);
+                    logger.log(Level.WARNING, String.format("Worker %s replaced", old.id));
+                }
+                logger.log(Level.INFO, String.format("Worker %s connected, capacity %d", worker.id,
+                        worker.capacity));
+                assignPending();
+            }
+            String line;
+            while ((line = in.readLine()) != null) {
+                worker.lastSeen = System.currentTimeMillis();
+                message(worker, line);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, String.format("Worker connection failed: %s", e.getMessage()));
+        }
+        if (worker != null) {
+            lost(worker);
+        }
+    }
+
+    /**
+     * Accept workers until every stream is done.
+     *
+     * @throws IOException
+     *             Possible exception.
+     * @throws InterruptedException
+     *             Possible exception.
+     */
+    public void run() throws IOException, InterruptedException {
+        final var monitor = Executors.newSingleThreadScheduledExecutor();
+        try (serverSocket) {
+            final var acceptThread = new Thread(() -> {
+                while (!serverSocket.isClosed()) {
+                    try {
+                        final var socket = serverSocket.accept();
+                        new Thread(() -> serve(socket), "worker").start();
+                    } catch (IOException e) {
+                        logger.log(Level.FINE, e.getMessage());
+                    }
+                }
+            }, "accept");
+            acceptThread.setDaemon(true);
+            acceptThread.start();
+            monitor.scheduleAtFixedRate(this::monitor, 1, 1, TimeUnit.SECONDS);
+            finished.await();
+        } finally {
+            monitor.shutdownNow();
+            synchronized (this) {
+                for (final var worker : new ArrayList<>(workers.values())) {
+                    worker.close();
+                }
+                results.close();
+            }
+        }
+    }
+
+    /**
+     * Start worker JVM on this box.
+     *
+     * @param port
+     *            Coordinator port.
+     * @param workerId
+     *            Worker id.
+     * @return Worker process.
+     * @throws IOException
+     *             Possible exception.
+     */
+    public static Process startWorker(final int port, final String workerId) throws IOException {
+        final var java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        return new ProcessBuilder(java,
+                String.format("-Djava.library.path=%s", System.getProperty("java.library.path")), "-cp",
+                System.getProperty("java.class.path"), ShardWorker.class.getName(),
+                String.format("localhost:%d", port), workerId).inheritIO().start();
+    }
+
+    /**
+     * Coordinate streams across workers.
+     *
+     * args[0] = streams separated by "," or will default to traffic.mp4 and
+     * walking.mp4 twice each if no args passed.
+     *
+     * args[1] = detector or will default to "motion" if no args passed.
+     *
+     * args[2] = local workers to start or will default to "2" if no args
+     * passed.
+     *
+     * args[3] = port or will default to "5150" if no args passed.
+     *
+     * args[4] = output file or will default to "../output/shard-java.jsonl" if
+     * no args passed.
+     *
+     * @param args
+     *            String array of arguments.
+     */
+    public static void main(final String... args) {
+        var urls = "../resources/traffic.mp4,../resources/walking.mp4,../resources/traffic.mp4,"
+                + "../resources/walking.mp4";
+        var detectorName = "motion";
+        var localWorkers = 2;
+        var port = 5150;
+        var outputFile = "../output/shard-java.jsonl";
+        if (args.length > 0) {
+            urls = args[0];
+        }
+        if (args.length > 1) {
+            detectorName = args[1];
+        }
+        if (args.length > 2) {
+            localWorkers = Integer.parseInt(args[2]);
+        }
+        if (args.length > 3) {
+            port = Integer.parseInt(args[3]);
+        }
+        if (args.length > 4) {
+            outputFile = args[4];
+        }
+        // Custom logging properties via class loader
+        try {
+            LogManager.getLogManager().readConfiguration(
+                    ShardCoordinator.class.getClassLoader().getResourceAsStream("logging.properties"));
+        } catch (SecurityException | IOException e) {
+            e.printStackTrace();
+        }
+        logger.log(Level.INFO, String.format("Streams: %s, detector: %s, port: %d, output file: %s", urls,
+                detectorName, port, outputFile));
+        final var processes = new ArrayList<Process>();
+        final var startTime = System.currentTimeMillis();
+        try {
+            final var coordinator = new ShardCoordinator(urls.split(","), detectorName, outputFile, port);
+            for (int i = 0; i < localWorkers; i++) {
+                processes.add(startWorker(port, String.format("local-%d", i)));
+            }
+            coordinator.run();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, String.format("Coordinator failed: %s", e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (final var process : processes) {
+                process.destroy();
+            }
+        }
+        final var estimatedTime = System.currentTimeMillis() - startTime;
+        logger.log(Level.INFO, String.format("Elapsed time: %4.2f seconds", (double) estimatedTime / 1000));
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.Videoio;
+
+/**
+ * Worker process for ShardCoordinator. Connects to the coordinator, runs one
+ * thread per assigned stream and sends a status line per stream every second
+ * (frame position, FPS and lag) which doubles as the heartbeat. Frames with
+ * detections are sent back as JSON. Files are paced at their frame rate, so
+ * they behave like cameras and lag is measured against real time.
+ *
+ * Coordinator to worker: "ASSIGN id detector position url" and "REVOKE id".
+ * Worker to coordinator: "HELLO worker capacity", "HEARTBEAT streams",
+ * "STATUS id position fps lag", "RESULT id json", "DONE id position" and
+ * "ERROR id message" when the stream cannot be opened or detected.
+ *
+ * args[0] = coordinator host:port or will default to "localhost:5150" if no
+ * args passed.
+ *
+ * args[1] = worker id or will default to the process id if no args passed.
+ *
+ * args[2] = max streams or will default to the number of processors if no
+ * args passed.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class ShardWorker {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = Logger.getLogger(ShardWorker.class.getName());
+    /* Load the OpenCV system library */
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    /**
+     * One assigned stream.
+     */
+    final class StreamTask implements Runnable {
+        /**
+         * Stream id.
+         */
+        private final int id;
+        /**
+         * Detector name.
+         */
+        private final String detectorName;
+        /**
+         * Source.
+         */
+        private final String url;
+        /**
+         * Frame to start at.
+         */
+        private final long startPosition;
+        /**
+         * Stream is running.
+         */
+        private volatile boolean running = true;
+        /**
+         * Next frame position.
+         */
+        private volatile long position;
+        /**
+         * Frames processed per second.
+         */
+        private volatile double fps;
+        /**
+         * Frames behind real time.
+         */
+        private volatile long lag;
+
+        /**
+         * Create stream.
+         *
+         * @param id
+         *            Stream id.
+         * @param detectorName
+         *            Detector name.
+         * @param startPosition
+         *            Frame to start at.
+         * @param url
+         *            Source.
+         */
+        StreamTask(final int id, final String detectorName, final long startPosition, final String url) {
+            this.id = id;
+            this.detectorName = detectorName;
+            this.startPosition = startPosition;
+            this.position = startPosition;
+            this.url = url;
+        }
+
+        /**
+         * Detect until source ends or stream is revoked. A stream that cannot
+         * be opened or detected is reported with ERROR, so the coordinator does
+         * not keep it assigned.
+         */
+        @Override
+        public void run() {
+            final var videoCapture = new VideoCapture();
+            final var mat = new Mat();
+            Detector detector = null;
+            var ended = false;
+            String error = null;
+            try {
+                if (!videoCapture.open(url)) {
+                    throw new IllegalArgumentException(String.format("Unable to open %s", url));
+                }
+                final var frameSize = new Size((int) videoCapture.get(Videoio.CAP_PROP_FRAME_WIDTH),
+                        (int) videoCapture.get(Videoio.CAP_PROP_FRAME_HEIGHT));
+                // Only files can seek
+                if (startPosition > 0 && videoCapture.get(Videoio.CAP_PROP_FRAME_COUNT) > 0) {
+                    videoCapture.set(Videoio.CAP_PROP_POS_FRAMES, startPosition);
+                }
+                final var sourceFps = Math.max(1.0, videoCapture.get(Videoio.CAP_PROP_FPS));
+                detector = Detector.create(detectorName, frameSize);
+                var frames = 0L;
+                final var startTime = System.currentTimeMillis();
+                while (running) {
+                    if (!videoCapture.read(mat)) {
+                        ended = true;
+                        break;
+                    }
+                    final var detection = detector.detect(mat);
+                    if (detection.isDetected()) {
+                        send(String.format("RESULT %d %s", id, detection.toJson(position)));
+                    }
+                    frames++;
+                    position++;
+                    final var elapsed = System.currentTimeMillis() - startTime;
+                    fps = frames * 1000.0 / Math.max(1, elapsed);
+                    final var due = (long) (frames * 1000.0 / sourceFps);
+                    lag = Math.max(0, (long) (elapsed * sourceFps / 1000.0) - frames);
+                    // Pace files like a camera
+                    if (due > elapsed) {
+                        try {
+                            Thread.sleep(due - elapsed);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            break;
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                error = String.valueOf(e.getMessage()).replace('\n', ' ');
+                logger.log(Level.SEVERE, String.format("Stream %d %s failed: %s", id, url, error));
+            }
+            // Stream may have been assigned again with a new task
+            streams.remove(id, this);
+            if (error != null) {
+                send(String.format("ERROR %d %s", id, error));
+            } else if (ended) {
+                send(String.format("DONE %d %d", id, position));
+            }
+            logger.log(Level.INFO, String.format("Stream %d %s stopped at frame %d", id, url, position));
+            // Free native memory
+            videoCapture.release();
+            if (detector != null) {
+                detector.release();
+            }
+            mat.release();
+        }
+    }
+
+    /**
+     * Worker id.
+     */
+    private final String workerId;
+    /**
+     * Max streams.
+     */
+    private final int capacity;
+    /**
+     * Connection to coordinator.
+     */
+    private final Socket socket;
+    /**
+     * Lines to coordinator.
+     */
+    private final PrintWriter out;
+    /**
+     * Running streams by id.
+     */
+    private final Map<Integer, StreamTask> streams = new ConcurrentHashMap<>();
+
+    /**
+     * Connect to coordinator.
+     *
+     * @param host
+     *            Coordinator host.
+     * @param port
+     *            Coordinator port.
+     * @param workerId
+     *            Worker id.
+     * @param capacity
+     *            Max streams.
+     * @throws IOException
+     *             Possible exception.
+     */
+    ShardWorker(final String host, final int port, final String workerId, final int capacity) throws IOException {
+        this.workerId = workerId;
+        this.capacity = capacity;
+        this.socket = new Socket(host, port);
+        this.out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Send line to coordinator. Called from stream threads.
+     *
+     * @param line
+     *            Message.
+     */
+    private synchronized void send(final String line) {
+        out.println(line);
+        out.flush();
+    }
+
+    /**
+     * Send status of every stream. This is also the heartbeat.
+     */
+    private void report() {
+        send(String.format("HEARTBEAT %d", streams.size()));
+        for (final var task : streams.values()) {
+            send(String.format(Locale.ROOT, "STATUS %d %d %.1f %d", task.id, task.position, task.fps, task.lag));
+        }
+    }
+
+    /**
+     * Register and process commands until coordinator closes the connection.
+     *
+     * @throws IOException
+     *             Possible exception.
+     */
+    public void run() throws IOException {
+        send(String.format("HELLO %s %d", workerId, capacity));
+        final var heartbeat = Executors.newSingleThreadScheduledExecutor();
+        heartbeat.scheduleAtFixedRate(this::report, 1, 1, TimeUnit.SECONDS);
+        try (final var in = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                final var fields = line.split(" ", 5);
+                if ("ASSIGN".equals(fields[0]) && fields.length == 5) {
+                    final var task = new StreamTask(Integer.parseInt(fields[1]), fields[2],
+                            Long.parseLong(fields[3]), fields[4]);
+                    final var old = streams.put(task.id, task);
+                    // Coordinator reassigned a stream this worker still runs, so only one reads it
+                    if (old != null) {
+                        old.running = false;
+                    }
+                    new Thread(task, String.format("stream-%d", task.id)).start();
+                    logger.log(Level.INFO, String.format("Assigned stream %d %s at frame %d", task.id, task.url,
+                            task.startPosition));
+                } else if ("REVOKE".equals(fields[0]) && fields.length == 2) {
+                    final var task = streams.get(Integer.parseInt(fields[1]));
+                    if (task != null) {
+                        task.running = false;
+                    }
+                } else {
+                    logger.log(Level.WARNING, String.format("Unknown command: %s", line));
+                }
+            }
+        } finally {
+            heartbeat.shutdownNow();
+            for (final var task : streams.values()) {
+                task.running = false;
+            }
+            socket.close();
+        }
+    }
+
+    /**
+     * Connect to coordinator and run assigned streams.
+     *
+     * args[0] = coordinator host:port or will default to "localhost:5150" if
+     * no args passed.
+     *
+     * args[1] = worker id or will default to the process id if no args passed.
+     *
+     * args[2] = max streams or will default to the number of processors if no
+     * args passed.
+     *
+     * @param args
+     *            String array of arguments.
+     */
+    public static void main(final String... args) {
+        var address = "localhost:5150";
+        var workerId = String.format("%d", ProcessHandle.current().pid());
+        var capacity = Runtime.getRuntime().availableProcessors();
+        if (args.length > 0) {
+            address = args[0];
+        }
+        if (args.length > 1) {
+            workerId = args[1];
+        }
+        if (args.length > 2) {
+            capacity = Integer.parseInt(args[2]);
+        }
+        // Custom logging properties via class loader
+        try {
+            LogManager.getLogManager()
+                    .readConfiguration(ShardWorker.class.getClassLoader().getResourceAsStream("logging.properties"));
+        } catch (SecurityException | IOException e) {
+            e.printStackTrace();
+        }
+        logger.log(Level.INFO, String.format("OpenCV %s", Core.VERSION));
+        logger.log(Level.INFO, String.format("Worker %s, capacity %d, coordinator %s", workerId, capacity, address));
+        final var separator = address.lastIndexOf(':');
+        try {
+            new ShardWorker(address.substring(0, separator), Integer.parseInt(address.substring(separator + 1)),
+                    workerId, capacity).run();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, String.format("Coordinator connection failed: %s", e.getMessage()));
+        }
+        // Stream threads are not daemons
+        System.exit(0);
+    }
+}
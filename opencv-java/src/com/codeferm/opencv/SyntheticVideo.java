@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.videoio.VideoWriter;
+
+/**
+ * Synthetic video with ground truth for detector accuracy. Filled shapes drawn
+ * with the same primitives as Drawing move over a textured background with
+ * sensor noise, slow lighting drift and one sudden lighting change. The true
+ * bounding box of every visible shape is written to a CSV file with the video.
+ * Shapes appear after two seconds, so background models have time to learn.
+ *
+ * args[0] = output prefix or will default to "../output/synthetic-java" if no
+ * args passed. Writes prefix.avi and prefix.csv.
+ *
+ * args[1] = width or will default to "1280" if no args passed. Up to 3840 (4K)
+ * is supported.
+ *
+ * args[2] = height or will default to "720" if no args passed.
+ *
+ * args[3] = frames or will default to "600" if no args passed.
+ *
+ * args[4] = moving shapes or will default to "4" if no args passed.
+ *
+ * args[5] = random seed or will default to "1" if no args passed.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class SyntheticVideo {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = Logger.getLogger(SyntheticVideo.class.getName());
+    /* Load the OpenCV system library */
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    /**
+     * Frames per second.
+     */
+    private static final int FPS = 30;
+    /**
+     * Pre-generated noise frames. Cycling a few avoids randu on every frame.
+     */
+    private static final int NOISE_FRAMES = 4;
+    /**
+     * Noise amplitude.
+     */
+    private static final int NOISE = 12;
+    /**
+     * Lighting drift amplitude.
+     */
+    private static final double DRIFT = 20.0;
+    /**
+     * Lighting drift period in frames.
+     */
+    private static final double DRIFT_PERIOD = 300.0;
+    /**
+     * Sudden lighting change like lights turning on.
+     */
+    private static final double LIGHT_STEP = 30.0;
+
+    /**
+     * Shape moving in a straight line and bouncing off frame edges.
+     */
+    static final class Mover {
+        /**
+         * 0 = rectangle, 1 = circle, 2 = ellipse.
+         */
+        private final int type;
+        /**
+         * Width.
+         */
+        private final int width;
+        /**
+         * Height.
+         */
+        private final int height;
+        /**
+         * Color.
+         */
+        private final Scalar color;
+        /**
+         * First frame shape is visible.
+         */
+        private final int startFrame;
+        /**
+         * Left.
+         */
+        private double x;
+        /**
+         * Top.
+         */
+        private double y;
+        /**
+         * X velocity in pixels per frame.
+         */
+        private double vx;
+        /**
+         * Y velocity in pixels per frame.
+         */
+        private double vy;
+
+        /**
+         * Random shape that fits in frame.
+         *
+         * @param random
+         *            Random numbers.
+         * @param frameWidth
+         *            Frame width.
+         * @param frameHeight
+         *            Frame height.
+         * @param startFrame
+         *            First frame shape is visible.
+         */
+        Mover(final Random random, final int frameWidth, final int frameHeight, final int startFrame) {
+            this.type = random.nextInt(3);
+            this.startFrame = startFrame;
+            final var size = frameHeight / 12 + random.nextInt(frameHeight / 8);
+            if (type == 1) {
+                width = size;
+                height = size;
+            } else {
+                // Aspect ratio 0.5 to 2
+                width = (int) (size * (0.5 + random.nextDouble() * 1.5));
+                height = size;
+            }
+            // Bright colors stand out from the mid gray background
+            color = new Scalar(128 + random.nextInt(128), random.nextInt(256), 128 + random.nextInt(128));
+            x = random.nextInt(Math.max(1, frameWidth - width));
+            y = random.nextInt(Math.max(1, frameHeight - height));
+            // Cross the frame in 4 to 10 seconds
+            final var speed = frameWidth / (FPS * (4.0 + random.nextDouble() * 6.0));
+            final var angle = random.nextDouble() * 2.0 * Math.PI;
+            vx = speed * Math.cos(angle);
+            vy = speed * Math.sin(angle);
+        }
+
+        /**
+         * Move one frame.
+         *
+         * @param frameWidth
+         *            Frame width.
+         * @param frameHeight
+         *            Frame height.
+         */
+        void move(final int frameWidth, final int frameHeight) {
+            x += vx;
+            y += vy;
+            if (x < 0 || x + width > frameWidth) {
+                vx = -vx;
+                x = Math.max(0, Math.min(x, frameWidth - width));
+            }
+            if (y < 0 || y + height > frameHeight) {
+                vy = -vy;
+                y = Math.max(0, Math.min(y, frameHeight - height));
+            }
+        }
+
+        /**
+         * Draw shape filling its bounding box.
+         *
+         * @param frame
+         *            Frame to draw on.
+         */
+        void draw(final Mat frame) {
+            final var left = (int) x;
+            final var top = (int) y;
+            switch (type) {
+            case 0:
+                Imgproc.rectangle(frame, new Point(left, top), new Point(left + width - 1, top + height - 1), color,
+                        Core.FILLED);
+                break;
+            case 1:
+                Imgproc.circle(frame, new Point(left + width / 2, top + height / 2), width / 2, color, Core.FILLED);
+                break;
+            default:
+                Imgproc.ellipse(frame, new Point(left + width / 2, top + height / 2), new Size(width / 2, height / 2),
+                        0.0, 0.0, 360.0, color, Core.FILLED);
+                break;
+            }
+        }
+
+        /**
+         * Ground truth CSV line.
+         *
+         * @param frame
+         *            Frame number.
+         * @return frame,x,y,width,height.
+         */
+        String truth(final int frame) {
+            return String.format("%d,%d,%d,%d,%d", frame, (int) x, (int) y, width, height);
+        }
+    }
+
+    /**
+     * Suppress default constructor for noninstantiability.
+     */
+    private SyntheticVideo() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Textured background with static clutter.
+     *
+     * @param random
+     *            Random numbers.
+     * @param width
+     *            Frame width.
+     * @param height
+     *            Frame height.
+     * @return Background. Caller must release.
+     */
+    public static Mat background(final Random random, final int width, final int height) {
+        final var background = new Mat(height, width, CvType.CV_8UC3);
+        Core.randu(background, 64, 160);
+        // Blurred noise looks like pavement or grass
+        Imgproc.GaussianBlur(background, background, new Size(0, 0), Math.max(1.0, height / 360.0));
+        final var lineWidth = Math.max(1, height / 240);
+        for (int i = 0; i < 12; i++) {
+            final var gray = 60 + random.nextInt(120);
+            final var color = new Scalar(gray, gray, gray);
+            final var p1 = new Point(random.nextInt(width), random.nextInt(height));
+            final var p2 = new Point(random.nextInt(width), random.nextInt(height));
+            if (i % 3 == 0) {
+                Imgproc.line(background, p1, p2, color, lineWidth);
+            } else if (i % 3 == 1) {
+                Imgproc.circle(background, p1, height / 10, color, lineWidth);
+            } else {
+                Imgproc.rectangle(background, p1, p2, color, lineWidth);
+            }
+        }
+        return background;
+    }
+
+    /**
+     * Generate video and ground truth.
+     *
+     * args[0] = output prefix or will default to "../output/synthetic-java" if
+     * no args passed.
+     *
+     * args[1] = width or will default to "1280" if no args passed.
+     *
+     * args[2] = height or will default to "720" if no args passed.
+     *
+     * args[3] = frames or will default to "600" if no args passed.
+     *
+     * args[4] = moving shapes or will default to "4" if no args passed.
+     *
+     * args[5] = random seed or will default to "1" if no args passed.
+     *
+     * @param args
+     *            String array of arguments.
+     */
+    public static void main(final String... args) {
+        var outputPrefix = "../output/synthetic-java";
+        var width = 1280;
+        var height = 720;
+        var frames = 600;
+        var shapes = 4;
+        var seed = 1;
+        if (args.length > 0) {
+            outputPrefix = args[0];
+        }
+        if (args.length > 1) {
+            width = Integer.parseInt(args[1]);
+        }
+        if (args.length > 2) {
+            height = Integer.parseInt(args[2]);
+        }
+        if (args.length > 3) {
+            frames = Integer.parseInt(args[3]);
+        }
+        if (args.length > 4) {
+            shapes = Integer.parseInt(args[4]);
+        }
+        if (args.length > 5) {
+            seed = Integer.parseInt(args[5]);
+        }
+        // Custom logging properties via class loader
+        try {
+            LogManager.getLogManager().readConfiguration(
+                    SyntheticVideo.class.getClassLoader().getResourceAsStream("logging.properties"));
+        } catch (SecurityException | IOException e) {
+            e.printStackTrace();
+        }
+        logger.log(Level.INFO, String.format("OpenCV %s", Core.VERSION));
+        logger.log(Level.INFO, String.format("Output: %s.avi, %s.csv, %dx%d, %d frames, %d shapes", outputPrefix,
+                outputPrefix, width, height, frames, shapes));
+        final var random = new Random(seed);
+        Core.setRNGSeed(seed);
+        final var background = background(random, width, height);
+        // Noise is added and subtracted, so it averages to 0
+        final var noiseAdd = new Mat[NOISE_FRAMES];
+        final var noiseSubtract = new Mat[NOISE_FRAMES];
+        for (int i = 0; i < NOISE_FRAMES; i++) {
+            noiseAdd[i] = new Mat(height, width, CvType.CV_8UC3);
+            Core.randu(noiseAdd[i], 0, NOISE);
+            noiseSubtract[i] = new Mat(height, width, CvType.CV_8UC3);
+            Core.randu(noiseSubtract[i], 0, NOISE);
+        }
+        final var movers = new ArrayList<Mover>();
+        for (int i = 0; i < shapes; i++) {
+            // Shapes appear one second apart after background has been learned
+            movers.add(new Mover(random, width, height, FPS * 2 + i * FPS));
+        }
+        // Intra only codec keeps shape edges sharp
+        final var videoWriter = new VideoWriter(outputPrefix + ".avi", new FourCC("MJPG").toInt(), FPS,
+                new Size(width, height), true);
+        final var mat = new Mat();
+        final var lightStepFrame = frames * 2 / 3;
+        var boxes = 0;
+        final var startTime = System.currentTimeMillis();
+        try (final var out = new BufferedWriter(new FileWriter(outputPrefix + ".csv"))) {
+            out.write("frame,x,y,width,height");
+            out.newLine();
+            for (int frame = 0; frame < frames; frame++) {
+                var light = DRIFT * Math.sin(2.0 * Math.PI * frame / DRIFT_PERIOD);
+                if (frame >= lightStepFrame) {
+                    light += LIGHT_STEP;
+                }
+                background.convertTo(mat, -1, 1.0, light);
+                for (final var mover : movers) {
+                    if (frame >= mover.startFrame) {
+                        mover.draw(mat);
+                        out.write(mover.truth(frame));
+                        out.newLine();
+                        boxes++;
+                        mover.move(width, height);
+                    }
+                }
+                Core.add(mat, noiseAdd[frame % NOISE_FRAMES], mat);
+                Core.subtract(mat, noiseSubtract[(frame + 1) % NOISE_FRAMES], mat);
+                videoWriter.write(mat);
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, String.format("Unable to write %s.csv: %s", outputPrefix, e.getMessage()));
+        }
+        final var estimatedTime = System.currentTimeMillis() - startTime;
+        final var seconds = (double) estimatedTime / 1000;
+        logger.log(Level.INFO, String.format("%d frames, %d true boxes", frames, boxes));
+        logger.log(Level.INFO, String.format("%4.1f FPS, elapsed time: %4.2f seconds", frames / seconds, seconds));
+        // Release native memory
+        videoWriter.release();
+        mat.release();
+        background.release();
+        for (int i = 0; i < NOISE_FRAMES; i++) {
+            noiseAdd[i].release();
+            noiseSubtract[i].release();
+        }
+    }
+}
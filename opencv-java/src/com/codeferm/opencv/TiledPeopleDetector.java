@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfDouble;
+import org.opencv.core.MatOfRect;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.objdetect.HOGDescriptor;
+
+/**
+ * HOG people detector that splits each frame into overlapping tiles and runs
+ * detectMultiScale on the tiles concurrently. This lowers the latency of one
+ * frame, where running frames in parallel only raises throughput. Tiles
+ * overlap by the detection window times the largest scale that should survive
+ * a seam, so a person of that size lies whole in at least one tile. The tile
+ * grid is picked for the thread count. Hits from all tiles are moved to frame
+ * coordinates and duplicates along seams are merged, keeping the highest
+ * weight.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class TiledPeopleDetector implements Detector {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = Logger.getLogger(TiledPeopleDetector.class.getName());
+    /**
+     * Overlap of intersection with smaller rectangle that marks a duplicate.
+     */
+    private static final double MERGE_OVERLAP = 0.6;
+
+    /**
+     * One tile with its own HOG descriptor and results.
+     */
+    static final class Tile {
+        /**
+         * Tile in frame coordinates.
+         */
+        private final Rect rect;
+        /**
+         * HOG descriptor.
+         */
+        private final HOGDescriptor hog;
+        /**
+         * Found locations.
+         */
+        private final MatOfRect foundLocations = new MatOfRect();
+        /**
+         * Found weights.
+         */
+        private final MatOfDouble foundWeights = new MatOfDouble();
+
+        /**
+         * Create tile.
+         *
+         * @param rect
+         *            Tile in frame coordinates.
+         * @param hog
+         *            HOG descriptor.
+         */
+        Tile(final Rect rect, final HOGDescriptor hog) {
+            this.rect = rect;
+            this.hog = hog;
+        }
+    }
+
+    /**
+     * Tiles.
+     */
+    private final List<Tile> tiles = new ArrayList<>();
+    /**
+     * Detection tasks, one per tile.
+     */
+    private final List<Callable<Void>> tasks = new ArrayList<>();
+    /**
+     * Runs tiles.
+     */
+    private final ExecutorService executor;
+    /**
+     * SVM coefficients of default detector.
+     */
+    private final Mat descriptors = HOGDescriptor.getDefaultPeopleDetector();
+    /**
+     * Window stride.
+     */
+    private final Size winStride = new Size(8, 8);
+    /**
+     * Padding.
+     */
+    private final Size padding = new Size(32, 32);
+    /**
+     * Frame being detected.
+     */
+    private Mat frame;
+
+    /**
+     * Create detector.
+     *
+     * @param frameSize
+     *            Frame size.
+     * @param threads
+     *            Max tiles detected at once.
+     * @param detectorFile
+     *            HOG detector file or null, "-" or "default" for default people
+     *            detector.
+     * @param maxScale
+     *            Largest scale of the window that should never be cut by a
+     *            seam such as 2.0.
+     */
+    TiledPeopleDetector(final Size frameSize, final int threads, final String detectorFile, final double maxScale) {
+        // Check file once instead of once per tile
+        final var fileName = PeopleDetector.detectorFile(detectorFile);
+        final var first = PeopleDetector.hog(fileName, descriptors);
+        final var winSize = first.get_winSize();
+        final var overlapX = (int) Math.ceil(winSize.width * maxScale);
+        final var overlapY = (int) Math.ceil(winSize.height * maxScale);
+        final var grid = layout((int) frameSize.width, (int) frameSize.height, threads, overlapX, overlapY);
+        final var cols = grid[0];
+        final var rows = grid[1];
+        final var tileWidth = tileLength((int) frameSize.width, cols, overlapX);
+        final var tileHeight = tileLength((int) frameSize.height, rows, overlapY);
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                // Last tile ends at the frame edge
+                final var x = Math.min(col * (tileWidth - overlapX), (int) frameSize.width - tileWidth);
+                final var y = Math.min(row * (tileHeight - overlapY), (int) frameSize.height - tileHeight);
+                final var tile = new Tile(new Rect(x, y, tileWidth, tileHeight), tiles.isEmpty() ? first
+                        : PeopleDetector.hog(fileName, descriptors));
+                tiles.add(tile);
+                tasks.add(() -> {
+                    detectTile(tile);
+                    return null;
+                });
+            }
+        }
+        // Daemon threads so a failed frame cannot keep the JVM alive
+        executor = Executors.newFixedThreadPool(tiles.size(), runnable -> {
+            final var thread = new Thread(runnable, "hog-tile");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.log(Level.INFO, String.format("%dx%d tiles of %dx%d, overlap %dx%d", cols, rows, tileWidth,
+                tileHeight, overlapX, overlapY));
+    }
+
+    /**
+     * Tile length that covers length with count tiles overlapping by overlap.
+     *
+     * @param length
+     *            Frame width or height.
+     * @param count
+     *            Tiles.
+     * @param overlap
+     *            Overlap.
+     * @return Tile length.
+     */
+    private static int tileLength(final int length, final int count, final int overlap) {
+        return Math.min(length, (length + (count - 1) * overlap + count - 1) / count);
+    }
+
+    /**
+     * Pick the grid with the most tiles up to threads whose tiles are at least
+     * twice the overlap, so each tile has more new pixels than shared ones.
+     * Ties go to the grid with the least total tile area.
+     *
+     * @param width
+     *            Frame width.
+     * @param height
+     *            Frame height.
+     * @param threads
+     *            Max tiles.
+     * @param overlapX
+     *            Horizontal overlap.
+     * @param overlapY
+     *            Vertical overlap.
+     * @return Columns and rows.
+     */
+    public static int[] layout(final int width, final int height, final int threads, final int overlapX,
+            final int overlapY) {
+        var best = new int[] { 1, 1 };
+        var bestArea = (long) width * height;
+        for (int rows = 1; rows <= threads; rows++) {
+            for (int cols = 1; cols * rows <= threads; cols++) {
+                final var tileWidth = tileLength(width, cols, overlapX);
+                final var tileHeight = tileLength(height, rows, overlapY);
+                if ((cols > 1 && tileWidth < 2 * overlapX) || (rows > 1 && tileHeight < 2 * overlapY)) {
+                    continue;
+                }
+                final var area = (long) tileWidth * tileHeight * cols * rows;
+                if (cols * rows > best[0] * best[1] || (cols * rows == best[0] * best[1] && area < bestArea)) {
+                    best = new int[] { cols, rows };
+                    bestArea = area;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Detect one tile of the current frame.
+     *
+     * @param tile
+     *            Tile.
+     */
+    private void detectTile(final Tile tile) {
+        final var tileImg = frame.submat(tile.rect);
+        tile.hog.detectMultiScale(tileImg, tile.foundLocations, tile.foundWeights, 0.0, winStride, padding, 1.05,
+                2.0, false);
+        tileImg.release();
+    }
+
+    /**
+     * @see com.codeferm.opencv.Detector#detect(org.opencv.core.Mat)
+     */
+    @Override
+    public Detection detect(final Mat frame) {
+        this.frame = frame;
+        try {
+            for (final var future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Tile detection interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tile detection failed", e.getCause());
+        }
+        // Hits in frame coordinates, highest weight first
+        final var hits = new ArrayList<double[]>();
+        for (final var tile : tiles) {
+            // No hits leaves weights as an empty Mat toList() rejects
+            if (tile.foundLocations.rows() == 0) {
+                continue;
+            }
+            final var rects = tile.foundLocations.toList();
+            final var weights = tile.foundWeights.toList();
+            for (int i = 0; i < rects.size(); i++) {
+                final var rect = rects.get(i);
+                hits.add(new double[] { rect.x + tile.rect.x, rect.y + tile.rect.y, rect.width, rect.height,
+                    weights.get(i) });
+            }
+        }
+        hits.sort(Comparator.comparingDouble((double[] hit) -> hit[4]).reversed());
+        final var rectList = new ArrayList<Rect>();
+        final var weightList = new ArrayList<Double>();
+        for (final var hit : hits) {
+            final var rect = new Rect((int) hit[0], (int) hit[1], (int) hit[2], (int) hit[3]);
+            var duplicate = false;
+            for (final var kept : rectList) {
+                if (overlap(rect, kept) > MERGE_OVERLAP) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (!duplicate) {
+                rectList.add(rect);
+                weightList.add(hit[4]);
+            }
+        }
+        return new Detection(rectList, weightList, 0.0, !rectList.isEmpty());
+    }
+
+    /**
+     * Intersection divided by the smaller area. A person cut by a seam is
+     * mostly inside the whole detection from the neighboring tile.
+     *
+     * @param a
+     *            First rectangle.
+     * @param b
+     *            Second rectangle.
+     * @return 0 to 1.
+     */
+    public static double overlap(final Rect a, final Rect b) {
+        final var width = Math.min(a.x + a.width, b.x + b.width) - Math.max(a.x, b.x);
+        final var height = Math.min(a.y + a.height, b.y + b.height) - Math.max(a.y, b.y);
+        if (width <= 0 || height <= 0) {
+            return 0.0;
+        }
+        return (double) width * height / Math.min(a.area(), b.area());
+    }
+
+    /**
+     * @see com.codeferm.opencv.Detector#release()
+     */
+    @Override
+    public void release() {
+        executor.shutdown();
+        for (final var tile : tiles) {
+            tile.foundLocations.release();
+            tile.foundWeights.release();
+        }
+        descriptors.release();
+    }
+}
@@ -0,0 +1,536 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfDouble;
+import org.opencv.core.MatOfFloat;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.MatOfRect;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.core.TermCriteria;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.ml.Ml;
+import org.opencv.ml.SVM;
+import org.opencv.objdetect.HOGDescriptor;
+
+/**
+ * Train a HOG detector with a linear SVM. Java port of opencv-cpp/trainhog.
+ * Descriptors are computed in parallel, one image per task, and copied
+ * straight into a training Mat allocated once for positives, negatives and
+ * hard negatives. Images are read as needed, so the whole set is never held in
+ * memory. Hard negative mining runs the first detector over the full negative
+ * images in parallel, adds the false positives as negatives and trains again.
+ *
+ * The detector is saved with HOGDescriptor.save in the same format as the C++
+ * trainer, so PeopleDetect can load it with its detector file argument.
+ *
+ * Download the INRIA Person Dataset from http://pascal.inrialpes.fr/data/human
+ * for training images.
+ *
+ * args[0] = positive image directory or will default to
+ * "~/INRIAPerson/train_64x128_H96/pos" if no args passed.
+ *
+ * args[1] = negative image directory or will default to
+ * "~/INRIAPerson/train_64x128_H96/neg" if no args passed.
+ *
+ * args[2] = output file or will default to "../output/my-detector-java.yml" if
+ * no args passed.
+ *
+ * args[3] = hard negative mining "true" or "false" or will default to "true"
+ * if no args passed.
+ *
+ * args[4] = detector width or will default to the positive image width
+ * rounded down to a multiple of 8 if no args passed.
+ *
+ * args[5] = detector height or will default to the positive image height
+ * rounded down to a multiple of 8 if no args passed.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class TrainHog {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = Logger.getLogger(TrainHog.class.getName());
+    /* Load the OpenCV system library */
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    /**
+     * Max hard negatives taken from each negative image.
+     */
+    private static final int HARD_PER_IMAGE = 4;
+    /**
+     * Descriptor window stride.
+     */
+    private static final Size WIN_STRIDE = new Size(8, 8);
+    /**
+     * Descriptor padding.
+     */
+    private static final Size PADDING = new Size(0, 0);
+
+    /**
+     * Native objects used by one pool thread.
+     */
+    final class Worker {
+        /**
+         * HOG descriptor for detector window.
+         */
+        private final HOGDescriptor hog = new HOGDescriptor(winSize, new Size(16, 16), new Size(8, 8),
+                new Size(8, 8), 9);
+        /**
+         * Descriptor of one window.
+         */
+        private final MatOfFloat descriptors = new MatOfFloat();
+        /**
+         * Locations, not used.
+         */
+        private final MatOfPoint locations = new MatOfPoint();
+        /**
+         * Resized window.
+         */
+        private final Mat window = new Mat();
+        /**
+         * Gray window.
+         */
+        private final Mat gray = new Mat();
+        /**
+         * Found locations.
+         */
+        private final MatOfRect foundLocations = new MatOfRect();
+        /**
+         * Found weights.
+         */
+        private final MatOfDouble foundWeights = new MatOfDouble();
+
+        /**
+         * Free native memory.
+         */
+        void release() {
+            descriptors.release();
+            locations.release();
+            window.release();
+            gray.release();
+            foundLocations.release();
+            foundWeights.release();
+        }
+    }
+
+    /**
+     * Detector window size.
+     */
+    private final Size winSize;
+    /**
+     * Training samples, one descriptor per row.
+     */
+    private final Mat trainData;
+    /**
+     * Response per row, 1 for positives and -1 for negatives.
+     */
+    private final Mat labels;
+    /**
+     * Rows allocated.
+     */
+    private final int capacity;
+    /**
+     * Rows filled.
+     */
+    private final AtomicInteger rows = new AtomicInteger();
+    /**
+     * Every worker created, so they can be released.
+     */
+    private final ConcurrentLinkedQueue<Worker> workers = new ConcurrentLinkedQueue<>();
+    /**
+     * Worker of current pool thread.
+     */
+    private final ThreadLocal<Worker> worker = ThreadLocal.withInitial(() -> {
+        final var newWorker = new Worker();
+        workers.add(newWorker);
+        return newWorker;
+    });
+
+    /**
+     * Allocate training data.
+     *
+     * @param winSize
+     *            Detector window size.
+     * @param capacity
+     *            Max samples.
+     */
+    TrainHog(final Size winSize, final int capacity) {
+        this.winSize = winSize;
+        this.capacity = capacity;
+        final var descriptorSize = (int) worker.get().hog.getDescriptorSize();
+        trainData = new Mat(capacity, descriptorSize, CvType.CV_32FC1);
+        labels = new Mat(capacity, 1, CvType.CV_32FC1);
+        logger.log(Level.INFO, String.format("Window %s, %d values per descriptor, %d rows, %d MB", winSize,
+                descriptorSize, capacity, (long) capacity * descriptorSize * 4 / 1048576));
+    }
+
+    /**
+     * Image files in directory sorted by name.
+     *
+     * @param dir
+     *            Directory.
+     * @return Image files.
+     * @throws IOException
+     *             Possible exception.
+     */
+    public static List<String> listImages(final String dir) throws IOException {
+        try (final var paths = Files.list(Paths.get(dir))) {
+            return paths.filter(Files::isRegularFile).map(Path::toString).filter(name -> {
+                final var lower = name.toLowerCase(Locale.ROOT);
+                return lower.endsWith(".png") || lower.endsWith(".jpg") || lower.endsWith(".jpeg")
+                        || lower.endsWith(".bmp") || lower.endsWith(".ppm");
+            }).sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Next free row.
+     *
+     * @return Row or -1 if training data is full.
+     */
+    private int nextRow() {
+        final var row = rows.getAndUpdate(value -> value < capacity ? value + 1 : value);
+        return row < capacity ? row : -1;
+    }
+
+    /**
+     * Compute descriptor of window and store it in the next row.
+     *
+     * @param image
+     *            BGR image.
+     * @param rect
+     *            Window in image. Resized to detector size if needed.
+     * @param label
+     *            1 or -1.
+     * @return True if stored, false if training data is full.
+     */
+    private boolean add(final Mat image, final Rect rect, final float label) {
+        final var row = nextRow();
+        if (row < 0) {
+            return false;
+        }
+        final var current = worker.get();
+        final var roi = image.submat(rect);
+        if (rect.width == (int) winSize.width && rect.height == (int) winSize.height) {
+            Imgproc.cvtColor(roi, current.gray, Imgproc.COLOR_BGR2GRAY);
+        } else {
+            Imgproc.resize(roi, current.window, winSize, 0, 0, Imgproc.INTER_AREA);
+            Imgproc.cvtColor(current.window, current.gray, Imgproc.COLOR_BGR2GRAY);
+        }
+        roi.release();
+        current.hog.compute(current.gray, current.descriptors, WIN_STRIDE, PADDING, current.locations);
+        // Column vector to row, copied once into the training Mat
+        final var descriptorRow = current.descriptors.reshape(1, 1);
+        final var trainRow = trainData.row(row);
+        descriptorRow.copyTo(trainRow);
+        labels.put(row, 0, label);
+        // Release native memory
+        descriptorRow.release();
+        trainRow.release();
+        return true;
+    }
+
+    /**
+     * Add center window of each positive image.
+     *
+     * @param files
+     *            Positive images.
+     * @return Positives added.
+     */
+    public int addPositives(final List<String> files) {
+        final var added = new AtomicInteger();
+        IntStream.range(0, files.size()).parallel().forEach(i -> {
+            final var image = Imgcodecs.imread(files.get(i));
+            if (image.width() < winSize.width || image.height() < winSize.height) {
+                logger.log(Level.WARNING, String.format("Skipping %s, smaller than window", files.get(i)));
+            } else {
+                final var rect = new Rect((image.width() - (int) winSize.width) / 2,
+                        (image.height() - (int) winSize.height) / 2, (int) winSize.width, (int) winSize.height);
+                if (add(image, rect, 1.0f)) {
+                    added.incrementAndGet();
+                }
+            }
+            image.release();
+        });
+        return added.get();
+    }
+
+    /**
+     * Add one random window of each negative image. Each image has its own
+     * seed, so samples do not depend on thread scheduling.
+     *
+     * @param files
+     *            Negative images.
+     * @return Negatives added.
+     */
+    public int addNegatives(final List<String> files) {
+        final var added = new AtomicInteger();
+        IntStream.range(0, files.size()).parallel().forEach(i -> {
+            final var image = Imgcodecs.imread(files.get(i));
+            if (image.width() > winSize.width && image.height() > winSize.height) {
+                final var random = new Random(i);
+                final var rect = new Rect(random.nextInt(image.width() - (int) winSize.width),
+                        random.nextInt(image.height() - (int) winSize.height), (int) winSize.width,
+                        (int) winSize.height);
+                if (add(image, rect, -1.0f)) {
+                    added.incrementAndGet();
+                }
+            }
+            image.release();
+        });
+        return added.get();
+    }
+
+    /**
+     * Add false positives of detector on negative images.
+     *
+     * @param files
+     *            Negative images.
+     * @param detector
+     *            SVM detector.
+     * @return Hard negatives added.
+     */
+    public int addHardNegatives(final List<String> files, final MatOfFloat detector) {
+        final var added = new AtomicInteger();
+        IntStream.range(0, files.size()).parallel().forEach(i -> {
+            final var current = worker.get();
+            current.hog.setSVMDetector(detector);
+            final var image = Imgcodecs.imread(files.get(i));
+            if (image.empty()) {
+                return;
+            }
+            current.hog.detectMultiScale(image, current.foundLocations, current.foundWeights);
+            final var imageRect = new Rect(0, 0, image.width(), image.height());
+            var count = 0;
+            for (final var rect : current.foundLocations.toList()) {
+                // Detections can extend past the image
+                final var x = Math.max(rect.x, 0);
+                final var y = Math.max(rect.y, 0);
+                final var clipped = new Rect(x, y, Math.min(rect.x + rect.width, imageRect.width) - x,
+                        Math.min(rect.y + rect.height, imageRect.height) - y);
+                if (clipped.width > 0 && clipped.height > 0 && count < HARD_PER_IMAGE) {
+                    if (!add(image, clipped, -1.0f)) {
+                        break;
+                    }
+                    count++;
+                }
+            }
+            added.addAndGet(count);
+            image.release();
+        });
+        return added.get();
+    }
+
+    /**
+     * Train linear SVM on the rows filled so far. Same parameters as the C++
+     * trainer.
+     *
+     * @return SVM.
+     */
+    public SVM train() {
+        final var svm = SVM.create();
+        svm.setCoef0(0.0);
+        svm.setDegree(3);
+        svm.setTermCriteria(new TermCriteria(TermCriteria.MAX_ITER + TermCriteria.EPS, 1000, 1e-3));
+        svm.setGamma(0);
+        svm.setKernel(SVM.LINEAR);
+        svm.setNu(0.5);
+        svm.setP(0.1);
+        // Soft classifier from the paper
+        svm.setC(0.01);
+        svm.setType(SVM.EPS_SVR);
+        final var samples = trainData.rowRange(0, rows.get());
+        final var responses = labels.rowRange(0, rows.get());
+        svm.train(samples, Ml.ROW_SAMPLE, responses);
+        // Release native memory
+        samples.release();
+        responses.release();
+        return svm;
+    }
+
+    /**
+     * Convert trained linear SVM to HOG detector coefficients. A linear SVM
+     * has one compressed support vector, followed by -rho.
+     *
+     * @param svm
+     *            Trained linear SVM.
+     * @return Detector for setSVMDetector.
+     */
+    public static MatOfFloat svmDetector(final SVM svm) {
+        final var supportVectors = svm.getSupportVectors();
+        final var alpha = new Mat();
+        final var svidx = new Mat();
+        final var rho = svm.getDecisionFunction(0, alpha, svidx);
+        final var coefficients = new float[supportVectors.cols() + 1];
+        supportVectors.get(0, 0, coefficients);
+        coefficients[supportVectors.cols()] = (float) -rho;
+        // Release native memory
+        supportVectors.release();
+        alpha.release();
+        svidx.release();
+        return new MatOfFloat(coefficients);
+    }
+
+    /**
+     * Save detector so HOGDescriptor.load restores window size and SVM.
+     *
+     * @param fileName
+     *            Output file.
+     * @param detector
+     *            SVM detector.
+     */
+    public void save(final String fileName, final MatOfFloat detector) {
+        final var hog = new HOGDescriptor(winSize, new Size(16, 16), new Size(8, 8), new Size(8, 8), 9);
+        hog.setSVMDetector(detector);
+        hog.save(fileName);
+    }
+
+    /**
+     * Free native memory.
+     */
+    public void release() {
+        trainData.release();
+        labels.release();
+        for (final var w : workers) {
+            w.release();
+        }
+    }
+
+    /**
+     * Train and save detector.
+     *
+     * args[0] = positive image directory or will default to
+     * "~/INRIAPerson/train_64x128_H96/pos" if no args passed.
+     *
+     * args[1] = negative image directory or will default to
+     * "~/INRIAPerson/train_64x128_H96/neg" if no args passed.
+     *
+     * args[2] = output file or will default to "../output/my-detector-java.yml"
+     * if no args passed.
+     *
+     * args[3] = hard negative mining "true" or "false" or will default to
+     * "true" if no args passed.
+     *
+     * args[4] = detector width or will default to the positive image width
+     * rounded down to a multiple of 8 if no args passed.
+     *
+     * args[5] = detector height or will default to the positive image height
+     * rounded down to a multiple of 8 if no args passed.
+     *
+     * @param args
+     *            String array of arguments.
+     */
+    public static void main(final String... args) {
+        final var home = System.getProperty("user.home");
+        var posDir = home + "/INRIAPerson/train_64x128_H96/pos";
+        var negDir = home + "/INRIAPerson/train_64x128_H96/neg";
+        var outputFile = "../output/my-detector-java.yml";
+        var hardNegatives = true;
+        var width = 0;
+        var height = 0;
+        if (args.length > 0) {
+            posDir = args[0];
+        }
+        if (args.length > 1) {
+            negDir = args[1];
+        }
+        if (args.length > 2) {
+            outputFile = args[2];
+        }
+        if (args.length > 3) {
+            hardNegatives = Boolean.parseBoolean(args[3]);
+        }
+        if (args.length > 5) {
+            width = Integer.parseInt(args[4]);
+            height = Integer.parseInt(args[5]);
+        }
+        // Custom logging properties via class loader
+        try {
+            LogManager.getLogManager()
+                    .readConfiguration(TrainHog.class.getClassLoader().getResourceAsStream("logging.properties"));
+        } catch (SecurityException | IOException e) {
+            e.printStackTrace();
+        }
+        logger.log(Level.INFO, String.format("OpenCV %s", Core.VERSION));
+        logger.log(Level.INFO, String.format("Positives: %s, negatives: %s, output file: %s, hard negatives: %s",
+                posDir, negDir, outputFile, hardNegatives));
+        final List<String> posFiles;
+        final List<String> negFiles;
+        try {
+            posFiles = listImages(posDir);
+            negFiles = listImages(negDir);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, String.format("Unable to list images: %s", e.getMessage()));
+            return;
+        }
+        if (posFiles.isEmpty() || negFiles.isEmpty()) {
+            logger.log(Level.SEVERE, "Positive and negative images are required");
+            return;
+        }
+        if (width == 0 || height == 0) {
+            final var first = Imgcodecs.imread(posFiles.get(0));
+            width = first.width() / 8 * 8;
+            height = first.height() / 8 * 8;
+            first.release();
+        }
+        final var startTime = System.currentTimeMillis();
+        // Hard negatives are capped, so training data is allocated once
+        final var capacity = posFiles.size() + negFiles.size() * (hardNegatives ? 1 + HARD_PER_IMAGE : 1);
+        final var trainHog = new TrainHog(new Size(width, height), capacity);
+        final var positives = trainHog.addPositives(posFiles);
+        final var negatives = trainHog.addNegatives(negFiles);
+        logger.log(Level.INFO, String.format("%d positives, %d negatives, %4.2f seconds", positives, negatives,
+                (System.currentTimeMillis() - startTime) / 1000.0));
+        var svm = trainHog.train();
+        var detector = svmDetector(svm);
+        logger.log(Level.INFO, String.format("Trained, %4.2f seconds", (System.currentTimeMillis() - startTime)
+                / 1000.0));
+        if (hardNegatives) {
+            final var hard = trainHog.addHardNegatives(negFiles, detector);
+            logger.log(Level.INFO, String.format("%d hard negatives, %4.2f seconds", hard,
+                    (System.currentTimeMillis() - startTime) / 1000.0));
+            detector.release();
+            svm = trainHog.train();
+            detector = svmDetector(svm);
+            logger.log(Level.INFO, String.format("Trained again, %4.2f seconds",
+                    (System.currentTimeMillis() - startTime) / 1000.0));
+        }
+        trainHog.save(outputFile, detector);
+        final var estimatedTime = System.currentTimeMillis() - startTime;
+        final var seconds = (double) estimatedTime / 1000;
+        logger.log(Level.INFO, String.format("Saved %s, elapsed time: %4.2f seconds", outputFile, seconds));
+        // Release native memory
+        detector.release();
+        trainHog.release();
+    }
+}
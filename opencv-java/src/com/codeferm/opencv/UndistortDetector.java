@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) Steven P. Goldsmith. All rights reserved.
+ *
+ * Created by Steven P. Goldsmith on October 19, 2026
+ * sgjava@gmail.com
+ */
+package com.codeferm.opencv;
+
+import java.util.ArrayList;
+
+import org.opencv.calib3d.Calib3d;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+
+/**
+ * Detector that runs on raw lens distorted frames and undistorts only the
+ * results. The four corners and the centroid of every rectangle go through one
+ * Calib3d.undistortPoints call per frame, so the cost depends on the number of
+ * detections instead of the number of pixels. Rectangles are the bounding
+ * boxes of the undistorted corners in the same coordinates as
+ * CameraCalibration.undistort images. Centroids are the undistorted rectangle
+ * centers.
+ *
+ * @author sgoldsmith
+ * @version 1.0.0
+ * @since 1.0.0
+ */
+final class UndistortDetector implements Detector {
+    /**
+     * Detector for raw frames.
+     */
+    private final Detector detector;
+    /**
+     * Camera matrix.
+     */
+    private final Mat cameraMatrix;
+    /**
+     * Distortion coefficients.
+     */
+    private final Mat distCoeffs;
+    /**
+     * Camera matrix of undistorted image.
+     */
+    private final Mat newCameraMtx;
+    /**
+     * Distorted points.
+     */
+    private final MatOfPoint2f distorted = new MatOfPoint2f();
+    /**
+     * Undistorted points.
+     */
+    private final MatOfPoint2f undistorted = new MatOfPoint2f();
+    /**
+     * Identity rectification.
+     */
+    private final Mat rectification = new Mat();
+
+    /**
+     * Create detector. This detector owns the wrapped detector and the
+     * calibration Mats.
+     *
+     * @param detector
+     *            Detector for raw frames.
+     * @param cameraMatrix
+     *            Camera matrix from CameraCalibration.
+     * @param distCoeffs
+     *            Distortion coefficients from CameraCalibration.
+     * @param frameSize
+     *            Frame size.
+     */
+    UndistortDetector(final Detector detector, final Mat cameraMatrix, final Mat distCoeffs, final Size frameSize) {
+        this.detector = detector;
+        this.cameraMatrix = cameraMatrix;
+        this.distCoeffs = distCoeffs;
+        // Same projection as CameraCalibration.undistort
+        this.newCameraMtx = Calib3d.getOptimalNewCameraMatrix(cameraMatrix, distCoeffs, frameSize, 0);
+    }
+
+    /**
+     * @see com.codeferm.opencv.Detector#detect(org.opencv.core.Mat)
+     */
+    @Override
+    public Detection detect(final Mat frame) {
+        final var detection = detector.detect(frame);
+        final var rects = detection.getRects();
+        if (rects.isEmpty()) {
+            return detection;
+        }
+        // Corners and centroid of each rectangle
+        final var points = new Point[rects.size() * 5];
+        for (int i = 0; i < rects.size(); i++) {
+            final var rect = rects.get(i);
+            points[i * 5] = new Point(rect.x, rect.y);
+            points[i * 5 + 1] = new Point(rect.x + rect.width, rect.y);
+            points[i * 5 + 2] = new Point(rect.x, rect.y + rect.height);
+            points[i * 5 + 3] = new Point(rect.x + rect.width, rect.y + rect.height);
+            points[i * 5 + 4] = new Point(rect.x + rect.width / 2.0, rect.y + rect.height / 2.0);
+        }
+        distorted.fromArray(points);
+        Calib3d.undistortPoints(distorted, undistorted, cameraMatrix, distCoeffs, rectification, newCameraMtx);
+        final var result = undistorted.toArray();
+        final var rectList = new ArrayList<Rect>(rects.size());
+        final var centroids = new ArrayList<Point>(rects.size());
+        for (int i = 0; i < rects.size(); i++) {
+            var minX = Double.MAX_VALUE;
+            var minY = Double.MAX_VALUE;
+            var maxX = -Double.MAX_VALUE;
+            var maxY = -Double.MAX_VALUE;
+            for (int j = i * 5; j < i * 5 + 4; j++) {
+                minX = Math.min(minX, result[j].x);
+                minY = Math.min(minY, result[j].y);
+                maxX = Math.max(maxX, result[j].x);
+                maxY = Math.max(maxY, result[j].y);
+            }
+            rectList.add(new Rect((int) Math.round(minX), (int) Math.round(minY), (int) Math.round(maxX - minX),
+                    (int) Math.round(maxY - minY)));
+            centroids.add(result[i * 5 + 4]);
+        }
+        return new Detection(rectList, detection.getWeights(), detection.getMotionPercent(), detection.isDetected(),
+                centroids);
+    }
+
+    /**
+     * @see com.codeferm.opencv.Detector#release()
+     */
+    @Override
+    public void release() {
+        detector.release();
+        cameraMatrix.release();
+        distCoeffs.release();
+        newCameraMtx.release();
+        distorted.release();
+        undistorted.release();
+        rectification.release();
+    }
+}
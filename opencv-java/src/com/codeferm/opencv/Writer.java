@@ -15,7 +15,6 @@ import org.opencv.core.Core;
 import org.opencv.core.Mat;
 import org.opencv.core.Size;
 import org.opencv.videoio.VideoCapture;
-import org.opencv.videoio.VideoWriter;
 import org.opencv.videoio.Videoio;
 
 /**
@@ -24,6 +23,11 @@ import org.opencv.videoio.Videoio;
  * args[0] = source file or will default to "../resources/traffic.mp4" if no
  * args passed.
  *
+ * args[1] = segment length in seconds or will write one file if "0" or not
+ * passed.
+ *
+ * args[2] = max segment size in MB or no size limit if "0" or not passed.
+ *
  * @author sgoldsmith
  * @version 1.0.0
  * @since 1.0.0
@@ -51,11 +55,19 @@ final class Writer {
      * args[0] = source file or will default to "../resources/traffic.mp4" if no
      * args passed.
      *
+     * args[1] = segment length in seconds or will write one file if "0" or
+     * not passed.
+     *
+     * args[2] = max segment size in MB or no size limit if "0" or not
+     * passed.
+     *
      * @param args
      *            Arguments passed.
      */
     public static void main(final String... args) {
         String url = null;
+        var segmentSeconds = 0;
+        var segmentMegabytes = 0;
         final var outputFile = "../output/writer-java.avi";
         // Check how many arguments were passed in
         if (args.length == 0) {
@@ -65,6 +77,12 @@ final class Writer {
         } else {
             url = args[0];
         }
+        if (args.length > 1) {
+            segmentSeconds = Integer.parseInt(args[1]);
+        }
+        if (args.length > 2) {
+            segmentMegabytes = Integer.parseInt(args[2]);
+        }
         // Custom logging properties via class loader
         try {
             LogManager.getLogManager()
@@ -81,8 +99,9 @@ final class Writer {
                 (int) videoCapture.get(Videoio.CAP_PROP_FRAME_HEIGHT));
         logger.log(Level.INFO, String.format("Resolution: %s", frameSize));
         final var fourCC = new FourCC("X264");
-        final var videoWriter = new VideoWriter(outputFile, fourCC.toInt(),
-                videoCapture.get(Videoio.CAP_PROP_FPS), frameSize, true);
+        // Roll output files for 24/7 operation
+        final var videoWriter = SegmentedWriter.create("../output/writer-java", "avi", fourCC.toInt(),
+                videoCapture.get(Videoio.CAP_PROP_FPS), frameSize, segmentSeconds, segmentMegabytes * 1024L * 1024L);
         final var mat = new Mat();
         int frames = 0;
         final var startTime = System.currentTimeMillis();